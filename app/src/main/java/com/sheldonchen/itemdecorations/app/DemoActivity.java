@@ -12,6 +12,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.sheldonchen.itemdecorations.decorations.GridLayoutDivider;
 import com.sheldonchen.itemdecorations.decorations.LinearLayoutDivider;
+import com.sheldonchen.itemdecorations.painter.CachingDrawablePainter;
 
 /**
  * Created by cxd on 2018/4/17
@@ -71,7 +72,7 @@ public class DemoActivity extends AppCompatActivity {
                     .setOrientation(LinearLayoutManager.VERTICAL)
                     .drawFirstDivider(true)
                     .drawLastDivider(true)
-                    .setDividerDrawable(dividerDrawable)
+                    .setPainter(new CachingDrawablePainter(dividerDrawable))
                     .setDividerThickness(dividerDrawable.getIntrinsicHeight())
                     .build();
         } else if(type == 1) {
@@ -81,7 +82,7 @@ public class DemoActivity extends AppCompatActivity {
                     .setOrientation(LinearLayoutManager.HORIZONTAL)
                     .drawFirstDivider(true)
                     .drawLastDivider(true)
-                    .setDividerDrawable(dividerDrawable)
+                    .setPainter(new CachingDrawablePainter(dividerDrawable))
                     .setDividerThickness(dividerDrawable.getIntrinsicWidth())
                     .build();
         } else if(type == 2) {
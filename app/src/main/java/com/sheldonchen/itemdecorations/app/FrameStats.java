@@ -0,0 +1,91 @@
+package com.sheldonchen.itemdecorations.app;
+
+import android.util.SparseIntArray;
+
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * 由FrameMetricsAggregator的耗时直方图(key: 毫秒, value: 帧数)计算的分位数与掉帧比例.
+ */
+
+public final class FrameStats {
+
+    public static final String CSV_HEADER = "frames,p50_ms,p90_ms,p95_ms,p99_ms,max_ms,jank_pct,severe_jank_pct";
+
+    /**
+     * 超过这个时长的帧视为掉帧(60Hz).
+     */
+    private static final int JANK_MS = 16;
+
+    /**
+     * 超过这个时长的帧视为严重掉帧(连续丢失两帧以上).
+     */
+    private static final int SEVERE_JANK_MS = 32;
+
+    private final int mFrames;
+    private final int mP50;
+    private final int mP90;
+    private final int mP95;
+    private final int mP99;
+    private final int mMax;
+    private final float mJankPercent;
+    private final float mSevereJankPercent;
+
+    private FrameStats(SparseIntArray histogram) {
+        int total = 0;
+        int jank = 0;
+        int severeJank = 0;
+        for (int i = 0; i < histogram.size(); i++) {
+            final int durationMs = histogram.keyAt(i);
+            final int count = histogram.valueAt(i);
+            total += count;
+            if (durationMs > JANK_MS) jank += count;
+            if (durationMs > SEVERE_JANK_MS) severeJank += count;
+        }
+        mFrames = total;
+        mP50 = percentile(histogram, total, 0.50f);
+        mP90 = percentile(histogram, total, 0.90f);
+        mP95 = percentile(histogram, total, 0.95f);
+        mP99 = percentile(histogram, total, 0.99f);
+        mMax = histogram.size() > 0 ? histogram.keyAt(histogram.size() - 1) : 0;
+        mJankPercent = total > 0 ? jank * 100f / total : 0f;
+        mSevereJankPercent = total > 0 ? severeJank * 100f / total : 0f;
+    }
+
+    /**
+     * @param histogram FrameMetricsAggregator.TOTAL_INDEX对应的直方图, API 24以下为null.
+     */
+    public static FrameStats from(@Nullable SparseIntArray histogram) {
+        return new FrameStats(histogram != null ? histogram : new SparseIntArray());
+    }
+
+    /**
+     * SparseIntArray的key按升序排列, 累计帧数首次达到total * fraction时的耗时即为分位数.
+     */
+    private static int percentile(SparseIntArray histogram, int total, float fraction) {
+        if (total == 0) return 0;
+
+        final int target = (int) Math.ceil(total * fraction);
+        int cumulative = 0;
+        for (int i = 0; i < histogram.size(); i++) {
+            cumulative += histogram.valueAt(i);
+            if (cumulative >= target) {
+                return histogram.keyAt(i);
+            }
+        }
+        return histogram.keyAt(histogram.size() - 1);
+    }
+
+    public String toCsv() {
+        return String.format(Locale.US, "%d,%d,%d,%d,%d,%d,%.2f,%.2f",
+                mFrames, mP50, mP90, mP95, mP99, mMax, mJankPercent, mSevereJankPercent);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "frames=%d p50=%dms p90=%dms p99=%dms jank=%.1f%%",
+                mFrames, mP50, mP90, mP99, mJankPercent);
+    }
+}
@@ -19,6 +19,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         findViewById(R.id.cv_grid_vertical).setOnClickListener(this);
         findViewById(R.id.cv_grid_horizontal).setOnClickListener(this);
         findViewById(R.id.cv_staggered).setOnClickListener(this);
+        findViewById(R.id.cv_stress).setOnClickListener(this);
     }
 
     @Override
@@ -34,6 +35,8 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
             startDemoAc(3);
         } else if(viewId == R.id.cv_staggered) {
             Toast.makeText(this, "后续将会优化对瀑布流布局的支持.", Toast.LENGTH_SHORT).show();
+        } else if(viewId == R.id.cv_stress) {
+            startActivity(new Intent(this, StressActivity.class));
         }
     }
 
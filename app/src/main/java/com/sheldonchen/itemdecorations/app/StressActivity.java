@@ -0,0 +1,293 @@
+package com.sheldonchen.itemdecorations.app;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.SparseIntArray;
+import android.view.ViewConfiguration;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.app.FrameMetricsAggregator;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.sheldonchen.itemdecorations.decorations.GridLayoutDivider;
+import com.sheldonchen.itemdecorations.decorations.LinearLayoutDivider;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 压力测试: 在十万到百万级的列表上, 按不同的spanCount和分割线配置依次执行脚本化的fling,
+ * 用FrameMetricsAggregator统计每种配置的帧耗时, 分位数与掉帧比例写入CSV文件.
+ * <p>
+ * 可以通过adb指定参数, 例如:
+ * <pre>
+ * adb shell am start -n com.sheldonchen.itemdecorations.app/.StressActivity \
+ *     --eia arg_item_counts 1000000 --eia arg_span_counts 1,6,12 --ei arg_flings 12
+ * </pre>
+ * 结果文件位于getExternalFilesDir(null)下(不可用时为getFilesDir()), 路径会显示在界面上并输出到logcat.
+ */
+
+public class StressActivity extends AppCompatActivity {
+
+    private static final String TAG = "DividerStress";
+
+    public static final String ARG_ITEM_COUNTS = "arg_item_counts";
+    public static final String ARG_SPAN_COUNTS = "arg_span_counts";
+    public static final String ARG_FLINGS = "arg_flings";
+
+    private static final int[] DEFAULT_ITEM_COUNTS = {100_000, 1_000_000};
+    private static final int[] DEFAULT_SPAN_COUNTS = {1, 4, 12};
+    private static final int DEFAULT_FLINGS = 8;
+    private static final int MAX_SPAN_COUNT = 12;
+
+    /**
+     * 分割线配置: 不加分割线(基准), 默认, 显示列表+offset缓存, 覆盖模式.
+     */
+    private static final String[] DIVIDERS = {"none", "plain", "cached", "overlay"};
+
+    /**
+     * 每次切换配置以及每次fling停止之后等待的时间.
+     */
+    private static final long SETTLE_DELAY_MS = 300;
+
+    private final List<Run> mRuns = new ArrayList<>();
+
+    private final StringBuilder mCsv = new StringBuilder("divider,item_count,span_count,")
+            .append(FrameStats.CSV_HEADER).append('\n');
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final FrameMetricsAggregator mAggregator = new FrameMetricsAggregator();
+
+    private RecyclerView mRecyclerView;
+
+    private TextView mStatusView;
+
+    private int mFlings;
+
+    private int mFlingVelocity;
+
+    private int mRunIndex = -1;
+
+    private int mFlingIndex = 0;
+
+    /**
+     * 是否在等待一次fling结束.
+     */
+    private boolean mFlinging = false;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress);
+        mRecyclerView = findViewById(R.id.rv);
+        mStatusView = findViewById(R.id.tv_status);
+
+        int[] itemCounts = getIntent().getIntArrayExtra(ARG_ITEM_COUNTS);
+        int[] spanCounts = getIntent().getIntArrayExtra(ARG_SPAN_COUNTS);
+        if (itemCounts == null || itemCounts.length == 0) itemCounts = DEFAULT_ITEM_COUNTS;
+        if (spanCounts == null || spanCounts.length == 0) spanCounts = DEFAULT_SPAN_COUNTS;
+        mFlings = Math.max(1, getIntent().getIntExtra(ARG_FLINGS, DEFAULT_FLINGS));
+        mFlingVelocity = ViewConfiguration.get(this).getScaledMaximumFlingVelocity();
+
+        for (int itemCount : itemCounts) {
+            for (int spanCount : spanCounts) {
+                for (String divider : DIVIDERS) {
+                    mRuns.add(new Run(Math.max(1, itemCount),
+                            Math.max(1, Math.min(MAX_SPAN_COUNT, spanCount)), divider));
+                }
+            }
+        }
+
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (mFlinging && newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    mFlinging = false;
+                    mHandler.postDelayed(StressActivity.this::nextFling, SETTLE_DELAY_MS);
+                }
+            }
+        });
+        mAggregator.add(this);
+        nextRun();
+    }
+
+    @Override
+    protected void onDestroy() {
+        mHandler.removeCallbacksAndMessages(null);
+        mAggregator.stop();
+        super.onDestroy();
+    }
+
+    private void nextRun() {
+        mRunIndex++;
+        if (mRunIndex >= mRuns.size()) {
+            writeResults();
+            return;
+        }
+
+        final Run run = mRuns.get(mRunIndex);
+        mStatusView.setText(String.format(Locale.US, "%d/%d %s", mRunIndex + 1, mRuns.size(), run));
+        while (mRecyclerView.getItemDecorationCount() > 0) {
+            mRecyclerView.removeItemDecorationAt(0);
+        }
+        mRecyclerView.setLayoutManager(run.createLayoutManager(this));
+        final RecyclerView.ItemDecoration decoration = run.createItemDecoration();
+        if (decoration != null) {
+            mRecyclerView.addItemDecoration(decoration);
+        }
+        mRecyclerView.setAdapter(new StressAdapter(run.mItemCount));
+
+        mHandler.postDelayed(() -> {
+            // 丢弃切换配置时的帧.
+            mAggregator.reset();
+            mFlingIndex = 0;
+            nextFling();
+        }, SETTLE_DELAY_MS);
+    }
+
+    /**
+     * 向下fling两次再向上fling一次, 整体不断深入列表.
+     */
+    private void nextFling() {
+        if (mFlingIndex >= mFlings) {
+            finishRun();
+            return;
+        }
+
+        final boolean down = mFlingIndex % 3 != 2;
+        mFlingIndex++;
+        mFlinging = mRecyclerView.fling(0, down ? mFlingVelocity : -mFlingVelocity);
+        if (!mFlinging) {
+            mHandler.postDelayed(this::nextFling, SETTLE_DELAY_MS);
+        }
+    }
+
+    private void finishRun() {
+        final SparseIntArray[] metrics = mAggregator.reset();
+        final FrameStats stats = FrameStats.from(
+                metrics != null ? metrics[FrameMetricsAggregator.TOTAL_INDEX] : null);
+        final Run run = mRuns.get(mRunIndex);
+        mCsv.append(run.mDivider).append(',')
+                .append(run.mItemCount).append(',')
+                .append(run.mSpanCount).append(',')
+                .append(stats.toCsv()).append('\n');
+        Log.i(TAG, run + " " + stats);
+        nextRun();
+    }
+
+    private void writeResults() {
+        File dir = getExternalFilesDir(null);
+        if (dir == null) dir = getFilesDir();
+        final String time = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        final File file = new File(dir, "divider-stress-" + time + ".csv");
+
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(mCsv.toString());
+            mStatusView.setText(file.getAbsolutePath());
+            Log.i(TAG, "results written to " + file.getAbsolutePath());
+        } catch (IOException e) {
+            mStatusView.setText(e.toString());
+            Log.e(TAG, "failed to write results", e);
+        }
+    }
+
+    /**
+     * 一种配置: item数量, spanCount(1为线性布局)以及分割线.
+     */
+    private static final class Run {
+
+        final int mItemCount;
+
+        final int mSpanCount;
+
+        final String mDivider;
+
+        Run(int itemCount, int spanCount, String divider) {
+            mItemCount = itemCount;
+            mSpanCount = spanCount;
+            mDivider = divider;
+        }
+
+        RecyclerView.LayoutManager createLayoutManager(Context context) {
+            if (mSpanCount == 1) {
+                return new LinearLayoutManager(context, LinearLayoutManager.VERTICAL, false);
+            }
+
+            final int spanCount = mSpanCount;
+            final GridLayoutManager manager =
+                    new GridLayoutManager(context, spanCount, GridLayoutManager.VERTICAL, false);
+            final GridLayoutManager.SpanSizeLookup lookup = new GridLayoutManager.SpanSizeLookup() {
+                @Override
+                public int getSpanSize(int position) {
+                    // 不规则的span分布: 整行, 半行, 两格以及单格交替出现.
+                    if (position % 13 == 0) return spanCount;
+                    if (position % 7 == 0) return Math.max(1, spanCount / 2);
+                    if (position % 5 == 0) return Math.min(2, spanCount);
+                    return 1;
+                }
+            };
+            // 百万级的列表必须开启缓存, 否则GridLayoutManager自身计算span就是O(n).
+            lookup.setSpanIndexCacheEnabled(true);
+            lookup.setSpanGroupIndexCacheEnabled(true);
+            manager.setSpanSizeLookup(lookup);
+            return manager;
+        }
+
+        @Nullable
+        RecyclerView.ItemDecoration createItemDecoration() {
+            if ("none".equals(mDivider)) return null;
+
+            final boolean cached = "cached".equals(mDivider);
+            final boolean overlay = "overlay".equals(mDivider);
+            final int color = Color.parseColor("#FF333333");
+            if (mSpanCount == 1) {
+                return new LinearLayoutDivider.Builder()
+                        .setOrientation(LinearLayoutManager.VERTICAL)
+                        .drawFirstDivider(true)
+                        .drawLastDivider(true)
+                        .setDividerColor(color)
+                        .setDividerThickness(4)
+                        .cacheDividerLayer(cached)
+                        .setOverlay(overlay)
+                        .build();
+            }
+
+            return new GridLayoutDivider.Builder()
+                    .setOrientation(GridLayoutManager.VERTICAL)
+                    .drawTopEdgeDivider(true)
+                    .drawBottomEdgeDivider(true)
+                    .drawLREdgesDivider(true)
+                    .setDividerColor(color)
+                    .setSideDividerColor(color)
+                    .setDividerThickness(15)
+                    .setSideDividerThickness(20)
+                    .cacheDividerLayer(cached)
+                    .setOffsetCacheSize(cached ? 512 : 0)
+                    .setOverlay(overlay)
+                    .build();
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "divider=%s items=%d spans=%d", mDivider, mItemCount, mSpanCount);
+        }
+    }
+}
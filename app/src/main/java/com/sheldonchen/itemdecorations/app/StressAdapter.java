@@ -0,0 +1,37 @@
+package com.sheldonchen.itemdecorations.app;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 压力测试用的Adapter: 只有数量, 没有数据, 可以模拟百万级的列表.
+ */
+
+public class StressAdapter extends RecyclerView.Adapter<CommonViewHolder> {
+
+    private final int mItemCount;
+
+    public StressAdapter(int itemCount) {
+        mItemCount = itemCount;
+    }
+
+    @Override
+    public CommonViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        return new CommonViewHolder(
+                LayoutInflater.from(parent.getContext()).inflate(R.layout.layout_item, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(CommonViewHolder holder, int position) {
+        TextView textView = holder.findView(R.id.tv);
+        textView.setText(String.valueOf(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItemCount;
+    }
+}
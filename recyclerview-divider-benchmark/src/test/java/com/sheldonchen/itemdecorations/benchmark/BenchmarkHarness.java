@@ -0,0 +1,98 @@
+package com.sheldonchen.itemdecorations.benchmark;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * 简易的基准测试执行器: 预热后按固定时间片多轮执行, 统计平均ns/op、B/op以及每次op提交给Canvas的绘制调用数.
+ * <p>
+ * 未直接使用JMH的Runner: 它在Robolectric沙箱ClassLoader之外加载benchmark类,
+ * 拿不到被shadow的Android类. 这里沿用JMH的度量方式(avgt + gc.alloc.rate.norm).
+ */
+
+final class BenchmarkHarness {
+
+    interface Op {
+        void run();
+    }
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURE_ITERATIONS = 5;
+    private static final long ITERATION_NANOS = 200_000_000L;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private BenchmarkHarness() {/* no instance.*/}
+
+    static void run(String benchmark, String params, Op op) {
+        run(benchmark, params, op, null);
+    }
+
+    /**
+     * @param canvas op绘制所用的Canvas, 为null时draws/op记为0.
+     */
+    static void run(String benchmark, String params, Op op, NullCanvas canvas) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iterate(op);
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        long ops = 0;
+        long nanos = 0;
+        long bytes = 0;
+        final long startDraws = canvas == null ? 0 : canvas.drawCount;
+        for (int i = 0; i < MEASURE_ITERATIONS; i++) {
+            final long startBytes = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+            final long startNanos = System.nanoTime();
+            ops += iterate(op);
+            nanos += System.nanoTime() - startNanos;
+            bytes += THREAD_BEAN.getThreadAllocatedBytes(threadId) - startBytes;
+        }
+        final long draws = canvas == null ? 0 : canvas.drawCount - startDraws;
+
+        report(benchmark, params, (double) nanos / ops, (double) bytes / ops, (double) draws / ops);
+    }
+
+    private static long iterate(Op op) {
+        final long deadline = System.nanoTime() + ITERATION_NANOS;
+        long ops = 0;
+        do {
+            op.run();
+            ops++;
+        } while (System.nanoTime() < deadline);
+        return ops;
+    }
+
+    private static void report(String benchmark, String params,
+                               double nsPerOp, double bytesPerOp, double drawsPerOp) {
+        final String version = System.getProperty("benchmark.library.version", "unspecified");
+        final String line = String.format(Locale.US, "%s,%s,%s,%.1f,%.1f,%.1f",
+                version, benchmark, params, nsPerOp, bytesPerOp, drawsPerOp);
+        System.out.println(line);
+
+        final String output = System.getProperty("benchmark.output");
+        if (output == null) return;
+
+        final File file = new File(output);
+        final boolean writeHeader = !file.exists();
+        // 只给出文件名时写到当前目录, 没有父目录需要创建.
+        final File dir = file.getParentFile();
+        if (dir != null) {
+            dir.mkdirs();
+        }
+        try (Writer writer = new FileWriter(file, true)) {
+            if (writeHeader) {
+                writer.write("version,benchmark,params,ns/op,B/op,draws/op\n");
+            }
+            writer.write(line);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new IllegalStateException("BenchmarkHarness: can't write " + output, e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.sheldonchen.itemdecorations.benchmark;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.StaggeredGridLayoutManager;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.sheldonchen.itemdecorations.decorations.GridLayoutDivider;
+import com.sheldonchen.itemdecorations.decorations.LinearLayoutDivider;
+import com.sheldonchen.itemdecorations.painter.CachingDrawablePainter;
+import com.sheldonchen.itemdecorations.painter.ColorIntPainter;
+import com.sheldonchen.itemdecorations.painter.DrawablePainter;
+import com.sheldonchen.itemdecorations.painter.HairlinePainter;
+import com.sheldonchen.itemdecorations.painter.PixelSnappedPainter;
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 预热之后, 模拟滚动的每一帧(平移child + getItemOffsets + onDraw)都不能在堆上分配内存.
+ * <p>
+ * 以当前线程的已分配字节数(ThreadMXBean)为准, 任何新增的装箱、迭代器或临时对象都会使测试失败.
+ */
+
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class DividerAllocationTest {
+
+    private static final int ITEM_COUNT = 10_000;
+    private static final int WARMUP_FRAMES = 2_000;
+    private static final int MEASURE_FRAMES = 5_000;
+
+    /**
+     * 每帧平移的距离, 来回滚动使child始终覆盖整个RecyclerView.
+     */
+    private static final int SCROLL_STEP = 7;
+    private static final int SCROLL_FRAMES_PER_DIRECTION = 30;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final String[] LAYOUTS = {"linear", "grid", "grid-cached", "staggered"};
+    private static final String[] PAINTERS =
+            {"color", "drawable", "cached-drawable", "hairline", "pixel-snapped"};
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "layout={0} painter={1}")
+    public static Collection<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (String layout : LAYOUTS) {
+            for (String painter : PAINTERS) {
+                parameters.add(new Object[]{layout, painter});
+            }
+        }
+        return parameters;
+    }
+
+    private final String mLayout;
+    private final String mPainter;
+
+    private DividerFixture mFixture;
+
+    public DividerAllocationTest(String layout, String painter) {
+        mLayout = layout;
+        mPainter = painter;
+    }
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mFixture = new DividerFixture(context, layoutManager(context), decoration(), ITEM_COUNT);
+    }
+
+    @Test
+    public void scrollFramesDoNotAllocate() {
+        runFrames(WARMUP_FRAMES);
+
+        final long threadId = Thread.currentThread().getId();
+        final long startBytes = THREAD_BEAN.getThreadAllocatedBytes(threadId);
+        runFrames(MEASURE_FRAMES);
+        final long allocatedBytes = THREAD_BEAN.getThreadAllocatedBytes(threadId) - startBytes;
+
+        Assert.assertEquals("allocated " + allocatedBytes + " bytes in " + MEASURE_FRAMES
+                + " frames (layout=" + mLayout + " painter=" + mPainter + ")", 0L, allocatedBytes);
+    }
+
+    private void runFrames(int frames) {
+        for (int frame = 0; frame < frames; frame++) {
+            final boolean down = (frame / SCROLL_FRAMES_PER_DIRECTION) % 2 == 0;
+            mFixture.scrollPass(down ? -SCROLL_STEP : SCROLL_STEP);
+            mFixture.offsetPass();
+            mFixture.drawPass();
+        }
+    }
+
+    private RecyclerView.LayoutManager layoutManager(Context context) {
+        switch (mLayout) {
+            case "linear":
+                return new LinearLayoutManager(context, LinearLayoutManager.VERTICAL, false);
+            case "staggered":
+                return new StaggeredGridLayoutManager(3, StaggeredGridLayoutManager.VERTICAL);
+            default:
+                final GridLayoutManager manager =
+                        new GridLayoutManager(context, 4, GridLayoutManager.VERTICAL, false);
+                manager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+                    @Override
+                    public int getSpanSize(int position) {
+                        return position % 7 == 0 ? manager.getSpanCount() : 1;
+                    }
+                });
+                return manager;
+        }
+    }
+
+    private RecyclerView.ItemDecoration decoration() {
+        final IDividerPainter painter;
+        if ("color".equals(mPainter)) {
+            painter = new ColorIntPainter(Color.DKGRAY);
+        } else if ("cached-drawable".equals(mPainter)) {
+            painter = new CachingDrawablePainter(new ColorDrawable(Color.DKGRAY));
+        } else if ("hairline".equals(mPainter)) {
+            painter = new HairlinePainter(Color.DKGRAY);
+        } else if ("pixel-snapped".equals(mPainter)) {
+            painter = new PixelSnappedPainter(Color.DKGRAY, 2);
+        } else {
+            painter = new DrawablePainter(new ColorDrawable(Color.DKGRAY));
+        }
+
+        if ("linear".equals(mLayout)) {
+            return new LinearLayoutDivider.Builder()
+                    .setOrientation(LinearLayoutManager.VERTICAL)
+                    .drawFirstDivider(true)
+                    .drawLastDivider(true)
+                    .notDrawEvery(5, 0)
+                    .setPainter(painter)
+                    .setDividerThickness(2)
+                    .build();
+        }
+
+        return new GridLayoutDivider.Builder()
+                .setOrientation(GridLayoutManager.VERTICAL)
+                .drawTopEdgeDivider(true)
+                .drawBottomEdgeDivider(true)
+                .drawLREdgesDivider(true)
+                .setPainter(painter)
+                .setDividerThickness(15)
+                .setSideDividerThickness(20)
+                .setOffsetCacheSize("grid-cached".equals(mLayout) ? 256 : 0)
+                .build();
+    }
+}
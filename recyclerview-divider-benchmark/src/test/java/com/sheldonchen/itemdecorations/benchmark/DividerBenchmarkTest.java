@@ -0,0 +1,189 @@
+package com.sheldonchen.itemdecorations.benchmark;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.sheldonchen.itemdecorations.decorations.GridLayoutDivider;
+import com.sheldonchen.itemdecorations.decorations.LinearLayoutDivider;
+import com.sheldonchen.itemdecorations.painter.CachingDrawablePainter;
+import com.sheldonchen.itemdecorations.painter.ColorIntPainter;
+import com.sheldonchen.itemdecorations.painter.DrawablePainter;
+import com.sheldonchen.itemdecorations.painter.HairlinePainter;
+import com.sheldonchen.itemdecorations.painter.PixelSnappedPainter;
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * getItemOffsets与onDraw的基准测试.
+ * 参数: 布局(linear/grid) x item数量 x spanCount x SpanSizeLookup x painter.
+ * <p>
+ * 耗时较长, 只在Gradle指定-Pbenchmark(即系统属性benchmark.enabled为true)时运行.
+ */
+
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class DividerBenchmarkTest {
+
+    private static final int[] ITEM_COUNTS = {100, 10_000, 1_000_000};
+    private static final int[] SPAN_COUNTS = {1, 2, 3, 4, 6, 8, 12};
+    private static final String[] LOOKUPS = {"default", "demo", "irregular"};
+    private static final String[] PAINTERS =
+            {"color", "color-per-rect", "drawable", "cached-drawable", "hairline", "pixel-snapped"};
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static Collection<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (int itemCount : ITEM_COUNTS) {
+            for (String painter : PAINTERS) {
+                parameters.add(new Object[]{
+                        params("linear", itemCount, 1, "none", painter),
+                        "linear", itemCount, 1, "none", painter});
+                for (int spanCount : SPAN_COUNTS) {
+                    for (String lookup : LOOKUPS) {
+                        parameters.add(new Object[]{
+                                params("grid", itemCount, spanCount, lookup, painter),
+                                "grid", itemCount, spanCount, lookup, painter});
+                    }
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private static String params(String layout, int itemCount, int spanCount, String lookup, String painter) {
+        return String.format(Locale.US, "layout=%s itemCount=%d spanCount=%d lookup=%s painter=%s",
+                layout, itemCount, spanCount, lookup, painter);
+    }
+
+    private final String mParams;
+    private final String mLayout;
+    private final int mItemCount;
+    private final int mSpanCount;
+    private final String mLookup;
+    private final String mPainter;
+
+    private DividerFixture mFixture;
+
+    public DividerBenchmarkTest(String params, String layout, int itemCount,
+                                int spanCount, String lookup, String painter) {
+        mParams = params;
+        mLayout = layout;
+        mItemCount = itemCount;
+        mSpanCount = spanCount;
+        mLookup = lookup;
+        mPainter = painter;
+    }
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("benchmark disabled, run with -Pbenchmark", Boolean.getBoolean("benchmark.enabled"));
+        final Context context = ApplicationProvider.getApplicationContext();
+        mFixture = new DividerFixture(context, layoutManager(context), decoration(), mItemCount);
+    }
+
+    @Test
+    public void getItemOffsets() {
+        BenchmarkHarness.run("getItemOffsets", mParams, mFixture::offsetPass);
+    }
+
+    @Test
+    public void onDraw() {
+        BenchmarkHarness.run("onDraw", mParams, mFixture::drawPass, mFixture.canvas);
+    }
+
+    private RecyclerView.LayoutManager layoutManager(Context context) {
+        if ("linear".equals(mLayout)) {
+            return new LinearLayoutManager(context, LinearLayoutManager.VERTICAL, false);
+        }
+
+        final GridLayoutManager manager =
+                new GridLayoutManager(context, mSpanCount, GridLayoutManager.VERTICAL, false);
+        if ("demo".equals(mLookup)) {
+            // 与DemoActivity中的SpanSizeLookup相同.
+            manager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+                @Override
+                public int getSpanSize(int position) {
+                    if (position == 2 || position == 5) {
+                        return manager.getSpanCount();
+                    }
+                    return 1;
+                }
+            });
+        } else if ("irregular".equals(mLookup)) {
+            manager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+                @Override
+                public int getSpanSize(int position) {
+                    final int spanCount = manager.getSpanCount();
+                    if (position % 7 == 0) {
+                        return spanCount;
+                    } else if (position % 5 == 0) {
+                        return Math.min(2, spanCount);
+                    }
+                    return 1;
+                }
+            });
+        }
+        return manager;
+    }
+
+    private RecyclerView.ItemDecoration decoration() {
+        final IDividerPainter painter;
+        if ("color".equals(mPainter)) {
+            painter = new ColorIntPainter(Color.DKGRAY);
+        } else if ("color-per-rect".equals(mPainter)) {
+            // 对照组: 与color相同, 但不合并, 每个矩形一次drawRect.
+            final ColorIntPainter color = new ColorIntPainter(Color.DKGRAY);
+            painter = new IDividerPainter() {
+                @Override
+                public void drawDivider(@NonNull Canvas canvas, int left, int top, int right, int bottom) {
+                    color.drawDivider(canvas, left, top, right, bottom);
+                }
+            };
+        } else if ("cached-drawable".equals(mPainter)) {
+            painter = new CachingDrawablePainter(new ColorDrawable(Color.DKGRAY));
+        } else if ("hairline".equals(mPainter)) {
+            painter = new HairlinePainter(Color.DKGRAY);
+        } else if ("pixel-snapped".equals(mPainter)) {
+            painter = new PixelSnappedPainter(Color.DKGRAY, 2);
+        } else {
+            painter = new DrawablePainter(new ColorDrawable(Color.DKGRAY));
+        }
+
+        if ("linear".equals(mLayout)) {
+            return new LinearLayoutDivider.Builder()
+                    .setOrientation(LinearLayoutManager.VERTICAL)
+                    .drawFirstDivider(true)
+                    .drawLastDivider(true)
+                    .setPainter(painter)
+                    .setDividerThickness(2)
+                    .build();
+        }
+
+        return new GridLayoutDivider.Builder()
+                .setOrientation(GridLayoutManager.VERTICAL)
+                .drawTopEdgeDivider(true)
+                .drawBottomEdgeDivider(true)
+                .drawLREdgesDivider(true)
+                .setPainter(painter)
+                .setDividerThickness(15)
+                .setSideDividerThickness(20)
+                .build();
+    }
+}
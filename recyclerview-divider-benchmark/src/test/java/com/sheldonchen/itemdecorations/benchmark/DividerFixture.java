@@ -0,0 +1,113 @@
+package com.sheldonchen.itemdecorations.benchmark;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 已完成measure/layout的RecyclerView, 用于重复执行offset计算和onDraw.
+ */
+
+final class DividerFixture {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int ITEM_HEIGHT = 120;
+
+    final RecyclerView recyclerView;
+
+    final RecyclerView.ItemDecoration decoration;
+
+    final NullCanvas canvas = new NullCanvas();
+
+    private final Rect mOutRect = new Rect();
+
+    private RecyclerView.State mState;
+
+    long sink = 0;
+
+    DividerFixture(Context context,
+                   RecyclerView.LayoutManager layoutManager,
+                   RecyclerView.ItemDecoration decoration,
+                   int itemCount) {
+        this.decoration = decoration;
+        this.recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.addItemDecoration(new StateCapture());
+        recyclerView.addItemDecoration(decoration);
+        recyclerView.setAdapter(new FixedAdapter(itemCount));
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+
+        if (mState == null || recyclerView.getChildCount() == 0) {
+            throw new IllegalStateException("DividerFixture: RecyclerView was not laid out.");
+        }
+    }
+
+    /**
+     * 对所有可见child执行一次getItemOffsets.
+     */
+    void offsetPass() {
+        final Rect outRect = mOutRect;
+        for (int i = 0, childCount = recyclerView.getChildCount(); i < childCount; i++) {
+            decoration.getItemOffsets(outRect, recyclerView.getChildAt(i), recyclerView, mState);
+            sink += outRect.left + outRect.top + outRect.right + outRect.bottom;
+        }
+    }
+
+    /**
+     * 模拟一帧滚动: 只平移child, 不触发RecyclerView的布局.
+     */
+    void scrollPass(int dy) {
+        recyclerView.offsetChildrenVertical(dy);
+    }
+
+    /**
+     * 执行一次完整的onDraw.
+     */
+    void drawPass() {
+        decoration.onDraw(canvas, recyclerView, mState);
+    }
+
+    /**
+     * RecyclerView在layout期间传给ItemDecoration的State就是其内部复用的那一个.
+     */
+    private final class StateCapture extends RecyclerView.ItemDecoration {
+        @Override
+        public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+            mState = state;
+        }
+    }
+
+    private static final class FixedAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+        private final int mItemCount;
+
+        FixedAdapter(int itemCount) {
+            mItemCount = itemCount;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View itemView = new View(parent.getContext());
+            itemView.setLayoutParams(new RecyclerView.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ITEM_HEIGHT));
+            return new RecyclerView.ViewHolder(itemView) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+
+        @Override
+        public int getItemCount() {
+            return mItemCount;
+        }
+    }
+}
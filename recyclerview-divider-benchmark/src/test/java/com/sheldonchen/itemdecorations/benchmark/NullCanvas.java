@@ -0,0 +1,57 @@
+package com.sheldonchen.itemdecorations.benchmark;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * 丢弃所有绘制命令的Canvas, 只测量分割线本身的开销, 不包含Robolectric记录绘制命令的开销.
+ */
+
+final class NullCanvas extends Canvas {
+
+    long drawCount = 0;
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        drawCount++;
+    }
+
+    @Override
+    public void drawRect(Rect rect, Paint paint) {
+        drawCount++;
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        drawCount++;
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        drawCount++;
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        drawCount++;
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        drawCount++;
+    }
+
+    @Override
+    public void drawLines(float[] pts, Paint paint) {
+        drawCount++;
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        drawCount++;
+    }
+}
@@ -0,0 +1,41 @@
+package androidx.recyclerview.widget;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RestrictTo;
+
+/**
+ * RecyclerView只提供了{@link RecyclerView#invalidateItemDecorations()}使所有child的offset失效并重新布局,
+ * 这里通过包内可见的{@link RecyclerView.LayoutParams#mInsetsDirty}只标记单个child,
+ * 在下一次布局时重新调用getItemOffsets().
+ * Recycler缓存(mCachedViews)中的View重新添加时不会重新绑定, 需要通过{@link #markCachedViewsDirty}一并标记.
+ * <p>
+ * 在布局之外比较offset时, 通过包内可见的{@link RecyclerView#mState}获取与getItemOffsets()相同的State.
+ */
+
+@RestrictTo(RestrictTo.Scope.LIBRARY)
+public final class ItemDecorInsetsAccessor {
+
+    private ItemDecorInsetsAccessor() {/* no instance.*/}
+
+    public static void markDirty(@NonNull View child) {
+        final ViewGroup.LayoutParams layoutParams = child.getLayoutParams();
+        if (layoutParams instanceof RecyclerView.LayoutParams) {
+            ((RecyclerView.LayoutParams) layoutParams).mInsetsDirty = true;
+        }
+    }
+
+    /**
+     * 标记Recycler缓存中所有View的offset失效, 与invalidateItemDecorations()对缓存的处理相同.
+     */
+    public static void markCachedViewsDirty(@NonNull RecyclerView parent) {
+        parent.mRecycler.markItemDecorInsetsDirty();
+    }
+
+    @NonNull
+    public static RecyclerView.State state(@NonNull RecyclerView parent) {
+        return parent.mState;
+    }
+}
@@ -0,0 +1,202 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.view.View;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.Preconditions;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.tracing.Trace;
+
+import com.sheldonchen.itemdecorations.CheckUtil;
+import com.sheldonchen.itemdecorations.geometry.AdjacencySweep;
+import com.sheldonchen.itemdecorations.painter.DrawablePainter;
+import com.sheldonchen.itemdecorations.painter.PainterCache;
+import com.sheldonchen.itemdecorations.painter.base.DividerBatch;
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+
+/**
+ * 不依赖LayoutManager类型的Divider, 适用于流式(标签)布局、表格布局等自定义LayoutManager.
+ * <p>
+ * 每帧根据已布局child的实际位置推断相邻关系(见{@link AdjacencySweep}), 只在相邻的两个child之间画分割线,
+ * 共用的边只画一次. offset在每个child四周各留出一半厚度, 相邻的child之间恰好留出一条分割线的间隙.
+ */
+
+public class BoundsDivider extends RecyclerView.ItemDecoration {
+
+    public static final class Builder {
+
+        int mDividerThickness = 0;
+
+        /**
+         * 间隙不超过这个值的两个child视为相邻, 小于厚度时按厚度处理.
+         */
+        int mMaxGap = 0;
+
+        /**
+         * 是否在getItemOffsets中为分割线留出间隙.
+         */
+        boolean mReserveOffsets = true;
+
+        IDividerPainter mPainter = null;
+
+        /**
+         * 统计回调, 为null时不统计耗时.
+         */
+        @Nullable
+        IDividerMetricsListener mMetricsListener = null;
+
+        public Builder setDividerThickness(int dividerThickness) {
+            this.mDividerThickness = CheckUtil.ensureNatural(dividerThickness);
+            return this;
+        }
+
+        /**
+         * LayoutManager在child之间额外留出间距(例如流式布局两端对齐)时, 放宽相邻的判断.
+         */
+        public Builder setMaxGap(int maxGap) {
+            this.mMaxGap = CheckUtil.ensureNatural(maxGap);
+            return this;
+        }
+
+        /**
+         * 不留出offset时, 分割线画在LayoutManager自身留出的间隙中.
+         */
+        public Builder reserveOffsets(boolean reserveOffsets) {
+            this.mReserveOffsets = reserveOffsets;
+            return this;
+        }
+
+        public Builder setDividerColor(@ColorInt int color) {
+            return setPainter(PainterCache.colorPainter(color));
+        }
+
+        public Builder setDividerDrawable(@NonNull Drawable drawable) {
+            return setPainter(new DrawablePainter(drawable));
+        }
+
+        public Builder setPainter(@NonNull IDividerPainter painter) {
+            this.mPainter = painter;
+            return this;
+        }
+
+        public Builder setMetricsListener(@Nullable IDividerMetricsListener listener) {
+            this.mMetricsListener = listener;
+            return this;
+        }
+
+        public BoundsDivider build() {
+            return new BoundsDivider(this);
+        }
+
+        public void apply(RecyclerView recyclerView) {
+            if (recyclerView == null) return;
+
+            recyclerView.addItemDecoration(build());
+        }
+
+        public void apply(RecyclerView... recyclerViews) {
+            if (recyclerViews == null || recyclerViews.length == 0) return;
+
+            BoundsDivider divider = build();
+            for (RecyclerView recyclerView : recyclerViews) {
+                recyclerView.addItemDecoration(divider);
+            }
+        }
+    }
+
+    private static final String TRACE_ON_DRAW = "BoundsDivider#onDraw";
+    private static final String TRACE_ITEM_OFFSETS = "BoundsDivider#getItemOffsets";
+
+    private final Builder mBuilder;
+
+    private final AdjacencySweep mSweep = new AdjacencySweep();
+
+    /**
+     * 左右相邻之间的竖线与上下相邻之间的横线共用一个batch, 合并后去掉交叉处的重叠.
+     */
+    private final DividerBatch mBatch = new DividerBatch();
+
+    private final Rect mClipBounds = new Rect();
+
+    private final DividerFrameMetrics mMetrics = new DividerFrameMetrics();
+
+    private BoundsDivider(@NonNull Builder builder) {
+        Preconditions.checkNotNull(builder, "BoundsDivider: mBuilder can't be null.");
+        this.mBuilder = builder;
+    }
+
+    @Override
+    public void onDraw(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        super.onDraw(canvas, parent, state);
+        if (mBuilder.mPainter == null || mBuilder.mDividerThickness == 0) return;
+
+        Trace.beginSection(TRACE_ON_DRAW);
+        try {
+            final IDividerMetricsListener listener = mBuilder.mMetricsListener;
+            final long start = listener != null ? System.nanoTime() : 0L;
+            drawDividers(canvas, parent, state.getItemCount());
+            if (listener != null) {
+                mMetrics.report(listener, parent, start);
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void drawDividers(Canvas canvas, RecyclerView parent, int itemCount) {
+        final AdjacencySweep sweep = mSweep;
+        sweep.clear();
+        for (int i = 0, childCount = parent.getChildCount(); i < childCount; i++) {
+            final View child = parent.getChildAt(i);
+            final int pos = parent.getChildLayoutPosition(child);
+            if (pos < 0 || pos >= itemCount) continue;
+
+            final RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) child.getLayoutParams();
+            sweep.add(child.getLeft() - layoutParams.leftMargin,
+                    child.getTop() - layoutParams.topMargin,
+                    child.getRight() + layoutParams.rightMargin,
+                    child.getBottom() + layoutParams.bottomMargin);
+        }
+
+        final int thickness = mBuilder.mDividerThickness;
+        final int maxGap = Math.max(thickness, mBuilder.mMaxGap);
+        sweep.collect(thickness, maxGap, mBatch, mBatch);
+        if (canvas.getClipBounds(mClipBounds)) {
+            mBatch.cull(mClipBounds.left, mClipBounds.top, mClipBounds.right, mClipBounds.bottom);
+        }
+        // 横线跨过竖线所在的间隙连成一条, 再从竖线中去掉与横线交叉的部分.
+        mBatch.merge(maxGap, 0);
+        mBatch.subtract(mBatch);
+
+        final IDividerPainter painter = mBuilder.mPainter;
+        painter.beginFrame(canvas);
+        mMetrics.onFlush(mBatch.flush(canvas, painter));
+        painter.endFrame(canvas);
+    }
+
+    @Override
+    public void getItemOffsets(@NonNull Rect outRect, @NonNull View view,
+                               @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        Trace.beginSection(TRACE_ITEM_OFFSETS);
+        try {
+            mMetrics.mItemOffsetsCount++;
+            if (!mBuilder.mReserveOffsets) {
+                outRect.set(0, 0, 0, 0);
+                return;
+            }
+
+            // 相邻的两个child各出一半.
+            final int thickness = mBuilder.mDividerThickness;
+            final int leading = thickness >> 1;
+            final int trailing = thickness - leading;
+            outRect.set(leading, leading, trailing, trailing);
+        } finally {
+            Trace.endSection();
+        }
+    }
+}
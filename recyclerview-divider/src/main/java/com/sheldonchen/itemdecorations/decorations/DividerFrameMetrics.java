@@ -0,0 +1,106 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 一帧内分割线的统计数据, 每个ItemDecoration持有一份并在帧之间复用.
+ * <p>
+ * getItemOffsets以及缓存/索引相关的计数为上一次回调之后累计的值.
+ */
+
+public final class DividerFrameMetrics {
+
+    long mDrawDurationNanos;
+
+    int mPainterCalls;
+
+    int mDividerCount;
+
+    boolean mLayerReplayed;
+
+    int mItemOffsetsCount;
+
+    int mOffsetCacheHitCount;
+
+    int mOffsetCacheMissCount;
+
+    int mSpanIndexRebuildCount;
+
+    DividerFrameMetrics() {
+    }
+
+    /**
+     * onDraw的耗时(纳秒).
+     */
+    public long getDrawDurationNanos() {
+        return mDrawDurationNanos;
+    }
+
+    /**
+     * IDividerPainter.drawDividers()的调用次数.
+     */
+    public int getPainterCalls() {
+        return mPainterCalls;
+    }
+
+    /**
+     * 交给painter绘制的分割线数量(合并之后).
+     */
+    public int getDividerCount() {
+        return mDividerCount;
+    }
+
+    /**
+     * 本帧是否直接重放了已录制的显示列表.
+     */
+    public boolean isLayerReplayed() {
+        return mLayerReplayed;
+    }
+
+    public int getItemOffsetsCount() {
+        return mItemOffsetsCount;
+    }
+
+    public int getOffsetCacheHitCount() {
+        return mOffsetCacheHitCount;
+    }
+
+    public int getOffsetCacheMissCount() {
+        return mOffsetCacheMissCount;
+    }
+
+    /**
+     * 网格span索引重新计算的position数量.
+     */
+    public int getSpanIndexRebuildCount() {
+        return mSpanIndexRebuildCount;
+    }
+
+    /**
+     * 结束一帧: 回调listener并清零.
+     */
+    void report(@NonNull IDividerMetricsListener listener, @NonNull RecyclerView parent, long drawStartNanos) {
+        mDrawDurationNanos = System.nanoTime() - drawStartNanos;
+        listener.onFrameMetrics(parent, this);
+        reset();
+    }
+
+    void onFlush(int dividerCount) {
+        if (dividerCount <= 0) return;
+
+        mPainterCalls++;
+        mDividerCount += dividerCount;
+    }
+
+    void reset() {
+        mDrawDurationNanos = 0;
+        mPainterCalls = 0;
+        mDividerCount = 0;
+        mLayerReplayed = false;
+        mItemOffsetsCount = 0;
+        mOffsetCacheHitCount = 0;
+        mOffsetCacheMissCount = 0;
+        mSpanIndexRebuildCount = 0;
+    }
+}
@@ -0,0 +1,217 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.graphics.RenderNode;
+import android.os.Build;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 把分割线录制成一份显示列表(API 29+为RenderNode, 否则为Picture), 在纯滚动的帧中平移后重放.
+ * <p>
+ * 显示列表以当前的child布局为key: 每个child的layout position、相对第一个child的位置以及尺寸,
+ * 加上item数量和RecyclerView的尺寸. key不变时只有第一个child的位置在变化, 即纯平移;
+ * child被添加、移除或改变尺寸时key改变, 需要重新录制.
+ * <p>
+ * 为避免在item动画等每帧都在变化的场景下反复录制, key连续两帧相同时才录制, 否则直接绘制.
+ */
+
+final class DividerLayerCache {
+
+    interface LayerDrawer {
+        /**
+         * @param recording 是否正在录制显示列表, 录制时不能按当前裁剪区域剔除分割线.
+         */
+        void drawLayer(@NonNull Canvas canvas, @NonNull RecyclerView parent,
+                       @NonNull RecyclerView.State state, boolean recording);
+    }
+
+    private static final int HEADER_SIZE = 6;
+    private static final int CHILD_SIZE = 5;
+
+    private int[] mCurrentKey = new int[HEADER_SIZE + CHILD_SIZE * 16];
+    private int mCurrentKeyLength = 0;
+
+    private int[] mPreviousKey = new int[HEADER_SIZE + CHILD_SIZE * 16];
+    private int mPreviousKeyLength = -1;
+
+    private int[] mLayerKey = new int[HEADER_SIZE + CHILD_SIZE * 16];
+    private int mLayerKeyLength = -1;
+
+    private int mAnchorLeft;
+    private int mAnchorTop;
+
+    private int mLayerAnchorLeft;
+    private int mLayerAnchorTop;
+
+    @Nullable
+    private RenderNode mRenderNode;
+
+    @Nullable
+    private Picture mPicture;
+
+    private boolean mLayerIsRenderNode;
+
+    /**
+     * 丢弃已录制的显示列表(painter或者样式变化时).
+     */
+    void invalidate() {
+        mLayerKeyLength = -1;
+        mPreviousKeyLength = -1;
+    }
+
+    /**
+     * @return 是否直接重放了已录制的显示列表.
+     */
+    boolean draw(@NonNull Canvas canvas,
+                 @NonNull RecyclerView parent,
+                 @NonNull RecyclerView.State state,
+                 @NonNull LayerDrawer drawer) {
+        buildKey(parent, state.getItemCount());
+
+        final boolean useRenderNode = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                && canvas.isHardwareAccelerated();
+        final boolean supported = useRenderNode
+                || !canvas.isHardwareAccelerated()
+                || Build.VERSION.SDK_INT >= Build.VERSION_CODES.M;
+
+        if (supported && mLayerIsRenderNode == useRenderNode
+                && sameKey(mCurrentKey, mCurrentKeyLength, mLayerKey, mLayerKeyLength)) {
+            replay(canvas);
+            return true;
+        }
+
+        final boolean stable = sameKey(mCurrentKey, mCurrentKeyLength, mPreviousKey, mPreviousKeyLength);
+        // current -> previous.
+        final int[] previous = mPreviousKey;
+        mPreviousKey = mCurrentKey;
+        mPreviousKeyLength = mCurrentKeyLength;
+        mCurrentKey = previous;
+
+        if (!stable || !supported) {
+            mLayerKeyLength = -1;
+            drawer.drawLayer(canvas, parent, state, false);
+            return false;
+        }
+
+        if (useRenderNode) {
+            recordRenderNode(parent, state, drawer);
+        } else {
+            recordPicture(parent, state, drawer);
+        }
+        mLayerIsRenderNode = useRenderNode;
+        if (mLayerKey.length < mPreviousKeyLength) {
+            mLayerKey = new int[mPreviousKey.length];
+        }
+        System.arraycopy(mPreviousKey, 0, mLayerKey, 0, mPreviousKeyLength);
+        mLayerKeyLength = mPreviousKeyLength;
+        mLayerAnchorLeft = mAnchorLeft;
+        mLayerAnchorTop = mAnchorTop;
+        replay(canvas);
+        return false;
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private void recordRenderNode(@NonNull RecyclerView parent,
+                                  @NonNull RecyclerView.State state,
+                                  @NonNull LayerDrawer drawer) {
+        RenderNode node = mRenderNode;
+        if (node == null) {
+            node = mRenderNode = new RenderNode("ItemDecorations:DividerLayer");
+            // 平移后原本在RecyclerView之外的分割线也可能进入可见区域.
+            node.setClipToBounds(false);
+        }
+        node.setPosition(0, 0, parent.getWidth(), parent.getHeight());
+        final Canvas recordingCanvas = node.beginRecording(parent.getWidth(), parent.getHeight());
+        try {
+            drawer.drawLayer(recordingCanvas, parent, state, true);
+        } finally {
+            node.endRecording();
+        }
+    }
+
+    private void recordPicture(@NonNull RecyclerView parent,
+                               @NonNull RecyclerView.State state,
+                               @NonNull LayerDrawer drawer) {
+        if (mPicture == null) {
+            mPicture = new Picture();
+        }
+        final Canvas recordingCanvas = mPicture.beginRecording(parent.getWidth(), parent.getHeight());
+        try {
+            drawer.drawLayer(recordingCanvas, parent, state, true);
+        } finally {
+            mPicture.endRecording();
+        }
+    }
+
+    private void replay(@NonNull Canvas canvas) {
+        final int dx = mAnchorLeft - mLayerAnchorLeft;
+        final int dy = mAnchorTop - mLayerAnchorTop;
+        if (mLayerIsRenderNode && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            replayRenderNode(canvas, dx, dy);
+            return;
+        }
+
+        final int saveCount = canvas.save();
+        canvas.translate(dx, dy);
+        canvas.drawPicture(mPicture);
+        canvas.restoreToCount(saveCount);
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private void replayRenderNode(@NonNull Canvas canvas, int dx, int dy) {
+        final RenderNode node = mRenderNode;
+        node.setTranslationX(dx);
+        node.setTranslationY(dy);
+        canvas.drawRenderNode(node);
+    }
+
+    private void buildKey(@NonNull RecyclerView parent, int itemCount) {
+        final int childCount = parent.getChildCount();
+        final int length = HEADER_SIZE + CHILD_SIZE * childCount;
+        if (mCurrentKey.length < length) {
+            mCurrentKey = new int[length + (length >> 1)];
+        }
+        final int[] key = mCurrentKey;
+
+        int anchorLeft = 0;
+        int anchorTop = 0;
+        if (childCount > 0) {
+            final View first = parent.getChildAt(0);
+            anchorLeft = first.getLeft();
+            anchorTop = first.getTop();
+        }
+        mAnchorLeft = anchorLeft;
+        mAnchorTop = anchorTop;
+
+        key[0] = itemCount;
+        key[1] = childCount;
+        key[2] = parent.getWidth();
+        key[3] = parent.getHeight();
+        key[4] = parent.getPaddingLeft() | parent.getPaddingRight() << 16;
+        key[5] = parent.getPaddingTop() | parent.getPaddingBottom() << 16;
+
+        for (int i = 0, offset = HEADER_SIZE; i < childCount; i++, offset += CHILD_SIZE) {
+            final View child = parent.getChildAt(i);
+            key[offset] = parent.getChildLayoutPosition(child);
+            key[offset + 1] = child.getLeft() - anchorLeft;
+            key[offset + 2] = child.getTop() - anchorTop;
+            key[offset + 3] = child.getWidth();
+            key[offset + 4] = child.getHeight();
+        }
+        mCurrentKeyLength = length;
+    }
+
+    private static boolean sameKey(int[] a, int aLength, int[] b, int bLength) {
+        if (aLength != bLength || aLength < 0) return false;
+        for (int i = 0; i < aLength; i++) {
+            if (a[i] != b[i]) return false;
+        }
+        return true;
+    }
+}
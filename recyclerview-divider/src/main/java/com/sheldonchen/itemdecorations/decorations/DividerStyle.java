@@ -0,0 +1,100 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sheldonchen.itemdecorations.CheckUtil;
+import com.sheldonchen.itemdecorations.painter.DrawablePainter;
+import com.sheldonchen.itemdecorations.painter.PainterCache;
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+
+/**
+ * 按position指定的分割线样式: painter, 厚度以及两端的缩进, 创建之后不再修改.
+ * <p>
+ * 通过Builder.addDividerStyle(styleId, style)注册, 由{@link com.sheldonchen.itemdecorations.rules.IDividerStyleProvider}
+ * 返回每个position的styleId. 只作用于item之后(列表方向上)的分割线; 没有设置painter的样式不画分割线, 也不留出offset.
+ */
+
+public final class DividerStyle {
+
+    public static final class Builder {
+
+        int mThickness = 0;
+
+        /**
+         * 竖向列表：左缩进   横向列表：上缩进.
+         */
+        int mStartInset = 0;
+
+        /**
+         * 竖向列表：右缩进   横向列表：下缩进.
+         */
+        int mEndInset = 0;
+
+        IDividerPainter mPainter = null;
+
+        public Builder setDividerThickness(int thickness) {
+            this.mThickness = CheckUtil.ensureNatural(thickness);
+            return this;
+        }
+
+        public Builder setStartInset(int startInset) {
+            this.mStartInset = CheckUtil.ensureNatural(startInset);
+            return this;
+        }
+
+        public Builder setEndInset(int endInset) {
+            this.mEndInset = CheckUtil.ensureNatural(endInset);
+            return this;
+        }
+
+        public Builder setDividerColor(@ColorInt int color) {
+            return setPainter(PainterCache.colorPainter(color));
+        }
+
+        public Builder setDividerDrawable(@NonNull Drawable drawable) {
+            return setPainter(new DrawablePainter(drawable));
+        }
+
+        public Builder setPainter(@NonNull IDividerPainter painter) {
+            this.mPainter = painter;
+            return this;
+        }
+
+        public DividerStyle build() {
+            return new DividerStyle(this);
+        }
+    }
+
+    /**
+     * 不画分割线的样式.
+     */
+    public static final DividerStyle NONE = new Builder().build();
+
+    /**
+     * 设置的厚度, 实际留出的厚度由DividerStyles按painter解析.
+     */
+    final int mThickness;
+
+    final int mStartInset;
+
+    final int mEndInset;
+
+    @Nullable
+    final IDividerPainter mPainter;
+
+    private DividerStyle(@NonNull Builder builder) {
+        mPainter = builder.mPainter;
+        // 不画分割线时也不留出offset.
+        mThickness = builder.mPainter != null ? builder.mThickness : 0;
+        mStartInset = builder.mStartInset;
+        mEndInset = builder.mEndInset;
+    }
+
+    boolean isEmpty() {
+        return mPainter == null;
+    }
+}
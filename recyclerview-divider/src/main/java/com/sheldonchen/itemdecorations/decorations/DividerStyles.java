@@ -0,0 +1,148 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.graphics.Canvas;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sheldonchen.itemdecorations.painter.base.DividerBatch;
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+import com.sheldonchen.itemdecorations.rules.IDividerStyleProvider;
+import com.sheldonchen.itemdecorations.rules.StyleTable;
+
+/**
+ * 注册的按position样式: styleId到{@link DividerStyle}的映射, 以及每个样式一帧内收集的分割线.
+ * 映射、batch以及按painter解析出的厚度都在创建Divider时确定, 绘制时每个position只有一次样式表读取.
+ */
+
+final class DividerStyles {
+
+    /**
+     * {@link #thicknessAt}: position没有注册的样式.
+     */
+    static final int NO_STYLE = -1;
+
+    @NonNull
+    private final IDividerStyleProvider mProvider;
+
+    /**
+     * 按styleId索引, 为null时使用Builder本身的样式.
+     */
+    @NonNull
+    private final DividerStyle[] mStyles;
+
+    /**
+     * 按styleId索引, 经painter的calcVerticalThickness()/calcHorizontalThickness()解析后的厚度.
+     */
+    @NonNull
+    private final int[] mThicknesses;
+
+    @NonNull
+    private final DividerBatch[] mBatches;
+
+    /**
+     * 本帧收集了分割线的styleId.
+     */
+    @NonNull
+    private final int[] mUsed;
+
+    private int mUsedCount = 0;
+
+    private DividerStyles(@NonNull IDividerStyleProvider provider, @NonNull DividerStyle[] styles, boolean vertical) {
+        mProvider = provider;
+        mStyles = styles;
+        mThicknesses = new int[styles.length];
+        mBatches = new DividerBatch[styles.length];
+        int count = 0;
+        for (int i = 0; i < styles.length; i++) {
+            if (styles[i] != null && !styles[i].isEmpty()) {
+                // 样式只作用于列表方向上的分割线, 在竖向列表中是横线.
+                final IDividerPainter painter = styles[i].mPainter;
+                mThicknesses[i] = vertical
+                        ? painter.calcVerticalThickness(styles[i].mThickness)
+                        : painter.calcHorizontalThickness(styles[i].mThickness);
+                mBatches[i] = new DividerBatch();
+                count++;
+            }
+        }
+        mUsed = new int[count];
+    }
+
+    /**
+     * @param vertical 是否为竖向列表, 决定按哪个方向解析样式的厚度.
+     * @return 没有设置provider时为null, 不启用按position的样式.
+     */
+    @Nullable
+    static DividerStyles create(@Nullable IDividerStyleProvider provider, @Nullable DividerStyle[] styles,
+                                boolean vertical) {
+        if (provider == null) return null;
+
+        return new DividerStyles(provider,
+                styles != null ? styles.clone() : new DividerStyle[StyleTable.MAX_STYLE_ID + 1], vertical);
+    }
+
+    /**
+     * @return position注册的样式在item之后留出的厚度, 使用Builder本身的样式时为{@link #NO_STYLE}.
+     */
+    int thicknessAt(@NonNull StyleTable table, int position) {
+        final int styleId = table.get(position, mProvider);
+        return mStyles[styleId] != null ? mThicknesses[styleId] : NO_STYLE;
+    }
+
+    /**
+     * 按position的样式收集item之后的分割线.
+     *
+     * @param edge       item在列表方向上的末端(含margin).
+     * @param crossStart 分割线在侧边方向上的起点, 按样式的缩进收窄.
+     * @return position是否有注册的样式(可能不画分割线), 否则调用方按Builder本身的样式绘制.
+     */
+    boolean addTrailing(@NonNull StyleTable table, int position, boolean vertical, boolean overlay,
+                        int edge, int crossStart, int crossEnd) {
+        final int styleId = table.get(position, mProvider);
+        final DividerStyle style = mStyles[styleId];
+        if (style == null) return false;
+
+        final int thickness = mThicknesses[styleId];
+        if (style.isEmpty() || thickness == 0) return true;
+
+        // 覆盖模式下画在item一侧.
+        final int start = overlay ? edge - thickness : edge;
+        final int from = crossStart + style.mStartInset;
+        final int to = crossEnd - style.mEndInset;
+        if (from >= to) return true;
+
+        final DividerBatch batch = mBatches[styleId];
+        if (batch.size() == 0) {
+            mUsed[mUsedCount++] = styleId;
+        }
+        if (vertical) {
+            batch.add(from, start, to, start + thickness);
+        } else {
+            batch.add(start, from, start + thickness, to);
+        }
+        return true;
+    }
+
+    /**
+     * 去掉裁剪区域之外的分割线.
+     */
+    void cull(int clipLeft, int clipTop, int clipRight, int clipBottom) {
+        for (int i = 0; i < mUsedCount; i++) {
+            mBatches[mUsed[i]].cull(clipLeft, clipTop, clipRight, clipBottom);
+        }
+    }
+
+    /**
+     * 按样式依次绘制本帧收集的分割线并清空.
+     */
+    void flush(@NonNull Canvas canvas, @NonNull DividerFrameMetrics metrics) {
+        for (int i = 0; i < mUsedCount; i++) {
+            final int styleId = mUsed[i];
+            final IDividerPainter painter = mStyles[styleId].mPainter;
+            painter.beginFrame(canvas);
+            metrics.onFlush(mBatches[styleId].flush(canvas, painter));
+            painter.endFrame(canvas);
+        }
+        mUsedCount = 0;
+    }
+}
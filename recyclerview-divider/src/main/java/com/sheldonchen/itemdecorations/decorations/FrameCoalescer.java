@@ -0,0 +1,37 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.view.Choreographer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+/**
+ * 把一帧之内的多次修改合并为一次: 第一次{@link #schedule()}时向Choreographer注册回调,
+ * 在下一帧的动画阶段(测量、布局与绘制之前)统一执行, 之后的修改在同一帧内生效.
+ */
+
+final class FrameCoalescer implements Choreographer.FrameCallback {
+
+    @NonNull
+    private final Runnable mAction;
+
+    private boolean mScheduled = false;
+
+    FrameCoalescer(@NonNull Runnable action) {
+        mAction = action;
+    }
+
+    @MainThread
+    void schedule() {
+        if (mScheduled) return;
+
+        mScheduled = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        mAction.run();
+    }
+}
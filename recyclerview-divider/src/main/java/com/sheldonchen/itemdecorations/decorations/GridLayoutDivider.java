@@ -1,20 +1,45 @@
 package com.sheldonchen.itemdecorations.decorations;
 
+import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.view.View;
 
+import androidx.annotation.AnyThread;
 import androidx.annotation.ColorInt;
+import androidx.annotation.ColorRes;
+import androidx.annotation.DrawableRes;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.arch.core.util.Function;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.StaggeredGridLayoutManager;
+import androidx.tracing.Trace;
 
+import com.sheldonchen.itemdecorations.CheckUtil;
 import com.sheldonchen.itemdecorations.annotation.DecorationOrientType;
-import com.sheldonchen.itemdecorations.painter.ColorIntPainter;
+import com.sheldonchen.itemdecorations.geometry.GridOffsetEngine;
+import com.sheldonchen.itemdecorations.geometry.OffsetCache;
 import com.sheldonchen.itemdecorations.painter.DrawablePainter;
+import com.sheldonchen.itemdecorations.painter.PainterCache;
+import com.sheldonchen.itemdecorations.painter.base.DividerBatch;
 import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+import com.sheldonchen.itemdecorations.rules.IDividerStyleProvider;
+import com.sheldonchen.itemdecorations.rules.StyleTable;
+import com.sheldonchen.itemdecorations.span.GridSpanIndex;
+import com.sheldonchen.itemdecorations.span.ISpanGroups;
+import com.sheldonchen.itemdecorations.span.ISpanInfoProvider;
+import com.sheldonchen.itemdecorations.span.ISpanSizeSource;
+import com.sheldonchen.itemdecorations.span.SpanSnapshot;
+import com.sheldonchen.itemdecorations.span.StaggeredSpanTracker;
+import com.sheldonchen.itemdecorations.span.UniformSpanGroups;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 适用于RecyclerView网格布局以及瀑布流布局下的Divider(ItemDecoration)
@@ -57,10 +82,77 @@ public class GridLayoutDivider extends RecyclerView.ItemDecoration {
 
         /**
          * Painter: 支持Drawable和ColorInt或者自定义IDividerPainter.
+         * 每个RecyclerView按各自的Context解析, Configuration变化后重新解析.
          */
-        IDividerPainter mPainter = null;
+        Function<Context, IDividerPainter> mLazyPainter = null;
 
-        IDividerPainter mEdgePainter = null;
+        Function<Context, IDividerPainter> mLazyEdgePainter = null;
+
+        /**
+         * 是否合并同一行/列上相邻的分割线(同一painter), 默认关闭以保持逐个item绘制的效果.
+         */
+        boolean mMergeDividers = false;
+
+        /**
+         * 是否把分割线录制为显示列表, 纯滚动时平移重放.
+         */
+        boolean mCacheDividerLayer = false;
+
+        /**
+         * 覆盖模式: 不预留offset, 在onDrawOver中画在item之上.
+         */
+        boolean mOverlay = false;
+
+        /**
+         * 按position缓存offset的最大条目数, <=0时不缓存.
+         */
+        int mOffsetCacheSize = 0;
+
+        /**
+         * 声明每个item都只占一个span, 不再查询SpanSizeLookup.
+         */
+        boolean mUniformSpans = false;
+
+        /**
+         * 按styleId注册的样式, 以及提供每个position的styleId的provider.
+         */
+        @Nullable
+        DividerStyle[] mDividerStyles = null;
+
+        @Nullable
+        IDividerStyleProvider mStyleProvider = null;
+
+        /**
+         * 统计回调, 为null时不统计耗时.
+         */
+        @Nullable
+        IDividerMetricsListener mMetricsListener = null;
+
+        public Builder() {
+        }
+
+        Builder(@NonNull Builder other) {
+            copyFrom(other);
+        }
+
+        void copyFrom(@NonNull Builder other) {
+            mOrientation = other.mOrientation;
+            mDividerThickness = other.mDividerThickness;
+            mSideDividerThickness = other.mSideDividerThickness;
+            mDrawTopEdgeDivider = other.mDrawTopEdgeDivider;
+            mDrawBottomEdgeDivider = other.mDrawBottomEdgeDivider;
+            mDrawLREdgesDivider = other.mDrawLREdgesDivider;
+            mLazyPainter = other.mLazyPainter;
+            mLazyEdgePainter = other.mLazyEdgePainter;
+            mMergeDividers = other.mMergeDividers;
+            mCacheDividerLayer = other.mCacheDividerLayer;
+            mOverlay = other.mOverlay;
+            mOffsetCacheSize = other.mOffsetCacheSize;
+            mUniformSpans = other.mUniformSpans;
+            mDividerStyles = other.mDividerStyles != null ? other.mDividerStyles.clone() : null;
+            mStyleProvider = other.mStyleProvider;
+            mMetricsListener = other.mMetricsListener;
+        }
 
         public Builder setOrientation(@DecorationOrientType int orientation) {
             this.mOrientation = orientation;
@@ -93,11 +185,33 @@ public class GridLayoutDivider extends RecyclerView.ItemDecoration {
         }
 
         public Builder setDividerColor(@ColorInt int dividerColor) {
-            return setPainter(new ColorIntPainter(dividerColor));
+            return setPainter(PainterCache.colorPainter(dividerColor));
         }
 
         public Builder setSideDividerColor(@ColorInt int dividerColor) {
-            return setSidePainter(new ColorIntPainter(dividerColor));
+            return setSidePainter(PainterCache.colorPainter(dividerColor));
+        }
+
+        /**
+         * 颜色资源, 按RecyclerView的Configuration(深色模式, density)解析, 相同颜色的Paint在进程内共享.
+         */
+        public Builder setDividerColorRes(@ColorRes int colorRes) {
+            return setLazyPainter((c) -> PainterCache.colorResPainter(c, colorRes));
+        }
+
+        public Builder setSideDividerColorRes(@ColorRes int colorRes) {
+            return setLazySidePainter((c) -> PainterCache.colorResPainter(c, colorRes));
+        }
+
+        /**
+         * Drawable资源, 按RecyclerView的Configuration(深色模式, density)解析, 在进程内共享.
+         */
+        public Builder setDividerDrawableRes(@DrawableRes int drawableRes) {
+            return setLazyPainter((c) -> PainterCache.drawableResPainter(c, drawableRes));
+        }
+
+        public Builder setSideDividerDrawableRes(@DrawableRes int drawableRes) {
+            return setLazySidePainter((c) -> PainterCache.drawableResPainter(c, drawableRes));
         }
 
         public Builder setDividerDrawable(@NonNull Drawable drawable) {
@@ -109,12 +223,99 @@ public class GridLayoutDivider extends RecyclerView.ItemDecoration {
         }
 
         public Builder setPainter(@NonNull IDividerPainter painter) {
-            this.mPainter = this.mEdgePainter = painter;
-            return this;
+            return setLazyPainter((c) -> painter);
         }
 
         public Builder setSidePainter(@NonNull IDividerPainter painter) {
-            this.mEdgePainter = painter;
+            return setLazySidePainter((c) -> painter);
+        }
+
+        public Builder setLazyPainter(@NonNull Function<Context, IDividerPainter> lazyPainter) {
+            this.mLazyPainter = this.mLazyEdgePainter = lazyPainter;
+            return this;
+        }
+
+        public Builder setLazySidePainter(@NonNull Function<Context, IDividerPainter> lazyPainter) {
+            this.mLazyEdgePainter = lazyPainter;
+            return this;
+        }
+
+        /**
+         * 合并同一行(列)上相邻的分割线, 一条贯穿的线只画一次.
+         * 使用渐变等Drawable时合并会改变绘制效果, 并使CachingDrawablePainter按新的尺寸重新生成Bitmap, 所以默认关闭.
+         * 交叉处的重叠与此无关, 纯色painter({@link IDividerPainter#isSolid()})总会去掉.
+         */
+        public Builder mergeDividers(boolean mergeDividers) {
+            this.mMergeDividers = mergeDividers;
+            return this;
+        }
+
+        /**
+         * 把分割线录制为显示列表(API 29+为RenderNode, 否则为Picture),
+         * 纯滚动的帧中平移后重放, 只有child被添加、移除或改变尺寸时才重新录制.
+         */
+        public Builder cacheDividerLayer(boolean cacheDividerLayer) {
+            this.mCacheDividerLayer = cacheDividerLayer;
+            return this;
+        }
+
+        /**
+         * 覆盖模式: getItemOffsets()返回0, 分割线在onDrawOver中画在item的margin以内(margin不足时盖住item的边缘).
+         * 显示/隐藏分割线或修改颜色、厚度都只需要重绘, 不会触发child的测量和布局.
+         */
+        public Builder setOverlay(boolean overlay) {
+            this.mOverlay = overlay;
+            return this;
+        }
+
+        /**
+         * 开启offset缓存(仅GridLayoutManager), 随Adapter的数据变化精确失效.
+         * item数量不超过maxEntries时缓存全部position, 否则只保留最近计算的.
+         */
+        public Builder setOffsetCacheSize(int maxEntries) {
+            this.mOffsetCacheSize = CheckUtil.ensureNatural(maxEntries);
+            return this;
+        }
+
+        /**
+         * 声明每个item都只占一个span(仅GridLayoutManager), 首行/末行/行首/行尾直接由position和spanCount算出,
+         * 不查询SpanSizeLookup, 也不建立span索引和offset缓存.
+         * 使用GridLayoutManager默认的SpanSizeLookup时会自动识别, 不需要声明.
+         */
+        public Builder setUniformSpans(boolean uniformSpans) {
+            this.mUniformSpans = uniformSpans;
+            return this;
+        }
+
+        /**
+         * 注册按position使用的样式, styleId取值[1, StyleTable.MAX_STYLE_ID], 0为Builder本身配置的样式.
+         */
+        public Builder addDividerStyle(int styleId, @NonNull DividerStyle style) {
+            if (styleId <= IDividerStyleProvider.STYLE_DEFAULT || styleId > StyleTable.MAX_STYLE_ID) {
+                throw new IllegalArgumentException("GridLayoutDivider: styleId must be in [1, "
+                        + StyleTable.MAX_STYLE_ID + "], was " + styleId);
+            }
+            if (mDividerStyles == null) {
+                mDividerStyles = new DividerStyle[StyleTable.MAX_STYLE_ID + 1];
+            }
+            mDividerStyles[styleId] = style;
+            return this;
+        }
+
+        /**
+         * 每个position使用的styleId(仅GridLayoutManager), 只作用于item之后列表方向上的分割线, 侧边分割线不变.
+         * 每个position只查询一次, 结果保存在每个position一个字节的表中, 随Adapter的数据变化平移.
+         */
+        public Builder setDividerStyleProvider(@Nullable IDividerStyleProvider provider) {
+            this.mStyleProvider = provider;
+            return this;
+        }
+
+        /**
+         * 每帧回调onDraw耗时, painter调用次数, getItemOffsets次数以及缓存/索引统计.
+         */
+        public Builder setMetricsListener(@Nullable IDividerMetricsListener listener) {
+            this.mMetricsListener = listener;
             return this;
         }
 
@@ -139,361 +340,1182 @@ public class GridLayoutDivider extends RecyclerView.ItemDecoration {
 
     }
 
+    private static final String TRACE_ON_DRAW = "GridLayoutDivider#onDraw";
+    private static final String TRACE_ON_DRAW_OVER = "GridLayoutDivider#onDrawOver";
+    private static final String TRACE_ITEM_OFFSETS = "GridLayoutDivider#getItemOffsets";
+
     private final Builder mBuilder;
 
+    /**
+     * 每个RecyclerView各自的span索引.
+     */
+    private final ParentStates<GridState> mStates;
+
+    private long mOffsetCacheHitCount = 0;
+
+    private long mOffsetCacheMissCount = 0;
+
+    /**
+     * 一帧内分别为mPainter和mEdgePainter收集的分割线.
+     * 两者是同一个painter时共用一个batch, 只绘制一次.
+     */
+    private final DividerBatch mBatch = new DividerBatch();
+
+    private final DividerBatch mEdgeBatch = new DividerBatch();
+
+    private final Rect mClipBounds = new Rect();
+
+    private final DividerLayerCache.LayerDrawer mLayerDrawer = this::drawLayer;
+
+    /**
+     * getItemOffsets的输出缓冲: left, top, right, bottom.
+     */
+    private final int[] mOffsets = new int[4];
+
+    private final DividerFrameMetrics mMetrics = new DividerFrameMetrics();
+
+    /**
+     * 最近一次发布的span快照, 可能由任意线程写入, UI线程无锁读取.
+     */
+    @Nullable
+    private volatile SnapshotPublication mPublication = null;
+
+    /**
+     * edit()提交的修改, 在下一帧合并生效.
+     */
+    @Nullable
+    private Builder mPendingSpec = null;
+
+    private final FrameCoalescer mPendingUpdate = new FrameCoalescer(this::applyPendingSpec);
+
+    private final OffsetChanges.OffsetSource mOffsetSource = this::computeItemOffsets;
+
+    /**
+     * 按position的样式, 没有设置provider时为null.
+     */
+    @Nullable
+    private final DividerStyles mStyles;
+
     private GridLayoutDivider(Builder builder) {
         if(builder == null) {
             throw new NullPointerException("GridLayoutDivider: mBuilder can't be null.");
         }
-        this.mBuilder = builder;
+        // 拷贝一份, 运行时的修改不会影响Builder以及由它创建的其他Divider.
+        this.mBuilder = new Builder(builder);
+        this.mStyles = DividerStyles.create(mBuilder.mStyleProvider, mBuilder.mDividerStyles,
+                mBuilder.mOrientation == GridLayoutManager.VERTICAL);
+        this.mStates = new ParentStates<>(this, () -> new GridState(mBuilder.mOffsetCacheSize, mStyles != null));
+    }
+
+    private static GridOffsetEngine createOffsetEngine(Builder builder, int thickness, int sideThickness) {
+        return new GridOffsetEngine(
+                builder.mOrientation == GridLayoutManager.VERTICAL,
+                thickness,
+                sideThickness,
+                builder.mDrawTopEdgeDivider,
+                builder.mDrawBottomEdgeDivider,
+                builder.mDrawLREdgesDivider);
+    }
+
+    /**
+     * 运行时修改分割线的样式, commit()之后在下一帧生效, 同一帧内的多次提交只生效最后一次:
+     * <pre>
+     * divider.edit().setDividerColor(color).drawLREdgesDivider(false).commit();
+     * </pre>
+     * 只改变颜色、painter时只重绘; 改变厚度或边缘分割线时只让offset真正变化的child重新布局.
+     * 对通过Builder.apply(RecyclerView...)共享这个Divider的所有RecyclerView生效.
+     */
+    @MainThread
+    @NonNull
+    public Editor edit() {
+        return new Editor(mPendingSpec != null ? mPendingSpec : mBuilder);
+    }
+
+    /**
+     * 比较修改前后的样式: 覆盖模式下, 或者只有painter变化时只需重绘;
+     * 否则逐个比较child的offset, 只标记变化的child.
+     */
+    private void applyPendingSpec() {
+        final Builder spec = mPendingSpec;
+        mPendingSpec = null;
+        if (spec == null) return;
+
+        final boolean geometry = !mBuilder.mOverlay
+                && (spec.mDividerThickness != mBuilder.mDividerThickness
+                || spec.mSideDividerThickness != mBuilder.mSideDividerThickness
+                || spec.mDrawTopEdgeDivider != mBuilder.mDrawTopEdgeDivider
+                || spec.mDrawBottomEdgeDivider != mBuilder.mDrawBottomEdgeDivider
+                || spec.mDrawLREdgesDivider != mBuilder.mDrawLREdgesDivider);
+        final List<RecyclerView> parents = new ArrayList<>();
+        mStates.collectAttachedParents(parents);
+        final OffsetChanges[] changes = new OffsetChanges[parents.size()];
+        if (geometry) {
+            for (int i = 0; i < changes.length; i++) {
+                changes[i] = OffsetChanges.record(parents.get(i), mOffsetSource);
+            }
+        }
+
+        mBuilder.copyFrom(spec);
+        for (int i = 0; i < changes.length; i++) {
+            final RecyclerView parent = parents.get(i);
+            final GridState gridState = mStates.obtain(parent);
+            // painter以及厚度在下一次绘制或计算offset时重新解析.
+            gridState.invalidateStyle();
+            if (changes[i] != null) {
+                // 变化的child由markChanged()逐个标记, 重新解析厚度时不再使所有child失效.
+                gridState.mOffsetEngine = null;
+                if (gridState.mOffsetCache != null) gridState.mOffsetCache.clear();
+                changes[i].markChanged(mOffsetSource);
+            }
+            parent.invalidate();
+        }
     }
 
     @Override
     public void onDraw(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
         super.onDraw(canvas, parent, state);
-        if(mBuilder.mPainter == null
-                || mBuilder.mEdgePainter == null) return;
+        if (!mBuilder.mOverlay) {
+            drawDividers(canvas, parent, state, TRACE_ON_DRAW);
+        }
+    }
 
-        if (mBuilder.mOrientation == GridLayoutManager.VERTICAL) {
-            drawOrientVerticalDivider(canvas, parent);
+    @Override
+    public void onDrawOver(Canvas canvas, RecyclerView parent, RecyclerView.State state) {
+        super.onDrawOver(canvas, parent, state);
+        if (mBuilder.mOverlay) {
+            drawDividers(canvas, parent, state, TRACE_ON_DRAW_OVER);
+        }
+    }
+
+    private void drawDividers(Canvas canvas, RecyclerView parent, RecyclerView.State state, String traceSection) {
+        if(mBuilder.mLazyPainter == null
+                || mBuilder.mLazyEdgePainter == null) return;
+
+        Trace.beginSection(traceSection);
+        try {
+            final IDividerMetricsListener listener = mBuilder.mMetricsListener;
+            final long start = listener != null ? System.nanoTime() : 0L;
+            // Configuration变化时先丢弃旧的显示列表.
+            final GridState gridState = resolvePainters(parent, mStates.obtain(parent));
+            if (mBuilder.mCacheDividerLayer) {
+                mMetrics.mLayerReplayed =
+                        gridState.layerCache().draw(canvas, parent, state, mLayerDrawer);
+            } else {
+                drawLayer(canvas, parent, state, false);
+            }
+            if (listener != null) {
+                mMetrics.report(listener, parent, start);
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void drawLayer(Canvas canvas, RecyclerView parent, RecyclerView.State state, boolean recording) {
+        final GridState gridState = obtainState(parent, state);
+        final IDividerPainter painter = gridState.mPainter;
+        final IDividerPainter edgePainter = gridState.mEdgePainter;
+        final DividerBatch edgeBatch = painter == edgePainter ? mBatch : mEdgeBatch;
+
+        painter.beginFrame(canvas);
+        if (edgePainter != painter) edgePainter.beginFrame(canvas);
+        if (gridState.mStaggeredLayout) {
+            drawStaggeredDivider(parent, gridState, state.getItemCount(), mBatch, edgeBatch);
+        } else if (mBuilder.mOrientation == GridLayoutManager.VERTICAL) {
+            drawOrientVerticalDivider(parent, gridState, state.getItemCount(), mBatch, edgeBatch);
         } else {
-            drawOrientHorizontalDivider(canvas, parent);
+            drawOrientHorizontalDivider(parent, gridState, state.getItemCount(), mBatch, edgeBatch);
+        }
+        planBatches(canvas, gridState, edgeBatch, !recording);
+        mMetrics.onFlush(mBatch.flush(canvas, painter));
+        if (edgePainter != painter) {
+            mMetrics.onFlush(mEdgeBatch.flush(canvas, edgePainter));
+            edgePainter.endFrame(canvas);
+        }
+        painter.endFrame(canvas);
+        if (mStyles != null) {
+            mStyles.flush(canvas, mMetrics);
+        }
+
+        if (gridState.mStaggeredOffsetsDirty && !parent.isComputingLayout()) {
+            // 最后一个item布局之后才能确定各span的最后一个item, 重新计算一次offset.
+            gridState.mStaggeredOffsetsDirty = false;
+            parent.invalidateItemDecorations();
+        }
+    }
+
+    /**
+     * 去掉裁剪区域之外的分割线, 合并共线的分割线(mergeDividers开启时),
+     * 并去掉纯色painter的分割线之间的重叠部分.
+     */
+    private void planBatches(Canvas canvas, GridState gridState, DividerBatch edgeBatch, boolean cull) {
+        final boolean separate = edgeBatch != mBatch;
+        if (cull && canvas.getClipBounds(mClipBounds)) {
+            final Rect clip = mClipBounds;
+            mBatch.cull(clip.left, clip.top, clip.right, clip.bottom);
+            if (separate) edgeBatch.cull(clip.left, clip.top, clip.right, clip.bottom);
+            if (mStyles != null) mStyles.cull(clip.left, clip.top, clip.right, clip.bottom);
+        }
+        if (mBuilder.mMergeDividers) {
+            // 列表方向上的分割线跨过侧边分割线所在的间隙, 侧边分割线只合并首尾相接的.
+            final boolean vertical = mBuilder.mOrientation == GridLayoutManager.VERTICAL;
+            final int rowGap = vertical ? gridState.mSideThickness : 0;
+            final int columnGap = vertical ? 0 : gridState.mSideThickness;
+            mBatch.merge(rowGap, columnGap);
+            if (separate) edgeBatch.merge(rowGap, columnGap);
+        }
+
+        // 纯色painter拆分矩形不改变绘制效果, 去掉重叠使半透明颜色在交叉处不会变深.
+        if (gridState.mPainter.isSolid()) {
+            mBatch.subtract(mBatch);
+        }
+        if (separate && gridState.mEdgePainter.isSolid()) {
+            edgeBatch.subtract(edgeBatch);
+            edgeBatch.subtract(mBatch);
         }
     }
 
-    private void drawOrientVerticalDivider(Canvas canvas, RecyclerView parent) {
-        final int spanCount = getSpanCount(parent);
+    private void drawOrientVerticalDivider(RecyclerView parent, GridState gridState, int itemCount,
+                                           DividerBatch batch, DividerBatch edgeBatch) {
+        final ISpanGroups spans = gridState.mGridSpans;
+        final DividerStyles styles = mStyles;
+        final StyleTable styleTable = gridState.mStyleTable;
         final int childSize = parent.getChildCount();
-        
+        final int thickness = gridState.mThickness;
+        final int sideThickness = gridState.mSideThickness;
+        // 覆盖模式下没有预留offset, 分割线向item一侧平移自身的厚度: 画在margin以内, margin不足时盖住item的边缘.
+        final int inset = mBuilder.mOverlay ? thickness : 0;
+        final int sideInset = mBuilder.mOverlay ? sideThickness : 0;
+
         for (int i = 0; i < childSize; i++) {
             View child = parent.getChildAt(i);
             RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) child.getLayoutParams();
+            final int pos = parent.getChildLayoutPosition(child);
+            if(pos < 0 || pos >= itemCount) continue;
 
             // 画水平分隔线.
             int left = child.getLeft();
             int right = child.getRight();
-            int top = child.getBottom() + layoutParams.bottomMargin;
-            int bottom = top + mBuilder.mDividerThickness;
-            if(!isLastRaw(parent, i , spanCount, childSize) || mBuilder.mDrawBottomEdgeDivider) {
-                mBuilder.mPainter.drawDivider(canvas, left, top, right, bottom);
+            int top = child.getBottom() + layoutParams.bottomMargin - inset;
+            int bottom = top + thickness;
+            if((!isLastRaw(spans, pos) || mBuilder.mDrawBottomEdgeDivider)
+                    && (styles == null || !styles.addTrailing(styleTable, pos, true, mBuilder.mOverlay,
+                    child.getBottom() + layoutParams.bottomMargin, left, right))) {
+                batch.add(left, top, right, bottom);
             }
-            if(mBuilder.mDrawTopEdgeDivider && isFirstRaw(parent, i, spanCount)) {
-                bottom = child.getTop() - layoutParams.topMargin;
-                top = bottom - mBuilder.mDividerThickness;
-                mBuilder.mPainter.drawDivider(canvas, left, top, right, bottom);
+            if(mBuilder.mDrawTopEdgeDivider && isFirstRaw(spans, pos)) {
+                bottom = child.getTop() - layoutParams.topMargin + inset;
+                top = bottom - thickness;
+                batch.add(left, top, right, bottom);
             }
 
             // 画竖直分隔线.
             top = child.getTop();
             bottom = child.getBottom();
-            left = child.getRight() + layoutParams.rightMargin;
-            right = left + mBuilder.mSideDividerThickness;
-            if(!isLastColumn(parent, i, spanCount, childSize) || mBuilder.mDrawLREdgesDivider) {
-                mBuilder.mEdgePainter.drawDivider(canvas, left, top, right, bottom);
+            left = child.getRight() + layoutParams.rightMargin - sideInset;
+            right = left + sideThickness;
+            if(!isLastColumn(spans, pos) || mBuilder.mDrawLREdgesDivider) {
+                edgeBatch.add(left, top, right, bottom);
             }
-            if(isFirstColumn(parent, i, spanCount) && mBuilder.mDrawLREdgesDivider) {
-                right = child.getLeft() - layoutParams.leftMargin;
-                left = right - mBuilder.mSideDividerThickness;
-                mBuilder.mEdgePainter.drawDivider(canvas, left, top, right, bottom);
+            if(isFirstColumn(spans, pos) && mBuilder.mDrawLREdgesDivider) {
+                right = child.getLeft() - layoutParams.leftMargin + sideInset;
+                left = right - sideThickness;
+                edgeBatch.add(left, top, right, bottom);
             }
         }
     }
 
-    private void drawOrientHorizontalDivider(Canvas canvas, RecyclerView parent) {
-        final int spanCount = getSpanCount(parent);
+    private void drawOrientHorizontalDivider(RecyclerView parent, GridState gridState, int itemCount,
+                                             DividerBatch batch, DividerBatch edgeBatch) {
+        final ISpanGroups spans = gridState.mGridSpans;
+        final DividerStyles styles = mStyles;
+        final StyleTable styleTable = gridState.mStyleTable;
         final int childSize = parent.getChildCount();
+        final int thickness = gridState.mThickness;
+        final int sideThickness = gridState.mSideThickness;
+        final int inset = mBuilder.mOverlay ? thickness : 0;
+        final int sideInset = mBuilder.mOverlay ? sideThickness : 0;
 
         for (int i = 0; i < childSize; i++) {
             View child = parent.getChildAt(i);
             RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) child.getLayoutParams();
+            final int pos = parent.getChildLayoutPosition(child);
+            if(pos < 0 || pos >= itemCount) continue;
 
             // 画竖直分隔线.
             int top = child.getTop();
             int bottom = child.getBottom();
-            int left = child.getRight() + layoutParams.rightMargin;
-            int right = left + mBuilder.mDividerThickness;
-            if(!isLastColumn(parent, i, spanCount, childSize) || mBuilder.mDrawBottomEdgeDivider) {
-                mBuilder.mPainter.drawDivider(canvas, left, top, right, bottom);
+            int left = child.getRight() + layoutParams.rightMargin - inset;
+            int right = left + thickness;
+            if((!isLastColumn(spans, pos) || mBuilder.mDrawBottomEdgeDivider)
+                    && (styles == null || !styles.addTrailing(styleTable, pos, false, mBuilder.mOverlay,
+                    child.getRight() + layoutParams.rightMargin, top, bottom))) {
+                batch.add(left, top, right, bottom);
             }
-            if(mBuilder.mDrawTopEdgeDivider && isFirstColumn(parent, i, spanCount)) {
-                right = child.getLeft() - layoutParams.leftMargin;
-                left = right - mBuilder.mDividerThickness;
-                mBuilder.mPainter.drawDivider(canvas, left, top, right, bottom);
+            if(mBuilder.mDrawTopEdgeDivider && isFirstColumn(spans, pos)) {
+                right = child.getLeft() - layoutParams.leftMargin + inset;
+                left = right - thickness;
+                batch.add(left, top, right, bottom);
             }
 
             // 画水平分隔线.
             left = child.getLeft();
             right = child.getRight();
-            top = child.getBottom() + layoutParams.bottomMargin;
-            bottom = top + mBuilder.mSideDividerThickness;
-            if(!isLastRaw(parent, i, spanCount, childSize) || mBuilder.mDrawLREdgesDivider) {
-                mBuilder.mEdgePainter.drawDivider(canvas, left, top, right, bottom);
+            top = child.getBottom() + layoutParams.bottomMargin - sideInset;
+            bottom = top + sideThickness;
+            if(!isLastRaw(spans, pos) || mBuilder.mDrawLREdgesDivider) {
+                edgeBatch.add(left, top, right, bottom);
             }
-            if(isFirstRaw(parent, i, spanCount) && mBuilder.mDrawLREdgesDivider) {
-                bottom = child.getTop() - layoutParams.topMargin;
-                top = bottom - mBuilder.mSideDividerThickness;
-                mBuilder.mEdgePainter.drawDivider(canvas, left, top, right, bottom);
+            if(isFirstRaw(spans, pos) && mBuilder.mDrawLREdgesDivider) {
+                bottom = child.getTop() - layoutParams.topMargin + sideInset;
+                top = bottom - sideThickness;
+                edgeBatch.add(left, top, right, bottom);
             }
         }
     }
 
-    @Override
-    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
-        // 在notifyDataSetChanged()之后并不能马上获取Adapter中的position, 要等布局结束之后才能获取到.
-        // 而对于getChildLayoutPosition(), 在notifyItemInserted()之后, Layout不能马上获取到新的position
-        // ,因为布局还没更新(需要<16ms的时间刷新视图), 所以只能获取到旧的, 但是Adapter中的position就可以马上获取到最新的position.
-        final int itemPosition = parent.getChildLayoutPosition(view);
+    /**
+     * 瀑布流: span从child的LayoutParams读取, 列表方向的分割线画在item之前,
+     * 只有画底部(最右)分割线时才依赖各span的最后一个item.
+     */
+    private void drawStaggeredDivider(RecyclerView parent, GridState gridState, int itemCount,
+                                      DividerBatch batch, DividerBatch edgeBatch) {
+        final boolean vertical = mBuilder.mOrientation == GridLayoutManager.VERTICAL;
+        final StaggeredSpanTracker tracker = gridState.mStaggeredTracker;
+        final int spanCount = gridState.mSpanCount;
+        final int thickness = gridState.mThickness;
+        final int sideThickness = gridState.mSideThickness;
+        final int childSize = parent.getChildCount();
+        final int inset = mBuilder.mOverlay ? thickness : 0;
+        final int sideInset = mBuilder.mOverlay ? sideThickness : 0;
 
-        final int spanCount = getSpanCount(parent);
-        final int childCount = state.getItemCount();
+        for (int i = 0; i < childSize; i++) {
+            View child = parent.getChildAt(i);
+            StaggeredGridLayoutManager.LayoutParams layoutParams =
+                    (StaggeredGridLayoutManager.LayoutParams) child.getLayoutParams();
+            final int pos = parent.getChildLayoutPosition(child);
+            final int spanIndex = layoutParams.getSpanIndex();
+            if(pos < 0 || pos >= itemCount || spanIndex < 0) continue;
+
+            final boolean fullSpan = layoutParams.isFullSpan();
+            recordStaggered(gridState, pos, spanIndex, fullSpan, itemCount);
+            final boolean first = tracker.isFirstRow(pos, fullSpan);
+            final boolean last = tracker.isLastInSpan(pos, spanIndex, fullSpan);
+            final boolean firstSpan = fullSpan || spanIndex == 0;
+            final boolean lastSpan = fullSpan || spanIndex == spanCount - 1;
+
+            if (vertical) {
+                // 画水平分隔线.
+                int left = child.getLeft();
+                int right = child.getRight();
+                if(!first || mBuilder.mDrawTopEdgeDivider) {
+                    int bottom = child.getTop() - layoutParams.topMargin + inset;
+                    batch.add(left, bottom - thickness, right, bottom);
+                }
+                if(last && mBuilder.mDrawBottomEdgeDivider) {
+                    int top = child.getBottom() + layoutParams.bottomMargin - inset;
+                    batch.add(left, top, right, top + thickness);
+                }
 
-        // 每个item分配到的offset总量.
-        int dividerCount = spanCount - 1;
-        if (mBuilder.mDrawLREdgesDivider) dividerCount = dividerCount + 2;
+                // 画竖直分隔线.
+                int top = child.getTop();
+                int bottom = child.getBottom();
+                if(!lastSpan || mBuilder.mDrawLREdgesDivider) {
+                    left = child.getRight() + layoutParams.rightMargin - sideInset;
+                    edgeBatch.add(left, top, left + sideThickness, bottom);
+                }
+                if(firstSpan && mBuilder.mDrawLREdgesDivider) {
+                    right = child.getLeft() - layoutParams.leftMargin + sideInset;
+                    edgeBatch.add(right - sideThickness, top, right, bottom);
+                }
+            } else {
+                // 画竖直分隔线.
+                int top = child.getTop();
+                int bottom = child.getBottom();
+                if(!first || mBuilder.mDrawTopEdgeDivider) {
+                    int right = child.getLeft() - layoutParams.leftMargin + inset;
+                    batch.add(right - thickness, top, right, bottom);
+                }
+                if(last && mBuilder.mDrawBottomEdgeDivider) {
+                    int left = child.getRight() + layoutParams.rightMargin - inset;
+                    batch.add(left, top, left + thickness, bottom);
+                }
 
-        // 确保每个item分配到的offset总量相等
-        int eachItemOffsetWidth = dividerCount * mBuilder.mSideDividerThickness / spanCount;
-        int dc = eachItemOffsetWidth - mBuilder.mSideDividerThickness;
+                // 画水平分隔线.
+                int left = child.getLeft();
+                int right = child.getRight();
+                if(!lastSpan || mBuilder.mDrawLREdgesDivider) {
+                    top = child.getBottom() + layoutParams.bottomMargin - sideInset;
+                    edgeBatch.add(left, top, right, top + sideThickness);
+                }
+                if(firstSpan && mBuilder.mDrawLREdgesDivider) {
+                    bottom = child.getTop() - layoutParams.topMargin + sideInset;
+                    edgeBatch.add(left, bottom - sideThickness, right, bottom);
+                }
+            }
+        }
+    }
 
-        int left = 0;
-        int top = 0;
-        int right;
-        int bottom;
+    private void recordStaggered(GridState gridState, int pos, int spanIndex, boolean fullSpan, int itemCount) {
+        // 覆盖模式下offset恒为0, 不需要重新计算.
+        if (gridState.mStaggeredTracker.record(pos, spanIndex, fullSpan, itemCount)
+                && mBuilder.mDrawBottomEdgeDivider && !mBuilder.mOverlay) {
+            gridState.mStaggeredOffsetsDirty = true;
+        }
+    }
 
-        if (mBuilder.mOrientation == GridLayoutManager.VERTICAL) {
-            if (isFirstRaw(parent, itemPosition, spanCount) && mBuilder.mDrawTopEdgeDivider) {
-                top = mBuilder.mDividerThickness;
-            }
-            bottom = mBuilder.mDividerThickness;
-            if (isLastRaw(parent, itemPosition, spanCount, childCount) && !mBuilder.mDrawBottomEdgeDivider) {
-                bottom = 0;
+    @Override
+    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+        Trace.beginSection(TRACE_ITEM_OFFSETS);
+        try {
+            mMetrics.mItemOffsetsCount++;
+            if (mBuilder.mOverlay) {
+                outRect.set(0, 0, 0, 0);
+            } else {
+                computeItemOffsets(outRect, view, parent, state);
             }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void computeItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+        // 在notifyDataSetChanged()之后并不能马上获取Adapter中的position, 要等布局结束之后才能获取到.
+        // 而对于getChildLayoutPosition(), 在notifyItemInserted()之后的预布局中只能获取到旧的position,
+        // 所以预布局阶段改用Adapter中的position, 见ItemPositions.
+        final int itemPosition = ItemPositions.position(parent, view, state);
+
+        final int childCount = ItemPositions.itemCount(parent, state);
+        if (itemPosition < 0 || itemPosition >= childCount) {
+            outRect.set(0, 0, 0, 0);
+            return;
+        }
+        final GridState gridState = resolvePainters(parent, obtainState(parent, state));
+        final int spanCount = gridState.mSpanCount;
+        final int[] offsets = mOffsets;
+
+        if (gridState.mStaggeredLayout) {
+            getStaggeredItemOffsets(view, gridState, itemPosition, spanCount, childCount, offsets);
+            outRect.set(offsets[0], offsets[1], offsets[2], offsets[3]);
+            return;
+        }
 
-            int a1 = 0;
-            if(mBuilder.mDrawLREdgesDivider) a1 = mBuilder.mSideDividerThickness;
+        // 等宽span时直接计算比查缓存更快.
+        final ISpanGroups spans = gridState.mGridSpans;
+        final OffsetCache offsetCache = spans != null && gridState.mOffsetsCacheable && !gridState.mUniform
+                ? gridState.mOffsetCache : null;
+        if (offsetCache != null) {
+            if (offsetCache.get(itemPosition, offsets, 0)) {
+                mOffsetCacheHitCount++;
+                mMetrics.mOffsetCacheHitCount++;
+                outRect.set(offsets[0], offsets[1], offsets[2], offsets[3]);
+                return;
+            }
+            mOffsetCacheMissCount++;
+            mMetrics.mOffsetCacheMissCount++;
+        }
 
-            int spanIndex = getSpanIndex(parent, itemPosition, spanCount);
-            int spanLastIndex = spanIndex + getSpanSize(parent, itemPosition) - 1;
-            left = a1 - dc * spanIndex;
-            right = eachItemOffsetWidth - a1 + dc * spanLastIndex;
+        int groupFlags = 0;
+        if (mBuilder.mOrientation == GridLayoutManager.VERTICAL) {
+            if (isFirstRaw(spans, itemPosition)) {
+                groupFlags |= GridOffsetEngine.FLAG_FIRST_GROUP;
+            }
+            if (isLastRaw(spans, itemPosition)) {
+                groupFlags |= GridOffsetEngine.FLAG_LAST_GROUP;
+            }
         } else {
-            if(isFirstColumn(parent, itemPosition, spanCount) && mBuilder.mDrawTopEdgeDivider) {
-                left = mBuilder.mDividerThickness;
+            if (isFirstColumn(spans, itemPosition)) {
+                groupFlags |= GridOffsetEngine.FLAG_FIRST_GROUP;
+            }
+            if (isLastColumn(spans, itemPosition)) {
+                groupFlags |= GridOffsetEngine.FLAG_LAST_GROUP;
             }
-            right = mBuilder.mDividerThickness;
-            if(isLastColumn(parent, itemPosition, spanCount, childCount) && !mBuilder.mDrawBottomEdgeDivider) {
-                right = 0;
+        }
+
+        gridState.mOffsetEngine.getItemOffsets(
+                getSpanIndex(spans, itemPosition, spanCount),
+                getSpanSize(spans, itemPosition),
+                spanCount, groupFlags, offsets, 0);
+        if (mStyles != null) {
+            final int styleThickness = mStyles.thicknessAt(gridState.mStyleTable, itemPosition);
+            if (styleThickness != DividerStyles.NO_STYLE) {
+                // 只替换item之后列表方向上的分割线.
+                final boolean trailing = (groupFlags & GridOffsetEngine.FLAG_LAST_GROUP) == 0
+                        || mBuilder.mDrawBottomEdgeDivider;
+                offsets[mBuilder.mOrientation == GridLayoutManager.VERTICAL ? 3 : 2] =
+                        trailing ? styleThickness : 0;
             }
+        }
+        if (offsetCache != null) {
+            offsetCache.put(itemPosition, offsets, 0);
+        }
+        outRect.set(offsets[0], offsets[1], offsets[2], offsets[3]);
+    }
 
-            int a1 = 0;
-            if(mBuilder.mDrawLREdgesDivider) a1 = mBuilder.mSideDividerThickness;
+    /**
+     * 瀑布流的span在测量child之前已经分配, 可以直接从LayoutParams读取.
+     */
+    private void getStaggeredItemOffsets(View view, GridState gridState, int pos,
+                                         int spanCount, int itemCount, int[] offsets) {
+        StaggeredGridLayoutManager.LayoutParams layoutParams =
+                (StaggeredGridLayoutManager.LayoutParams) view.getLayoutParams();
+        final boolean fullSpan = layoutParams.isFullSpan();
+        final int spanIndex = fullSpan ? 0 : layoutParams.getSpanIndex();
+        if (spanIndex < 0) {
+            offsets[0] = offsets[1] = offsets[2] = offsets[3] = 0;
+            return;
+        }
 
-            int spanIndex = getSpanIndex(parent, itemPosition, spanCount);
-            int spanLastIndex = spanIndex + getSpanSize(parent, itemPosition) - 1;
-            top = a1 - dc * spanIndex;
-            bottom = eachItemOffsetWidth - a1 + dc * spanLastIndex;
+        final StaggeredSpanTracker tracker = gridState.mStaggeredTracker;
+        recordStaggered(gridState, pos, spanIndex, fullSpan, itemCount);
+        int groupFlags = GridOffsetEngine.FLAG_DIVIDER_BEFORE;
+        if (tracker.isFirstRow(pos, fullSpan)) {
+            groupFlags |= GridOffsetEngine.FLAG_FIRST_GROUP;
+        }
+        if (tracker.isLastInSpan(pos, spanIndex, fullSpan)) {
+            groupFlags |= GridOffsetEngine.FLAG_LAST_GROUP;
         }
+        gridState.mOffsetEngine.getItemOffsets(spanIndex, fullSpan ? spanCount : 1,
+                spanCount, groupFlags, offsets, 0);
+    }
 
-        outRect.set(left, top, right, bottom);
+    /**
+     * offset缓存的命中次数(所有RecyclerView合计), 未开启缓存时为0.
+     */
+    public long getOffsetCacheHitCount() {
+        return mOffsetCacheHitCount;
     }
 
-    private int getSpanIndex(RecyclerView parent, int pos, int spanCount) {
-        RecyclerView.LayoutManager manager = parent.getLayoutManager();
-        if(manager instanceof GridLayoutManager) {
-            GridLayoutManager.SpanSizeLookup spanSizeLookup =
-                    ((GridLayoutManager) manager).getSpanSizeLookup();
-            return spanSizeLookup.getSpanIndex(pos, spanCount);
-        } else {
-            return pos % spanCount;
+    /**
+     * offset缓存的未命中次数(所有RecyclerView合计), 未开启缓存时为0.
+     */
+    public long getOffsetCacheMissCount() {
+        return mOffsetCacheMissCount;
+    }
+
+    /**
+     * 发布adapter当前数据的span快照(仅GridLayoutManager), 可以在任意线程调用, 快照通常在计算差异的后台线程构建:
+     * <pre>
+     * SpanSnapshot snapshot = SpanSnapshot.build(newList.size(), spanCount, lookup::getSpanSize);
+     * adapter.submitList(newList, () -> divider.publishSpanSnapshot(adapter, snapshot));
+     * </pre>
+     * 必须在adapter已经收到这批数据的通知之后发布(例如submitList的commitCallback中).
+     * 快照的item数量或spanCount与当前不符, 以及adapter的下一次数据通知之后, 回退为UI线程上的增量计算.
+     */
+    @AnyThread
+    public void publishSpanSnapshot(@NonNull RecyclerView.Adapter<?> adapter, @NonNull SpanSnapshot snapshot) {
+        mPublication = new SnapshotPublication(adapter, snapshot);
+    }
+
+    /**
+     * 首次使用以及Configuration变化时按parent的Context重新解析painter, 以及依赖其厚度的offset计算.
+     * 列表方向的分割线在纵向网格中是横线, 按calcVerticalThickness()计算厚度, 侧边分割线反之.
+     */
+    private GridState resolvePainters(RecyclerView parent, GridState gridState) {
+        if (!gridState.updateConfiguration(parent)) return gridState;
+
+        final boolean resolved = gridState.mOffsetEngine != null;
+        final boolean vertical = mBuilder.mOrientation == GridLayoutManager.VERTICAL;
+        int thickness = mBuilder.mDividerThickness;
+        int sideThickness = mBuilder.mSideDividerThickness;
+        if (mBuilder.mLazyPainter != null && mBuilder.mLazyEdgePainter != null) {
+            final Context context = parent.getContext();
+            final IDividerPainter painter = mBuilder.mLazyPainter.apply(context);
+            final IDividerPainter edgePainter = mBuilder.mLazyEdgePainter == mBuilder.mLazyPainter
+                    ? painter : mBuilder.mLazyEdgePainter.apply(context);
+            thickness = vertical
+                    ? painter.calcVerticalThickness(thickness)
+                    : painter.calcHorizontalThickness(thickness);
+            sideThickness = vertical
+                    ? edgePainter.calcHorizontalThickness(sideThickness)
+                    : edgePainter.calcVerticalThickness(sideThickness);
+            gridState.mPainter = painter;
+            gridState.mEdgePainter = edgePainter;
         }
+        final boolean thicknessChanged = resolved
+                && (thickness != gridState.mThickness || sideThickness != gridState.mSideThickness);
+        gridState.mThickness = thickness;
+        gridState.mSideThickness = sideThickness;
+        gridState.mOffsetEngine = createOffsetEngine(mBuilder, thickness, sideThickness);
+        if (thicknessChanged && !mBuilder.mOverlay) {
+            if (gridState.mOffsetCache != null) gridState.mOffsetCache.clear();
+            // 新painter的厚度不同(覆盖模式不预留offset, 不受影响).
+            gridState.invalidateItemDecorations(parent);
+        }
+        return gridState;
     }
 
-    private int getSpanSize(RecyclerView parent, int pos) {
-        RecyclerView.LayoutManager manager = parent.getLayoutManager();
-        if(manager instanceof GridLayoutManager) {
-            GridLayoutManager.SpanSizeLookup spanSizeLookup =
-                    ((GridLayoutManager) manager).getSpanSizeLookup();
-            return spanSizeLookup.getSpanSize(pos);
+    /**
+     * 获取parent对应的状态. LayoutManager变化时解析一次span信息的provider, 之后逐个item的计算不再判断类型.
+     */
+    private GridState obtainState(RecyclerView parent, RecyclerView.State state) {
+        final GridState gridState = mStates.obtain(parent);
+        final RecyclerView.LayoutManager manager = parent.getLayoutManager();
+        if (manager != gridState.mLayoutManager.get()) {
+            gridState.bindSpanInfo(manager, resolveSpanInfo(gridState, manager));
+        }
+        // 不持有LayoutManager(它引用着RecyclerView), 自身实现了provider的LayoutManager每次从parent读取.
+        final ISpanInfoProvider spanInfo = gridState.mManagerSpanInfo
+                ? (ISpanInfoProvider) manager : gridState.mSpanInfo;
+        if (spanInfo != null) {
+            gridState.mSpanCount = Math.max(1, spanInfo.getSpanCount());
+            gridState.mGridSpans = spanInfo.syncSpanGroups(ItemPositions.itemCount(parent, state));
+        } else {
+            gridState.mSpanCount = 1;
+            gridState.mGridSpans = null;
         }
-        return 1;
+        return gridState;
     }
 
-    // utils.
+    /**
+     * LayoutManager自身实现了{@link ISpanInfoProvider}时优先使用(返回null, 由GridState标记), 否则使用内置的网格/瀑布流实现.
+     */
+    @Nullable
+    private ISpanInfoProvider resolveSpanInfo(GridState gridState, @Nullable RecyclerView.LayoutManager manager) {
+        if (manager instanceof ISpanInfoProvider) {
+            return null;
+        } else if (manager instanceof GridLayoutManager) {
+            return new GridSpanInfo(gridState, (GridLayoutManager) manager);
+        } else if (manager instanceof StaggeredGridLayoutManager) {
+            return new StaggeredSpanInfo(gridState, (StaggeredGridLayoutManager) manager);
+        }
+        return null;
+    }
 
     /**
-     * 判断是否是第一行.
+     * GridLayoutManager: 等宽span走算术路径, 否则采用已发布的快照或确保span索引覆盖当前数据集.
+     * 内置实现通过弱引用访问LayoutManager, 只在obtainState确认它仍是parent当前的LayoutManager之后调用.
      */
-    private boolean isFirstRaw(RecyclerView parent, int pos, int spanCount){
-        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
-        if(layoutManager instanceof GridLayoutManager) {
-            GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
-            if(mBuilder.mOrientation == GridLayoutManager.VERTICAL
-                    && pos < getGridFirstDividerOffset(parent, gridLayoutManager)) {
-                return true;
-            } else if(mBuilder.mOrientation == GridLayoutManager.HORIZONTAL
-                    && isFirstRowInHorizontalGridLayout(gridLayoutManager, pos)) {
-                return true;
+    private final class GridSpanInfo implements ISpanInfoProvider {
+
+        private final GridState mState;
+
+        private final WeakReference<GridLayoutManager> mManager;
+
+        GridSpanInfo(GridState state, GridLayoutManager manager) {
+            mState = state;
+            mManager = new WeakReference<>(manager);
+        }
+
+        @Override
+        public int getSpanCount() {
+            final GridLayoutManager manager = mManager.get();
+            return manager != null ? manager.getSpanCount() : 1;
+        }
+
+        @Override
+        public ISpanGroups syncSpanGroups(int itemCount) {
+            final GridLayoutManager manager = mManager.get();
+            if (manager == null) return null;
+
+            final GridState gridState = mState;
+            final int spanCount = manager.getSpanCount();
+            if (gridState.useUniformSpans(mBuilder.mUniformSpans, manager.getSpanSizeLookup(),
+                    itemCount, spanCount)) {
+                return gridState.mSpans;
             }
-        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
-            if (mBuilder.mOrientation == GridLayoutManager.VERTICAL
-                    && pos < spanCount) {
-                return true;
-            }else if(mBuilder.mOrientation == GridLayoutManager.HORIZONTAL
-                    && pos % spanCount == 0){
-                return true;
+            final RecyclerView parent = gridState.parent();
+            final RecyclerView.Adapter<?> adapter = parent != null ? parent.getAdapter() : null;
+            if (!gridState.adoptSnapshot(mPublication, adapter, itemCount, spanCount)) {
+                final long rebuilt = gridState.mSpanIndex.getRebuildCount();
+                gridState.syncSpanIndex(manager, itemCount);
+                mMetrics.mSpanIndexRebuildCount += (int) (gridState.mSpanIndex.getRebuildCount() - rebuilt);
             }
+            return gridState.mSpans;
         }
-
-        return false;
     }
 
-    private static int getGridFirstDividerOffset(RecyclerView parent, GridLayoutManager manager) {
-        GridLayoutManager.SpanSizeLookup spanSizeLookup = manager.getSpanSizeLookup();
-        spanSizeLookup.setSpanIndexCacheEnabled(true);
+    /**
+     * StaggeredGridLayoutManager: span在布局时才确定, 没有按position的分组, 由child的LayoutParams读取.
+     */
+    private static final class StaggeredSpanInfo implements ISpanInfoProvider {
 
-        int spanCount = manager.getSpanCount();
-        int itemCount = parent.getAdapter().getItemCount();
-        for (int i = 1; i < itemCount; i++) {
-            if (spanSizeLookup.getSpanIndex(i, spanCount) == 0) {
-                return i;
-            }
+        private final GridState mState;
+
+        private final WeakReference<StaggeredGridLayoutManager> mManager;
+
+        StaggeredSpanInfo(GridState state, StaggeredGridLayoutManager manager) {
+            mState = state;
+            mManager = new WeakReference<>(manager);
+        }
+
+        @Override
+        public int getSpanCount() {
+            final StaggeredGridLayoutManager manager = mManager.get();
+            return manager != null ? manager.getSpanCount() : 1;
         }
 
-        return spanCount;
+        @Override
+        public ISpanGroups syncSpanGroups(int itemCount) {
+            mState.mStaggeredTracker.ensureSpanCount(getSpanCount());
+            return null;
+        }
     }
 
-    private static boolean isFirstRowInHorizontalGridLayout(GridLayoutManager manager, int pos) {
-        GridLayoutManager.SpanSizeLookup spanSizeLookup = manager.getSpanSizeLookup();
-        spanSizeLookup.setSpanIndexCacheEnabled(true);
+    /**
+     * @param spans 非GridLayoutManager时为null.
+     */
+    private static int getSpanIndex(@Nullable ISpanGroups spans, int pos, int spanCount) {
+        return spans != null ? spans.getSpanIndex(pos) : pos % spanCount;
+    }
 
-        int spanCount = manager.getSpanCount();
-        if(spanSizeLookup.getSpanIndex(pos, spanCount) == 0) {
-            return true;
-        }
-        return false;
+    private static int getSpanSize(@Nullable ISpanGroups spans, int pos) {
+        return spans != null ? spans.getSpanSize(pos) : 1;
     }
 
+    // utils.
 
     /**
-     * 判断是否是第一列.
+     * 判断是否是第一行.
      */
-    private boolean isFirstColumn(RecyclerView parent, int pos, int spanCount){
-        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
-        if(layoutManager instanceof GridLayoutManager) {
-            GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
-            if(mBuilder.mOrientation == GridLayoutManager.VERTICAL
-                    && isFirstRowInHorizontalGridLayout(gridLayoutManager, pos)) {
-                return true;
-            } else if(mBuilder.mOrientation == GridLayoutManager.HORIZONTAL
-                    && pos < getGridFirstDividerOffset(parent, gridLayoutManager)) {
-                return true;
-            }
+    private boolean isFirstRaw(@Nullable ISpanGroups spans, int pos){
+        if(spans == null) return false;
 
-        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
-            if (mBuilder.mOrientation == GridLayoutManager.VERTICAL
-                    && pos % spanCount == 0) {
-                return true;
-            }else if(mBuilder.mOrientation == GridLayoutManager.HORIZONTAL
-                    && pos < spanCount){
-                return true;
-            }
+        if(mBuilder.mOrientation == GridLayoutManager.VERTICAL) {
+            return spans.isInFirstGroup(pos);
+        } else {
+            return spans.isGroupStart(pos);
         }
+    }
+
+    /**
+     * 判断是否是第一列.
+     */
+    private boolean isFirstColumn(@Nullable ISpanGroups spans, int pos){
+        if(spans == null) return false;
 
-        return false;
+        if(mBuilder.mOrientation == GridLayoutManager.VERTICAL) {
+            return spans.isGroupStart(pos);
+        } else {
+            return spans.isInFirstGroup(pos);
+        }
     }
 
     /**
      * 判断是否是最后一列.
      */
-    private boolean isLastColumn(RecyclerView parent, int pos, int spanCount, int childCount) {
-        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
-        if (layoutManager instanceof GridLayoutManager) {
-            GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
-            GridLayoutManager.SpanSizeLookup spanSizeLookup = gridLayoutManager.getSpanSizeLookup();
-
-            if(mBuilder.mOrientation == GridLayoutManager.VERTICAL) {
-                if(pos == childCount - 1) {
-                    return spanSizeLookup.getSpanSize(pos) == spanCount;
-                } else if(spanSizeLookup.getSpanIndex(pos + 1, spanCount) == 0){
-                    return true;
-                }
-            } else if(mBuilder.mOrientation == GridLayoutManager.HORIZONTAL
-                    && pos >= getGridLastDividerOffset(parent, gridLayoutManager)){
-                return true;
-            }
-        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
-            if (mBuilder.mOrientation == StaggeredGridLayoutManager.VERTICAL
-                    && (pos + 1) % spanCount == 0) {
-                return true;
-            } else {
-                childCount = childCount - childCount % spanCount;
-                if (pos >= childCount) {
-                    return true;
-                }
-            }
+    private boolean isLastColumn(@Nullable ISpanGroups spans, int pos) {
+        if(spans == null) return false;
+
+        if(mBuilder.mOrientation == GridLayoutManager.VERTICAL) {
+            return spans.isGroupEnd(pos);
+        } else {
+            return spans.isInLastGroup(pos);
         }
+    }
+
+    /**
+     * 是否是最后一行.
+     */
+    private boolean isLastRaw(@Nullable ISpanGroups spans, int pos) {
+        if(spans == null) return false;
 
-        return false;
+        if(mBuilder.mOrientation == GridLayoutManager.VERTICAL) {
+            return spans.isInLastGroup(pos);
+        } else {
+            return spans.isGroupEnd(pos);
+        }
     }
 
-    private int getGridLastDividerOffset(RecyclerView parent, GridLayoutManager manager) {
-        GridLayoutManager.SpanSizeLookup spanSizeLookup = manager.getSpanSizeLookup();
+    /**
+     * 运行时修改样式, 见{@link #edit()}.
+     */
+    public final class Editor {
+
+        @NonNull
+        private final Builder mSpec;
 
-        int spanCount = manager.getSpanCount();
-        int itemCount = parent.getAdapter().getItemCount();
-        for (int i = itemCount - 1; i >= 0; i--) {
-            if (spanSizeLookup.getSpanIndex(i, spanCount) == 0) {
-                return i;
-            }
+        Editor(@NonNull Builder base) {
+            mSpec = new Builder(base);
+        }
+
+        public Editor setDividerThickness(int dividerThickness) {
+            mSpec.setDividerThickness(dividerThickness);
+            return this;
+        }
+
+        public Editor setSideDividerThickness(int sideDividerThickness) {
+            mSpec.setSideDividerThickness(sideDividerThickness);
+            return this;
+        }
+
+        public Editor drawTopEdgeDivider(boolean drawTopEdgeDivider) {
+            mSpec.drawTopEdgeDivider(drawTopEdgeDivider);
+            return this;
+        }
+
+        public Editor drawBottomEdgeDivider(boolean drawBottomEdgeDivider) {
+            mSpec.drawBottomEdgeDivider(drawBottomEdgeDivider);
+            return this;
+        }
+
+        public Editor drawLREdgesDivider(boolean drawLREdgesDivider) {
+            mSpec.drawLREdgesDivider(drawLREdgesDivider);
+            return this;
+        }
+
+        public Editor setDividerColor(@ColorInt int dividerColor) {
+            mSpec.setDividerColor(dividerColor);
+            return this;
+        }
+
+        public Editor setSideDividerColor(@ColorInt int dividerColor) {
+            mSpec.setSideDividerColor(dividerColor);
+            return this;
+        }
+
+        public Editor setDividerColorRes(@ColorRes int colorRes) {
+            mSpec.setDividerColorRes(colorRes);
+            return this;
+        }
+
+        public Editor setSideDividerColorRes(@ColorRes int colorRes) {
+            mSpec.setSideDividerColorRes(colorRes);
+            return this;
         }
 
-        return itemCount - 1;
+        public Editor setDividerDrawableRes(@DrawableRes int drawableRes) {
+            mSpec.setDividerDrawableRes(drawableRes);
+            return this;
+        }
+
+        public Editor setSideDividerDrawableRes(@DrawableRes int drawableRes) {
+            mSpec.setSideDividerDrawableRes(drawableRes);
+            return this;
+        }
+
+        public Editor setDividerDrawable(@NonNull Drawable drawable) {
+            mSpec.setDividerDrawable(drawable);
+            return this;
+        }
+
+        public Editor setSideDividerDrawable(@NonNull Drawable drawable) {
+            mSpec.setSideDividerDrawable(drawable);
+            return this;
+        }
+
+        public Editor setPainter(@NonNull IDividerPainter painter) {
+            mSpec.setPainter(painter);
+            return this;
+        }
+
+        public Editor setSidePainter(@NonNull IDividerPainter painter) {
+            mSpec.setSidePainter(painter);
+            return this;
+        }
+
+        public Editor setLazyPainter(@NonNull Function<Context, IDividerPainter> lazyPainter) {
+            mSpec.setLazyPainter(lazyPainter);
+            return this;
+        }
+
+        public Editor setLazySidePainter(@NonNull Function<Context, IDividerPainter> lazyPainter) {
+            mSpec.setLazySidePainter(lazyPainter);
+            return this;
+        }
+
+        public Editor mergeDividers(boolean mergeDividers) {
+            mSpec.mergeDividers(mergeDividers);
+            return this;
+        }
+
+        /**
+         * 提交修改, 在下一帧生效.
+         */
+        @MainThread
+        public void commit() {
+            mPendingSpec = mSpec;
+            mPendingUpdate.schedule();
+        }
     }
 
     /**
-     * 是否是最后一行.
+     * 单个RecyclerView的状态: span索引随Adapter的数据变化增量更新,
+     * 不再修改调用方SpanSizeLookup的缓存设置.
+     * <p>
+     * 某个position发生变化时, 在它前一个item所在行(列)之前的offset不会改变,
+     * 只需丢弃这之后的offset缓存.
      */
-    private boolean isLastRaw(RecyclerView parent, int pos, int spanCount, int childCount) {
-        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
-        if (layoutManager instanceof GridLayoutManager) {
-            GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
-            GridLayoutManager.SpanSizeLookup spanSizeLookup = gridLayoutManager.getSpanSizeLookup();
-
-            if(mBuilder.mOrientation == GridLayoutManager.VERTICAL
-                    && pos >= getGridLastDividerOffset(parent, gridLayoutManager)) {
-                return true;
-            } else if(mBuilder.mOrientation == GridLayoutManager.HORIZONTAL){
-                if(pos == childCount - 1) {
-                    return spanSizeLookup.getSpanSize(pos) == spanCount;
-                } else if(spanSizeLookup.getSpanIndex(pos + 1, spanCount) == 0){
-                    return true;
+    private static final class GridState extends ParentStates.State implements ISpanSizeSource {
+
+        final GridSpanIndex mSpanIndex = new GridSpanIndex();
+
+        /**
+         * 等宽span时由position和spanCount直接计算.
+         */
+        final UniformSpanGroups mUniformSpans = new UniformSpanGroups();
+
+        /**
+         * 当前使用的span数据: 等宽span的算术实现, 已发布的快照, 或者增量计算的mSpanIndex.
+         */
+        ISpanGroups mSpans = mSpanIndex;
+
+        /**
+         * 已解析过provider的LayoutManager, 弱引用: LayoutManager引用着RecyclerView, 而RecyclerView是ParentStates的弱key.
+         */
+        @NonNull
+        WeakReference<RecyclerView.LayoutManager> mLayoutManager = new WeakReference<>(null);
+
+        /**
+         * 解析出的内置provider, LayoutManager自身实现了provider或没有span信息时为null.
+         */
+        @Nullable
+        ISpanInfoProvider mSpanInfo = null;
+
+        /**
+         * LayoutManager自身实现了{@link ISpanInfoProvider}.
+         */
+        boolean mManagerSpanInfo = false;
+
+        /**
+         * 内置的瀑布流实现, 按child的LayoutParams计算.
+         */
+        boolean mStaggeredLayout = false;
+
+        /**
+         * 内置的网格实现, 由Adapter通知维护offset缓存; 自定义provider的span可能随时变化, 不缓存.
+         */
+        boolean mOffsetsCacheable = false;
+
+        /**
+         * 最近一次obtainState时的spanCount以及按position的span分组.
+         */
+        int mSpanCount = 1;
+
+        @Nullable
+        ISpanGroups mGridSpans = null;
+
+        /**
+         * 是否在使用mUniformSpans.
+         */
+        boolean mUniform = false;
+
+        /**
+         * 正在使用的快照, 数据变化时丢弃.
+         */
+        SpanSnapshot mSnapshot = null;
+
+        /**
+         * 上一次检查过的发布, 每次发布只被采用一次.
+         */
+        SnapshotPublication mSeenPublication = null;
+
+        final OffsetCache mOffsetCache;
+
+        /**
+         * 每个position的styleId, 没有设置provider时为null.
+         */
+        @Nullable
+        final StyleTable mStyleTable;
+
+        /**
+         * 瀑布流布局下各span的边界.
+         */
+        final StaggeredSpanTracker mStaggeredTracker = new StaggeredSpanTracker();
+
+        /**
+         * 瀑布流中已布局item的"最后一个"归属发生了变化, 需要在布局结束后重新计算offset.
+         */
+        boolean mStaggeredOffsetsDirty = false;
+
+        /**
+         * 按parent当前的Configuration解析出的painter.
+         */
+        IDividerPainter mPainter = null;
+
+        IDividerPainter mEdgePainter = null;
+
+        /**
+         * 按painter解析出的厚度(见IDividerPainter#calcVerticalThickness), 以及据此计算offset的engine.
+         */
+        int mThickness;
+
+        int mSideThickness;
+
+        GridOffsetEngine mOffsetEngine = null;
+
+        GridLayoutManager.SpanSizeLookup mSpanSizeLookup = null;
+
+        /**
+         * 根据Adapter通知推算出的item数量, 与实际不符时说明错过了通知, 需要清空缓存.
+         */
+        int mKnownItemCount = -1;
+
+        GridState(int offsetCacheSize, boolean styled) {
+            mOffsetCache = offsetCacheSize > 0 ? new OffsetCache(offsetCacheSize) : null;
+            mStyleTable = styled ? new StyleTable() : null;
+        }
+
+        void bindSpanInfo(@Nullable RecyclerView.LayoutManager manager, @Nullable ISpanInfoProvider spanInfo) {
+            mLayoutManager = new WeakReference<>(manager);
+            mSpanInfo = spanInfo;
+            mManagerSpanInfo = manager instanceof ISpanInfoProvider;
+            mStaggeredLayout = spanInfo instanceof StaggeredSpanInfo;
+            mOffsetsCacheable = spanInfo instanceof GridSpanInfo;
+            if (mOffsetCache != null) mOffsetCache.clear();
+        }
+
+        /**
+         * 声明了等宽span或者使用默认的SpanSizeLookup时切换到算术实现.
+         * 此时span索引仍然随Adapter通知截断, 切换回来时从有效前缀继续计算.
+         */
+        boolean useUniformSpans(boolean declared, GridLayoutManager.SpanSizeLookup lookup,
+                                int itemCount, int spanCount) {
+            mUniform = declared || lookup instanceof GridLayoutManager.DefaultSpanSizeLookup;
+            if (!mUniform) return false;
+
+            mUniformSpans.update(itemCount, spanCount);
+            mSpans = mUniformSpans;
+            return true;
+        }
+
+        /**
+         * 采用新发布的快照(属于当前adapter且item数量与spanCount相符时), 已采用的快照在不再相符时丢弃.
+         *
+         * @return 是否使用快照, 否则需要同步增量计算的mSpanIndex.
+         */
+        boolean adoptSnapshot(SnapshotPublication publication, RecyclerView.Adapter<?> adapter,
+                              int itemCount, int spanCount) {
+            if (publication != mSeenPublication) {
+                mSeenPublication = publication;
+                if (publication != null && publication.mAdapter.get() == adapter
+                        && matches(publication.mSnapshot, itemCount, spanCount)) {
+                    mSnapshot = publication.mSnapshot;
+                    if (mOffsetCache != null) mOffsetCache.clear();
                 }
             }
-        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
-            if (mBuilder.mOrientation == StaggeredGridLayoutManager.VERTICAL) {
-                childCount = childCount - childCount % spanCount;
-                if (pos >= childCount) {
-                    return true;
-                }
-            } else if(mBuilder.mOrientation == StaggeredGridLayoutManager.HORIZONTAL
-                    && (pos + 1) % spanCount == 0){
-                return true;
+            if (mSnapshot != null && !matches(mSnapshot, itemCount, spanCount)) {
+                mSnapshot = null;
             }
+            mSpans = mSnapshot != null ? mSnapshot : mSpanIndex;
+            return mSnapshot != null;
         }
 
-        return false;
-    }
+        private static boolean matches(SpanSnapshot snapshot, int itemCount, int spanCount) {
+            return snapshot.getItemCount() == itemCount && snapshot.getSpanCount() == spanCount;
+        }
+
+        /**
+         * 快照描述的是通知之前的数据, 在新的快照发布之前回退为增量计算.
+         */
+        private void dropSnapshot() {
+            mSnapshot = null;
+            mSpans = mSpanIndex;
+        }
+
+        void syncSpanIndex(GridLayoutManager manager, int itemCount) {
+            GridLayoutManager.SpanSizeLookup lookup = manager.getSpanSizeLookup();
+            final int spanCount = manager.getSpanCount();
+            if (lookup != mSpanSizeLookup) {
+                mSpanSizeLookup = lookup;
+                mSpanIndex.invalidate();
+                if (mOffsetCache != null) mOffsetCache.clear();
+            }
+            if (mOffsetCache != null && (spanCount != mSpanIndex.getSpanCount()
+                    || itemCount != mKnownItemCount)) {
+                mOffsetCache.clear();
+            }
+            mKnownItemCount = itemCount;
+            // spanCount变化时GridSpanIndex会自行重建.
+            mSpanIndex.ensure(itemCount, spanCount, this);
+        }
+
+        @Override
+        public int getSpanSize(int position) {
+            return mSpanSizeLookup.getSpanSize(position);
+        }
+
+        private void invalidateOffsetsFrom(int position) {
+            if (mOffsetCache != null) {
+                mOffsetCache.invalidateFrom(mSpanIndex.findGroupStartBefore(position));
+            }
+        }
+
+        /**
+         * 标记position之后的child以及最后一行(列)重新计算offset: 之后的item的span可能变化,
+         * 最后一行(列)最多有spanCount个item, 变化前后位于末尾spanCount个以内的item可能改变归属.
+         *
+         * @param lastGroupEnd 变化前后较小的item数量.
+         */
+        private void markOffsetsDirtyFrom(int position, int lastGroupEnd) {
+            final RecyclerView parent = parent();
+            if (parent == null) return;
+
+            markOffsetsDirty(Math.max(0, Math.min(position, lastGroupEnd - mSpanCount)), Integer.MAX_VALUE);
+        }
+
+        @Override
+        void onDataChanged() {
+            mStaggeredTracker.reset();
+            dropSnapshot();
+            mKnownItemCount = -1;
+            mSpanIndex.invalidate();
+            if (mOffsetCache != null) mOffsetCache.clear();
+            if (mStyleTable != null) mStyleTable.clear();
+        }
 
-    private int getSpanCount(RecyclerView parent) {
-        int spanCount = 1;
-        RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
-        if (layoutManager instanceof GridLayoutManager) {
-            spanCount = ((GridLayoutManager) layoutManager).getSpanCount();
-        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
-            spanCount = ((StaggeredGridLayoutManager) layoutManager).getSpanCount();
+        @Override
+        void onRangeChanged(int positionStart, int itemCount) {
+            mStaggeredTracker.reset();
+            dropSnapshot();
+            // 内容变化的item由RecyclerView自行标记, 自定义SpanSizeLookup下之后的item的span也可能变化.
+            if (mSpanSizeLookup != null
+                    && !(mSpanSizeLookup instanceof GridLayoutManager.DefaultSpanSizeLookup)) {
+                markOffsetsDirty(positionStart + itemCount, Integer.MAX_VALUE);
+            }
+            invalidateOffsetsFrom(positionStart);
+            mSpanIndex.onItemRangeChanged(positionStart, itemCount);
+            if (mStyleTable != null) mStyleTable.onItemRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        void onRangeInserted(int positionStart, int itemCount) {
+            mStaggeredTracker.reset();
+            dropSnapshot();
+            markOffsetsDirtyFrom(positionStart, adapterItemCount() - itemCount);
+            if (mKnownItemCount >= 0) mKnownItemCount += itemCount;
+            invalidateOffsetsFrom(positionStart);
+            mSpanIndex.onItemRangeInserted(positionStart, itemCount);
+            if (mStyleTable != null) mStyleTable.onItemRangeInserted(positionStart, itemCount);
+        }
+
+        @Override
+        void onRangeRemoved(int positionStart, int itemCount) {
+            mStaggeredTracker.reset();
+            dropSnapshot();
+            markOffsetsDirtyFrom(positionStart, adapterItemCount());
+            if (mKnownItemCount >= 0) mKnownItemCount -= itemCount;
+            invalidateOffsetsFrom(positionStart);
+            mSpanIndex.onItemRangeRemoved(positionStart, itemCount);
+            if (mStyleTable != null) mStyleTable.onItemRangeRemoved(positionStart, itemCount);
+        }
+
+        @Override
+        void onRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mStaggeredTracker.reset();
+            dropSnapshot();
+            markOffsetsDirtyFrom(Math.min(fromPosition, toPosition), adapterItemCount());
+            invalidateOffsetsFrom(Math.min(fromPosition, toPosition));
+            mSpanIndex.onItemRangeMoved(fromPosition, toPosition, itemCount);
+            if (mStyleTable != null) mStyleTable.onItemRangeMoved(fromPosition, toPosition, itemCount);
         }
+    }
+
+    /**
+     * 一次发布: 快照以及它所属的adapter, 创建后不再修改.
+     */
+    private static final class SnapshotPublication {
 
-        return spanCount;
+        @NonNull
+        final WeakReference<RecyclerView.Adapter<?>> mAdapter;
+
+        @NonNull
+        final SpanSnapshot mSnapshot;
+
+        SnapshotPublication(@NonNull RecyclerView.Adapter<?> adapter, @NonNull SpanSnapshot snapshot) {
+            mAdapter = new WeakReference<>(adapter);
+            mSnapshot = snapshot;
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+/**
+ * 按段id缓存渲染好的header(API 29+且硬件加速时为RenderNode, 否则为Bitmap), 容量固定, 满时淘汰最久未使用的一项.
+ * <p>
+ * 容量通常只有几项, 用数组线性查找, 查询不分配内存.
+ * <p>
+ * 被替换或淘汰的Bitmap(以及RenderNode)不会recycle()也不会被重新绘制, 已录制的显示列表可能仍在引用它们, 交给GC回收.
+ */
+
+final class HeaderRenderCache {
+
+    private final long[] mIds;
+
+    private final int[] mWidths;
+
+    private final int[] mHeights;
+
+    /**
+     * 最近一次使用的时刻, 用于淘汰.
+     */
+    private final long[] mStamps;
+
+    private final boolean[] mIsRenderNode;
+
+    /**
+     * RenderNode或Bitmap, 高度为0的header为null.
+     */
+    private final Object[] mLayers;
+
+    private int mSize = 0;
+
+    private long mClock = 0;
+
+    HeaderRenderCache(int capacity) {
+        final int size = Math.max(1, capacity);
+        mIds = new long[size];
+        mWidths = new int[size];
+        mHeights = new int[size];
+        mStamps = new long[size];
+        mIsRenderNode = new boolean[size];
+        mLayers = new Object[size];
+    }
+
+    static boolean useRenderNode(@NonNull Canvas canvas) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas.isHardwareAccelerated();
+    }
+
+    /**
+     * @return id对应、宽度以及渲染方式都相符的缓存项, 没有时返回-1.
+     */
+    int find(long id, int width, boolean renderNode) {
+        for (int i = 0; i < mSize; i++) {
+            if (mIds[i] == id && mWidths[i] == width && mIsRenderNode[i] == renderNode) {
+                mStamps[i] = ++mClock;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    int heightAt(int slot) {
+        return mHeights[slot];
+    }
+
+    /**
+     * 渲染已经measure和layout过的header, 相同id的旧缓存项被替换.
+     *
+     * @return 新的缓存项.
+     */
+    int put(long id, @NonNull View header, boolean renderNode) {
+        int slot = -1;
+        for (int i = 0; i < mSize; i++) {
+            if (mIds[i] == id) {
+                slot = i;
+                break;
+            }
+        }
+        if (slot < 0) {
+            slot = mSize < mIds.length ? mSize++ : leastRecentlyUsed();
+        }
+
+        final int width = header.getWidth();
+        final int height = header.getHeight();
+        Object layer = null;
+        if (width > 0 && height > 0) {
+            if (renderNode && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                layer = recordRenderNode(header);
+            } else {
+                layer = recordBitmap(header);
+            }
+        }
+
+        mIds[slot] = id;
+        mWidths[slot] = width;
+        mHeights[slot] = height;
+        mIsRenderNode[slot] = renderNode;
+        mLayers[slot] = layer;
+        mStamps[slot] = ++mClock;
+        return slot;
+    }
+
+    void draw(@NonNull Canvas canvas, int slot, int left, int top) {
+        final Object layer = mLayers[slot];
+        if (layer == null) return;
+
+        if (mIsRenderNode[slot] && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            drawRenderNode(canvas, (RenderNode) layer, left, top);
+        } else {
+            canvas.drawBitmap((Bitmap) layer, left, top, null);
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < mSize; i++) {
+            mLayers[i] = null;
+        }
+        mSize = 0;
+    }
+
+    private int leastRecentlyUsed() {
+        int slot = 0;
+        for (int i = 1; i < mSize; i++) {
+            if (mStamps[i] < mStamps[slot]) slot = i;
+        }
+        return slot;
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static RenderNode recordRenderNode(@NonNull View header) {
+        final RenderNode node = new RenderNode("ItemDecorations:StickyHeader");
+        node.setPosition(0, 0, header.getWidth(), header.getHeight());
+        final Canvas recordingCanvas = node.beginRecording(header.getWidth(), header.getHeight());
+        try {
+            header.draw(recordingCanvas);
+        } finally {
+            node.endRecording();
+        }
+        return node;
+    }
+
+    private static Bitmap recordBitmap(@NonNull View header) {
+        final Bitmap bitmap = Bitmap.createBitmap(header.getWidth(), header.getHeight(), Bitmap.Config.ARGB_8888);
+        header.draw(new Canvas(bitmap));
+        return bitmap;
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static void drawRenderNode(@NonNull Canvas canvas, @NonNull RenderNode node, int left, int top) {
+        node.setTranslationX(left);
+        node.setTranslationY(top);
+        canvas.drawRenderNode(node);
+    }
+}
@@ -0,0 +1,18 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 分割线开销的统计回调, 通过Builder.setMetricsListener()设置.
+ * <p>
+ * 每次onDraw结束时回调一次, 在主线程执行.
+ */
+
+public interface IDividerMetricsListener {
+
+    /**
+     * @param metrics 本帧的统计结果, 对象会被复用, 不要在回调之外持有.
+     */
+    void onFrameMetrics(@NonNull RecyclerView parent, @NonNull DividerFrameMetrics metrics);
+}
@@ -0,0 +1,37 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 向{@link StickyHeaderDecoration}提供分段以及每一段的header.
+ * <p>
+ * 分段边界在Adapter发出数据变化的通知时重新读取, 此时应已反映变化之后的数据;
+ * header按段的id绑定并渲染一次, 之后直接绘制缓存.
+ */
+
+public interface IStickyHeaderProvider {
+
+    int getSectionCount();
+
+    /**
+     * 第section段第一个item的adapter position, 需要按section递增.
+     */
+    int getSectionStart(int section);
+
+    /**
+     * 段的稳定id, 用作header渲染缓存的key. header的内容变化时应返回新的id,
+     * 或者调用{@link StickyHeaderDecoration#invalidateHeaders()}.
+     */
+    long getSectionId(int section);
+
+    /**
+     * 每个RecyclerView只创建一次, 之后每个段复用这个View绑定并渲染.
+     */
+    @NonNull
+    View createHeaderView(@NonNull RecyclerView parent);
+
+    void bindHeaderView(@NonNull View header, int section);
+}
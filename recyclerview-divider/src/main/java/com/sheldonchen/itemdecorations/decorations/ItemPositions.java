@@ -0,0 +1,35 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * getItemOffsets()使用的position与item数量.
+ * <p>
+ * 预布局(pre-layout)阶段getChildLayoutPosition()返回的仍是数据变化之前的position,
+ * 而分割线的状态(PositionRules, span索引, 分段边界)在Adapter通知时已经按新数据平移,
+ * 所以预布局阶段改用Adapter中的position与数量: 预布局算出的offset会被缓存到正式布局, 两者必须一致.
+ */
+
+final class ItemPositions {
+
+    private ItemPositions() {/* no instance.*/}
+
+    static int position(@NonNull RecyclerView parent, @NonNull View child, @NonNull RecyclerView.State state) {
+        final int layoutPos = parent.getChildLayoutPosition(child);
+        if (!state.isPreLayout()) return layoutPos;
+
+        // 即将被删除的item没有Adapter position, 沿用旧的position.
+        final int adapterPos = parent.getChildAdapterPosition(child);
+        return adapterPos != RecyclerView.NO_POSITION ? adapterPos : layoutPos;
+    }
+
+    static int itemCount(@NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        if (!state.isPreLayout()) return state.getItemCount();
+
+        final RecyclerView.Adapter<?> adapter = parent.getAdapter();
+        return adapter != null ? adapter.getItemCount() : state.getItemCount();
+    }
+}
@@ -7,21 +7,30 @@ import android.graphics.drawable.Drawable;
 import android.view.View;
 
 import androidx.annotation.ColorInt;
+import androidx.annotation.ColorRes;
+import androidx.annotation.DrawableRes;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.arch.core.util.Function;
 import androidx.core.util.Preconditions;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.tracing.Trace;
 
 import com.sheldonchen.itemdecorations.CheckUtil;
 import com.sheldonchen.itemdecorations.annotation.DecorationOrientType;
-import com.sheldonchen.itemdecorations.painter.ColorIntPainter;
+import com.sheldonchen.itemdecorations.geometry.GridOffsetEngine;
 import com.sheldonchen.itemdecorations.painter.DrawablePainter;
+import com.sheldonchen.itemdecorations.painter.PainterCache;
+import com.sheldonchen.itemdecorations.painter.base.DividerBatch;
 import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+import com.sheldonchen.itemdecorations.rules.IDividerStyleProvider;
+import com.sheldonchen.itemdecorations.rules.PositionRules;
+import com.sheldonchen.itemdecorations.rules.StyleTable;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 适用于RecyclerView线性布局下的Divider(ItemDecoration)
@@ -66,13 +75,62 @@ public class LinearLayoutDivider extends RecyclerView.ItemDecoration {
 
         /**
          * Painter: 支持Drawable和ColorInt或者自定义IDividerPainter.
+         * 每个RecyclerView按各自的Context解析, Configuration变化后重新解析.
          */
         Function<Context, IDividerPainter> mLazyPainter = null;
 
         /**
-         * 指定不画分割线的位置的集合(set).
+         * 是否把分割线录制为显示列表, 纯滚动时平移重放.
          */
-        final Set<Integer> mNonDrawPositions = new HashSet<>();
+        boolean mCacheDividerLayer = false;
+
+        /**
+         * 覆盖模式: 不预留offset, 在onDrawOver中画在item之上.
+         */
+        boolean mOverlay = false;
+
+        /**
+         * 指定不画分割线的位置(单个位置, 区间以及步长).
+         */
+        final PositionRules mNonDrawPositions = new PositionRules();
+
+        /**
+         * 按styleId注册的样式, 以及提供每个position的styleId的provider.
+         */
+        @Nullable
+        DividerStyle[] mDividerStyles = null;
+
+        @Nullable
+        IDividerStyleProvider mStyleProvider = null;
+
+        /**
+         * 统计回调, 为null时不统计耗时.
+         */
+        @Nullable
+        IDividerMetricsListener mMetricsListener = null;
+
+        public Builder() {
+        }
+
+        Builder(@NonNull Builder other) {
+            copyFrom(other);
+        }
+
+        void copyFrom(@NonNull Builder other) {
+            mOrientation = other.mOrientation;
+            mDividerThickness = other.mDividerThickness;
+            mStartPadding = other.mStartPadding;
+            mEndPadding = other.mEndPadding;
+            mDrawFirstDivider = other.mDrawFirstDivider;
+            mDrawLastDivider = other.mDrawLastDivider;
+            mLazyPainter = other.mLazyPainter;
+            mCacheDividerLayer = other.mCacheDividerLayer;
+            mOverlay = other.mOverlay;
+            mNonDrawPositions.copyFrom(other.mNonDrawPositions);
+            mDividerStyles = other.mDividerStyles != null ? other.mDividerStyles.clone() : null;
+            mStyleProvider = other.mStyleProvider;
+            mMetricsListener = other.mMetricsListener;
+        }
 
         public Builder setOrientation(@DecorationOrientType int orientation) {
             this.mOrientation = orientation;
@@ -100,13 +158,26 @@ public class LinearLayoutDivider extends RecyclerView.ItemDecoration {
         }
 
         public Builder setLazyDividerColor(@NonNull Function<Context, Integer> lazyDividerColor) {
-            setLazyPainter((c) -> new ColorIntPainter(lazyDividerColor.apply(c)));
+            setLazyPainter((c) -> PainterCache.colorPainter(lazyDividerColor.apply(c)));
             return this;
         }
 
         public Builder setDividerColor(@ColorInt int color) {
-            setLazyDividerColor((c) -> color);
-            return this;
+            return setPainter(PainterCache.colorPainter(color));
+        }
+
+        /**
+         * 颜色资源, 按RecyclerView的Configuration(深色模式, density)解析, 相同颜色的Paint在进程内共享.
+         */
+        public Builder setDividerColorRes(@ColorRes int colorRes) {
+            return setLazyPainter((c) -> PainterCache.colorResPainter(c, colorRes));
+        }
+
+        /**
+         * Drawable资源, 按RecyclerView的Configuration(深色模式, density)解析, 在进程内共享.
+         */
+        public Builder setDividerDrawableRes(@DrawableRes int drawableRes) {
+            return setLazyPainter((c) -> PainterCache.drawableResPainter(c, drawableRes));
         }
 
         public Builder setLazyDividerDrawable(@NonNull Function<Context, Drawable> lazyDividerDrawable) {
@@ -145,6 +216,73 @@ public class LinearLayoutDivider extends RecyclerView.ItemDecoration {
             return this;
         }
 
+        /**
+         * [from, to]区间内(包含两端)的divider不画.
+         */
+        public Builder notDrawRange(int from, int to) {
+            mNonDrawPositions.addRange(from, to);
+            return this;
+        }
+
+        /**
+         * 从offset开始每隔stride个位置的divider不画(offset, offset + stride, ...).
+         */
+        public Builder notDrawEvery(int stride, int offset) {
+            mNonDrawPositions.addStride(stride, offset);
+            return this;
+        }
+
+        /**
+         * 注册按position使用的样式, styleId取值[1, StyleTable.MAX_STYLE_ID], 0为Builder本身配置的样式.
+         */
+        public Builder addDividerStyle(int styleId, @NonNull DividerStyle style) {
+            if (styleId <= IDividerStyleProvider.STYLE_DEFAULT || styleId > StyleTable.MAX_STYLE_ID) {
+                throw new IllegalArgumentException("LinearLayoutDivider: styleId must be in [1, "
+                        + StyleTable.MAX_STYLE_ID + "], was " + styleId);
+            }
+            if (mDividerStyles == null) {
+                mDividerStyles = new DividerStyle[StyleTable.MAX_STYLE_ID + 1];
+            }
+            mDividerStyles[styleId] = style;
+            return this;
+        }
+
+        /**
+         * 每个position(item之后的分割线)使用的styleId, 每个position只查询一次,
+         * 结果保存在每个position一个字节的表中, 随Adapter的数据变化平移.
+         * 不画分割线的位置(notDrawSpecificDivider等)优先于样式.
+         */
+        public Builder setDividerStyleProvider(@Nullable IDividerStyleProvider provider) {
+            this.mStyleProvider = provider;
+            return this;
+        }
+
+        /**
+         * 把分割线录制为显示列表(API 29+为RenderNode, 否则为Picture),
+         * 纯滚动的帧中平移后重放, 只有child被添加、移除或改变尺寸时才重新录制.
+         */
+        public Builder cacheDividerLayer(boolean cacheDividerLayer) {
+            this.mCacheDividerLayer = cacheDividerLayer;
+            return this;
+        }
+
+        /**
+         * 覆盖模式: getItemOffsets()返回0, 分割线在onDrawOver中画在item的margin以内(margin不足时盖住item的边缘).
+         * 显示/隐藏分割线或修改颜色、厚度都只需要重绘, 不会触发child的测量和布局.
+         */
+        public Builder setOverlay(boolean overlay) {
+            this.mOverlay = overlay;
+            return this;
+        }
+
+        /**
+         * 每帧回调onDraw耗时, painter调用次数以及getItemOffsets次数.
+         */
+        public Builder setMetricsListener(@Nullable IDividerMetricsListener listener) {
+            this.mMetricsListener = listener;
+            return this;
+        }
+
         public LinearLayoutDivider build() {
             return new LinearLayoutDivider(this);
         }
@@ -166,14 +304,106 @@ public class LinearLayoutDivider extends RecyclerView.ItemDecoration {
 
     }
 
+    private static final String TRACE_ON_DRAW = "LinearLayoutDivider#onDraw";
+    private static final String TRACE_ON_DRAW_OVER = "LinearLayoutDivider#onDrawOver";
+    private static final String TRACE_ITEM_OFFSETS = "LinearLayoutDivider#getItemOffsets";
+
     private final Builder mBuilder;
 
+    /**
+     * 每个RecyclerView各自的不画分割线的位置, 随Adapter的数据变化平移.
+     */
+    private final ParentStates<LinearState> mStates = new ParentStates<>(this, this::newState);
+
+    /**
+     * 一帧内收集的分割线, 最后一次性交给painter绘制.
+     */
+    private final DividerBatch mBatch = new DividerBatch();
+
+    /**
+     * getItemOffsets的输出缓冲: left, top, right, bottom.
+     */
+    private final int[] mOffsets = new int[4];
+
+    private final DividerLayerCache.LayerDrawer mLayerDrawer = this::drawLayer;
+
+    private final DividerFrameMetrics mMetrics = new DividerFrameMetrics();
+
+    /**
+     * edit()提交的修改, 在下一帧合并生效.
+     */
+    @Nullable
+    private Builder mPendingSpec = null;
+
+    private final FrameCoalescer mPendingUpdate = new FrameCoalescer(this::applyPendingSpec);
+
+    private final OffsetChanges.OffsetSource mOffsetSource = this::computeItemOffsets;
+
+    /**
+     * 按position的样式, 没有设置provider时为null.
+     */
     @Nullable
-    private IDividerPainter mDividerPainter;
+    private final DividerStyles mStyles;
 
     private LinearLayoutDivider(@NonNull Builder builder) {
         Preconditions.checkNotNull(builder, "LinearLayoutDivider: mBuilder can't be null.");
-        this.mBuilder = builder;
+        // 拷贝一份, 运行时的修改不会影响Builder以及由它创建的其他Divider.
+        this.mBuilder = new Builder(builder);
+        this.mStyles = DividerStyles.create(mBuilder.mStyleProvider, mBuilder.mDividerStyles,
+                mBuilder.mOrientation == LinearLayoutManager.VERTICAL);
+    }
+
+    /**
+     * 运行时修改分割线的样式, commit()之后在下一帧生效, 同一帧内的多次提交只生效最后一次:
+     * <pre>
+     * divider.edit().setDividerColor(color).drawLastDivider(false).commit();
+     * </pre>
+     * 只改变颜色、painter或边距时只重绘; 改变厚度或首尾分割线时只让offset真正变化的child重新布局.
+     * 对通过Builder.apply(RecyclerView...)共享这个Divider的所有RecyclerView生效.
+     */
+    @MainThread
+    @NonNull
+    public Editor edit() {
+        return new Editor(mPendingSpec != null ? mPendingSpec : mBuilder);
+    }
+
+    /**
+     * 比较修改前后的样式: 覆盖模式下, 或者只有painter、边距变化时只需重绘;
+     * 否则逐个比较child的offset, 只标记变化的child.
+     * 新painter解析出的厚度不同时(例如换成固有尺寸不同的Drawable), 与Configuration变化时一样使所有child失效.
+     */
+    private void applyPendingSpec() {
+        final Builder spec = mPendingSpec;
+        mPendingSpec = null;
+        if (spec == null) return;
+
+        final boolean geometry = !mBuilder.mOverlay
+                && (spec.mDividerThickness != mBuilder.mDividerThickness
+                || spec.mDrawFirstDivider != mBuilder.mDrawFirstDivider
+                || spec.mDrawLastDivider != mBuilder.mDrawLastDivider);
+        final List<RecyclerView> parents = new ArrayList<>();
+        mStates.collectAttachedParents(parents);
+        final OffsetChanges[] changes = new OffsetChanges[parents.size()];
+        if (geometry) {
+            for (int i = 0; i < changes.length; i++) {
+                changes[i] = OffsetChanges.record(parents.get(i), mOffsetSource);
+            }
+        }
+
+        mBuilder.copyFrom(spec);
+        for (int i = 0; i < changes.length; i++) {
+            final RecyclerView parent = parents.get(i);
+            final LinearState linearState = mStates.obtain(parent);
+            linearState.invalidateStyle();
+            linearState.updateConfiguration(parent);
+            final boolean thicknessChanged = resolvePainter(parent, linearState);
+            if (changes[i] != null) {
+                changes[i].markChanged(mOffsetSource);
+            } else if (thicknessChanged && !mBuilder.mOverlay) {
+                linearState.invalidateItemDecorations(parent);
+            }
+            parent.invalidate();
+        }
     }
 
     @Override
@@ -182,21 +412,80 @@ public class LinearLayoutDivider extends RecyclerView.ItemDecoration {
             @NonNull RecyclerView parent,
             @NonNull RecyclerView.State state) {
         super.onDraw(canvas, parent, state);
-        @NonNull final IDividerPainter dividerPainter = dividerPainter(parent);
+        if (!mBuilder.mOverlay) {
+            drawDividers(canvas, parent, state, TRACE_ON_DRAW);
+        }
+    }
+
+    @Override
+    public void onDrawOver(
+            @NonNull Canvas canvas,
+            @NonNull RecyclerView parent,
+            @NonNull RecyclerView.State state) {
+        super.onDrawOver(canvas, parent, state);
+        if (mBuilder.mOverlay) {
+            drawDividers(canvas, parent, state, TRACE_ON_DRAW_OVER);
+        }
+    }
 
+    private void drawDividers(
+            @NonNull Canvas canvas,
+            @NonNull RecyclerView parent,
+            @NonNull RecyclerView.State state,
+            @NonNull String traceSection) {
+        Trace.beginSection(traceSection);
+        try {
+            final IDividerMetricsListener listener = mBuilder.mMetricsListener;
+            final long start = listener != null ? System.nanoTime() : 0L;
+            // Configuration变化时先丢弃旧的显示列表.
+            final LinearState linearState = obtainState(parent);
+            if (mBuilder.mCacheDividerLayer) {
+                mMetrics.mLayerReplayed =
+                        linearState.layerCache().draw(canvas, parent, state, mLayerDrawer);
+            } else {
+                drawLayer(canvas, parent, state, false);
+            }
+            if (listener != null) {
+                mMetrics.report(listener, parent, start);
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void drawLayer(
+            @NonNull Canvas canvas,
+            @NonNull RecyclerView parent,
+            @NonNull RecyclerView.State state,
+            boolean recording) {
+        @NonNull final LinearState linearState = obtainState(parent);
+        @NonNull final IDividerPainter dividerPainter = linearState.mPainter;
+        @NonNull final PositionRules nonDrawPositions = linearState.mNonDrawPositions;
+
+        dividerPainter.beginFrame(canvas);
         if (mBuilder.mOrientation == LinearLayoutManager.VERTICAL) {
-            drawOrientVerticalDivider(canvas, parent, dividerPainter);
+            drawOrientVerticalDivider(parent, dividerPainter, nonDrawPositions, linearState.mStyleTable);
         } else {
-            drawOrientHorizontalDivider(canvas, parent, dividerPainter);
+            drawOrientHorizontalDivider(parent, dividerPainter, nonDrawPositions, linearState.mStyleTable);
+        }
+        mMetrics.onFlush(mBatch.flush(canvas, dividerPainter));
+        dividerPainter.endFrame(canvas);
+        if (mStyles != null) {
+            mStyles.flush(canvas, mMetrics);
         }
     }
 
     private void drawOrientVerticalDivider(
-            @NonNull Canvas canvas,
             @NonNull RecyclerView parent,
-            @NonNull IDividerPainter dividerPainter) {
+            @NonNull IDividerPainter dividerPainter,
+            @NonNull PositionRules nonDrawPositions,
+            @Nullable StyleTable styleTable) {
+        final DividerStyles styles = mStyles;
         final int left = parent.getPaddingLeft() + mBuilder.mStartPadding;
         final int right = parent.getWidth() - parent.getPaddingRight() - mBuilder.mEndPadding;
+        final int thickness = dividerPainter.calcVerticalThickness(mBuilder.mDividerThickness);
+        // 覆盖模式下没有预留offset, 分割线向item一侧平移自身的厚度: 画在margin以内, margin不足时盖住item的边缘.
+        final int inset = mBuilder.mOverlay ? thickness : 0;
 
         for (int i = 0, childCount = parent.getChildCount(); i < childCount; i++) {
             final View childView = parent.getChildAt(i);
@@ -204,28 +493,34 @@ public class LinearLayoutDivider extends RecyclerView.ItemDecoration {
                     (RecyclerView.LayoutParams) childView.getLayoutParams();
 
             final int layoutPos = parent.getChildLayoutPosition(childView);
-            int top = childView.getBottom() + params.bottomMargin;
-            int bottom = top + dividerPainter.calcVerticalThickness(mBuilder.mDividerThickness);
+            int top = childView.getBottom() + params.bottomMargin - inset;
+            int bottom = top + thickness;
 
             if (i < childCount - 1 || mBuilder.mDrawLastDivider) {
-                if (!mBuilder.mNonDrawPositions.contains(layoutPos)) {
-                    dividerPainter.drawDivider(canvas, left, top, right, bottom);
+                if (!nonDrawPositions.contains(layoutPos)
+                        && (styles == null || !styles.addTrailing(styleTable, layoutPos, true, mBuilder.mOverlay,
+                        childView.getBottom() + params.bottomMargin, left, right))) {
+                    mBatch.add(left, top, right, bottom);
                 }
             }
             if (i == 0 && mBuilder.mDrawFirstDivider) {
-                bottom = childView.getTop() - params.topMargin;
-                top = bottom - dividerPainter.calcVerticalThickness(mBuilder.mDividerThickness);
-                dividerPainter.drawDivider(canvas, left, top, right, bottom);
+                bottom = childView.getTop() - params.topMargin + inset;
+                top = bottom - thickness;
+                mBatch.add(left, top, right, bottom);
             }
         }
     }
 
     private void drawOrientHorizontalDivider(
-            @NonNull Canvas canvas,
             @NonNull RecyclerView parent,
-            @NonNull IDividerPainter dividerPainter) {
+            @NonNull IDividerPainter dividerPainter,
+            @NonNull PositionRules nonDrawPositions,
+            @Nullable StyleTable styleTable) {
+        final DividerStyles styles = mStyles;
         final int top = parent.getPaddingTop() + mBuilder.mStartPadding;
         final int bottom = parent.getHeight() - parent.getPaddingBottom() - mBuilder.mEndPadding;
+        final int thickness = dividerPainter.calcHorizontalThickness(mBuilder.mDividerThickness);
+        final int inset = mBuilder.mOverlay ? thickness : 0;
 
         for (int i = 0, childCount = parent.getChildCount(); i < childCount; i++) {
             final View childView = parent.getChildAt(i);
@@ -233,17 +528,19 @@ public class LinearLayoutDivider extends RecyclerView.ItemDecoration {
                     (RecyclerView.LayoutParams) childView.getLayoutParams();
 
             final int layoutPos = parent.getChildLayoutPosition(childView);
-            int left = childView.getRight() + params.rightMargin;
-            int right = left + dividerPainter.calcHorizontalThickness(mBuilder.mDividerThickness);
+            int left = childView.getRight() + params.rightMargin - inset;
+            int right = left + thickness;
             if (i < childCount - 1 || mBuilder.mDrawLastDivider) {
-                if (!mBuilder.mNonDrawPositions.contains(layoutPos)) {
-                    dividerPainter.drawDivider(canvas, left, top, right, bottom);
+                if (!nonDrawPositions.contains(layoutPos)
+                        && (styles == null || !styles.addTrailing(styleTable, layoutPos, false, mBuilder.mOverlay,
+                        childView.getRight() + params.rightMargin, top, bottom))) {
+                    mBatch.add(left, top, right, bottom);
                 }
             }
             if (i == 0 && mBuilder.mDrawFirstDivider) {
-                right = childView.getLeft() - params.leftMargin;
-                left = right - dividerPainter.calcHorizontalThickness(mBuilder.mDividerThickness);
-                dividerPainter.drawDivider(canvas, left, top, right, bottom);
+                right = childView.getLeft() - params.leftMargin + inset;
+                left = right - thickness;
+                mBatch.add(left, top, right, bottom);
             }
         }
     }
@@ -255,39 +552,249 @@ public class LinearLayoutDivider extends RecyclerView.ItemDecoration {
             @NonNull RecyclerView parent,
             @NonNull RecyclerView.State state) {
         super.getItemOffsets(outRect, view, parent, state);
-        @NonNull final IDividerPainter dividerPainter = dividerPainter(parent);
-        final int currentPos = parent.getChildLayoutPosition(view);
-        final int lastPos = state.getItemCount() - 1;
-
-        if (mBuilder.mOrientation == LinearLayoutManager.VERTICAL) {
-            if (currentPos == 0 && mBuilder.mDrawFirstDivider) {
-                outRect.top = dividerPainter.calcVerticalThickness(mBuilder.mDividerThickness);
-            }
-            if ((currentPos == lastPos && !mBuilder.mDrawLastDivider)
-                    || mBuilder.mNonDrawPositions.contains(currentPos)) {
-                outRect.bottom = 0;
+        Trace.beginSection(TRACE_ITEM_OFFSETS);
+        try {
+            mMetrics.mItemOffsetsCount++;
+            if (mBuilder.mOverlay) {
+                outRect.set(0, 0, 0, 0);
             } else {
-                outRect.bottom = dividerPainter.calcVerticalThickness(mBuilder.mDividerThickness);
-            }
-        } else {// horizontal.
-            if (currentPos == 0 && mBuilder.mDrawFirstDivider) {
-                outRect.left = dividerPainter.calcHorizontalThickness(mBuilder.mDividerThickness);
+                computeItemOffsets(outRect, view, parent, state);
             }
-            if ((currentPos == lastPos && !mBuilder.mDrawLastDivider)
-                    || mBuilder.mNonDrawPositions.contains(currentPos)) {
-                outRect.right = 0;
-            } else {
-                outRect.right = dividerPainter.calcHorizontalThickness(mBuilder.mDividerThickness);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void computeItemOffsets(
+            @NonNull Rect outRect,
+            @NonNull View view,
+            @NonNull RecyclerView parent,
+            @NonNull RecyclerView.State state) {
+        @NonNull final LinearState linearState = obtainState(parent);
+        final int currentPos = ItemPositions.position(parent, view, state);
+        final int lastPos = ItemPositions.itemCount(parent, state) - 1;
+
+        int groupFlags = 0;
+        if (currentPos == 0) groupFlags |= GridOffsetEngine.FLAG_FIRST_GROUP;
+        if (currentPos == lastPos) groupFlags |= GridOffsetEngine.FLAG_LAST_GROUP;
+        if (linearState.mNonDrawPositions.contains(currentPos)) {
+            groupFlags |= GridOffsetEngine.FLAG_SKIP_TRAILING;
+        }
+
+        // 线性布局即spanCount为1的网格.
+        final int[] offsets = mOffsets;
+        linearState.mOffsetEngine.getItemOffsets(0, 1, 1, groupFlags, offsets, 0);
+        if (mStyles != null) {
+            final int styleThickness = mStyles.thicknessAt(linearState.mStyleTable, currentPos);
+            if (styleThickness != DividerStyles.NO_STYLE) {
+                // 只替换item之后的分割线.
+                final boolean trailing = (groupFlags & GridOffsetEngine.FLAG_SKIP_TRAILING) == 0
+                        && (currentPos != lastPos || mBuilder.mDrawLastDivider);
+                offsets[mBuilder.mOrientation == LinearLayoutManager.VERTICAL ? 3 : 2] =
+                        trailing ? styleThickness : 0;
             }
         }
+        outRect.set(offsets[0], offsets[1], offsets[2], offsets[3]);
+    }
+
+    /**
+     * 获取parent对应的状态, 首次使用以及Configuration变化时按parent的Context重新解析painter.
+     */
+    @NonNull
+    private LinearState obtainState(@NonNull RecyclerView parent) {
+        final LinearState linearState = mStates.obtain(parent);
+        if (linearState.updateConfiguration(parent) && resolvePainter(parent, linearState)
+                && !mBuilder.mOverlay) {
+            // 新painter的厚度不同(覆盖模式不预留offset, 不受影响).
+            linearState.invalidateItemDecorations(parent);
+        }
+        return linearState;
+    }
+
+    /**
+     * 按parent的Context解析painter以及依赖其厚度的offset计算.
+     *
+     * @return 是否替换了已解析的painter并且厚度发生了变化.
+     */
+    private boolean resolvePainter(@NonNull RecyclerView parent, @NonNull LinearState linearState) {
+        final boolean resolved = linearState.mPainter != null;
+        final IDividerPainter dividerPainter = mBuilder.mLazyPainter.apply(parent.getContext());
+        final boolean vertical = mBuilder.mOrientation == LinearLayoutManager.VERTICAL;
+        final int thickness = vertical
+                ? dividerPainter.calcVerticalThickness(mBuilder.mDividerThickness)
+                : dividerPainter.calcHorizontalThickness(mBuilder.mDividerThickness);
+        final boolean thicknessChanged = resolved && thickness != linearState.mThickness;
+        linearState.mPainter = dividerPainter;
+        linearState.mThickness = thickness;
+        linearState.mOffsetEngine = new GridOffsetEngine(
+                vertical,
+                thickness,
+                0,
+                mBuilder.mDrawFirstDivider,
+                mBuilder.mDrawLastDivider,
+                false);
+        return thicknessChanged;
+    }
+
+    /**
+     * 运行时修改样式, 见{@link #edit()}.
+     */
+    public final class Editor {
+
+        @NonNull
+        private final Builder mSpec;
+
+        Editor(@NonNull Builder base) {
+            mSpec = new Builder(base);
+        }
+
+        public Editor setDividerColor(@ColorInt int color) {
+            mSpec.setDividerColor(color);
+            return this;
+        }
+
+        public Editor setDividerColorRes(@ColorRes int colorRes) {
+            mSpec.setDividerColorRes(colorRes);
+            return this;
+        }
+
+        public Editor setDividerDrawableRes(@DrawableRes int drawableRes) {
+            mSpec.setDividerDrawableRes(drawableRes);
+            return this;
+        }
+
+        public Editor setDividerDrawable(@NonNull Drawable drawable) {
+            mSpec.setDividerDrawable(drawable);
+            return this;
+        }
+
+        public Editor setPainter(@NonNull IDividerPainter painter) {
+            mSpec.setPainter(painter);
+            return this;
+        }
+
+        public Editor setLazyPainter(@NonNull Function<Context, IDividerPainter> lazyPainter) {
+            mSpec.setLazyPainter(lazyPainter);
+            return this;
+        }
+
+        public Editor setStartPadding(int startPadding) {
+            mSpec.setStartPadding(startPadding);
+            return this;
+        }
+
+        public Editor setEndPadding(int endPadding) {
+            mSpec.setEndPadding(endPadding);
+            return this;
+        }
+
+        public Editor setDividerThickness(int dividerThickness) {
+            mSpec.setDividerThickness(dividerThickness);
+            return this;
+        }
+
+        public Editor drawFirstDivider(boolean isDraw) {
+            mSpec.drawFirstDivider(isDraw);
+            return this;
+        }
+
+        public Editor drawLastDivider(boolean isDraw) {
+            mSpec.drawLastDivider(isDraw);
+            return this;
+        }
+
+        /**
+         * 提交修改, 在下一帧生效.
+         */
+        @MainThread
+        public void commit() {
+            mPendingSpec = mSpec;
+            mPendingUpdate.schedule();
+        }
     }
 
     @NonNull
-    private IDividerPainter dividerPainter(@NonNull RecyclerView recyclerView) {
-        if (mDividerPainter == null) {
-            mDividerPainter = mBuilder.mLazyPainter.apply(recyclerView.getContext());
+    private LinearState newState() {
+        return new LinearState(mBuilder.mNonDrawPositions, mStyles != null);
+    }
+
+    /**
+     * 单个RecyclerView的状态: Builder中配置的不画分割线的位置的一份拷贝,
+     * 数据插入/删除/移动时跟随item平移, notifyDataSetChanged()时恢复为Builder中的配置.
+     * <p>
+     * painter以及依赖其厚度的offset计算按parent当前的Configuration解析.
+     */
+    private static final class LinearState extends ParentStates.State {
+
+        @NonNull
+        private final PositionRules mConfigured;
+
+        final PositionRules mNonDrawPositions = new PositionRules();
+
+        /**
+         * 每个position的styleId, 没有设置provider时为null.
+         */
+        @Nullable
+        final StyleTable mStyleTable;
+
+        IDividerPainter mPainter;
+
+        /**
+         * 按mPainter换算后的厚度.
+         */
+        int mThickness;
+
+        GridOffsetEngine mOffsetEngine;
+
+        LinearState(@NonNull PositionRules configured, boolean styled) {
+            mConfigured = configured;
+            mStyleTable = styled ? new StyleTable() : null;
+        }
+
+        @Override
+        void onDataChanged() {
+            mNonDrawPositions.copyFrom(mConfigured);
+            if (mStyleTable != null) mStyleTable.clear();
+        }
+
+        @Override
+        void onRangeChanged(int positionStart, int itemCount) {
+            // 内容变化的item由RecyclerView自行标记, 下次计算offset时重新查询样式.
+            if (mStyleTable != null) mStyleTable.onItemRangeChanged(positionStart, itemCount);
         }
 
-        return mDividerPainter;
+        @Override
+        void onRangeInserted(int positionStart, int itemCount) {
+            final int oldItemCount = adapterItemCount() - itemCount;
+            // 原来的第一个item不再是第一个, 原来的最后一个不再是最后一个.
+            if (positionStart == 0) markOffsetsDirty(0, 0);
+            if (positionStart == oldItemCount) markOffsetsDirty(positionStart - 1, positionStart - 1);
+            if (mNonDrawPositions.hasStrides()) markOffsetsDirty(positionStart, Integer.MAX_VALUE);
+            mNonDrawPositions.onItemRangeInserted(positionStart, itemCount);
+            if (mStyleTable != null) mStyleTable.onItemRangeInserted(positionStart, itemCount);
+        }
+
+        @Override
+        void onRangeRemoved(int positionStart, int itemCount) {
+            final int removedEnd = positionStart + itemCount;
+            // 新的第一个/最后一个item.
+            if (positionStart == 0) markOffsetsDirty(removedEnd, removedEnd);
+            if (removedEnd == adapterItemCount() + itemCount) markOffsetsDirty(positionStart - 1, positionStart - 1);
+            if (mNonDrawPositions.hasStrides()) markOffsetsDirty(removedEnd, Integer.MAX_VALUE);
+            mNonDrawPositions.onItemRangeRemoved(positionStart, itemCount);
+            if (mStyleTable != null) mStyleTable.onItemRangeRemoved(positionStart, itemCount);
+        }
+
+        @Override
+        void onRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            // 区间规则跟随被移动的item, 只有首尾和步长命中可能变化.
+            final int from = Math.min(fromPosition, toPosition);
+            final int to = Math.max(fromPosition, toPosition);
+            if (from == 0 || to == adapterItemCount() - 1 || mNonDrawPositions.hasStrides()) {
+                markOffsetsDirty(from, to);
+            }
+            mNonDrawPositions.onItemRangeMoved(fromPosition, toPosition, itemCount);
+            if (mStyleTable != null) mStyleTable.onItemRangeMoved(fromPosition, toPosition, itemCount);
+        }
     }
 }
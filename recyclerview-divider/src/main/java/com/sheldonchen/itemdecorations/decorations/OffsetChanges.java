@@ -0,0 +1,84 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.graphics.Rect;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.ItemDecorInsetsAccessor;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * 样式修改前后分别计算已布局child的offset, 只标记offset真正变化的child重新计算,
+ * 代替使所有child失效的invalidateItemDecorations().
+ */
+
+final class OffsetChanges {
+
+    interface OffsetSource {
+        void computeItemOffsets(@NonNull Rect outRect, @NonNull View view,
+                                @NonNull RecyclerView parent, @NonNull RecyclerView.State state);
+    }
+
+    @NonNull
+    private final RecyclerView mParent;
+
+    /**
+     * 修改之前每个child的offset: left, top, right, bottom.
+     */
+    @NonNull
+    private final int[] mBefore;
+
+    private final Rect mRect = new Rect();
+
+    private OffsetChanges(@NonNull RecyclerView parent, int childCount) {
+        mParent = parent;
+        mBefore = new int[childCount * 4];
+    }
+
+    /**
+     * 记录修改之前的offset, 必须在修改样式之前调用.
+     */
+    @NonNull
+    static OffsetChanges record(@NonNull RecyclerView parent, @NonNull OffsetSource source) {
+        final int childCount = parent.getChildCount();
+        final OffsetChanges changes = new OffsetChanges(parent, childCount);
+        final RecyclerView.State state = ItemDecorInsetsAccessor.state(parent);
+        final Rect rect = changes.mRect;
+        for (int i = 0, offset = 0; i < childCount; i++, offset += 4) {
+            source.computeItemOffsets(rect, parent.getChildAt(i), parent, state);
+            changes.mBefore[offset] = rect.left;
+            changes.mBefore[offset + 1] = rect.top;
+            changes.mBefore[offset + 2] = rect.right;
+            changes.mBefore[offset + 3] = rect.bottom;
+        }
+        return changes;
+    }
+
+    /**
+     * 按修改之后的样式重新计算, 标记offset变化的child并请求布局.
+     *
+     * @return 被标记的child数量.
+     */
+    int markChanged(@NonNull OffsetSource source) {
+        final RecyclerView parent = mParent;
+        final int childCount = Math.min(parent.getChildCount(), mBefore.length / 4);
+        final RecyclerView.State state = ItemDecorInsetsAccessor.state(parent);
+        final Rect rect = mRect;
+        int marked = 0;
+        for (int i = 0, offset = 0; i < childCount; i++, offset += 4) {
+            final View child = parent.getChildAt(i);
+            source.computeItemOffsets(rect, child, parent, state);
+            if (rect.left != mBefore[offset] || rect.top != mBefore[offset + 1]
+                    || rect.right != mBefore[offset + 2] || rect.bottom != mBefore[offset + 3]) {
+                ItemDecorInsetsAccessor.markDirty(child);
+                marked++;
+            }
+        }
+        if (marked > 0) {
+            // 缓存中的View滚动回来时不会重新绑定, 无法逐个比较, 全部标记.
+            ItemDecorInsetsAccessor.markCachedViewsDirty(parent);
+            parent.requestLayout();
+        }
+        return marked;
+    }
+}
@@ -0,0 +1,318 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.ItemDecorInsetsAccessor;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.sheldonchen.itemdecorations.painter.PainterCache;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * 同一个ItemDecoration可以通过Builder.apply(RecyclerView...)添加到多个RecyclerView上,
+ * 每个RecyclerView各自持有一份与Adapter绑定的状态.
+ * <p>
+ * 最近一次访问的RecyclerView走引用比较的快速路径, 其余的存放在WeakHashMap中.
+ */
+
+final class ParentStates<S extends ParentStates.State> {
+
+    interface Factory<S> {
+        @NonNull
+        S create();
+    }
+
+    /**
+     * 与某个RecyclerView的Adapter绑定的状态, 通过AdapterDataObserver接收数据变化.
+     */
+    abstract static class State extends RecyclerView.AdapterDataObserver {
+
+        @Nullable
+        private RecyclerView.Adapter<?> mAdapter;
+
+        /**
+         * 持有这份状态的decoration, 从parent上移除后停止接收Adapter的通知.
+         */
+        @Nullable
+        RecyclerView.ItemDecoration mDecoration;
+
+        /**
+         * 状态所属的RecyclerView, 弱引用: 状态本身被ParentStates中以parent为key的WeakHashMap持有.
+         */
+        @NonNull
+        private WeakReference<RecyclerView> mParent = new WeakReference<>(null);
+
+        @Nullable
+        private DividerLayerCache mLayerCache;
+
+        /**
+         * 解析painter时parent的Configuration, 见{@link PainterCache#configKey}.
+         */
+        private int mConfigKey = -1;
+
+        /**
+         * 是否已经post了一次布局之后的invalidateItemDecorations().
+         */
+        private boolean mInvalidatePosted = false;
+
+        private final Runnable mInvalidateAfterLayout = () -> {
+            mInvalidatePosted = false;
+            final RecyclerView parent = mParent.get();
+            if (parent != null) {
+                invalidateItemDecorations(parent);
+            }
+        };
+
+        /**
+         * parent的Configuration(uiMode, density)是否与上次解析painter时不同,
+         * 不同时丢弃已录制的显示列表, 调用方需要重新解析painter.
+         */
+        final boolean updateConfiguration(@NonNull RecyclerView parent) {
+            final int configKey = PainterCache.configKey(parent.getResources().getConfiguration());
+            if (configKey == mConfigKey) return false;
+
+            mConfigKey = configKey;
+            invalidateLayers();
+            return true;
+        }
+
+        /**
+         * 样式在运行时被修改: 下一次updateConfiguration()返回true, 丢弃已录制的显示列表并重新解析painter.
+         */
+        final void invalidateStyle() {
+            mConfigKey = -1;
+        }
+
+        /**
+         * 使parent所有child的offset失效. 布局过程中(例如在getItemOffsets中重新解析painter)
+         * 不能调用invalidateItemDecorations(), 推迟到这次布局之后, 否则已布局的child会保留旧的offset.
+         */
+        final void invalidateItemDecorations(@NonNull RecyclerView parent) {
+            if (!parent.isComputingLayout()) {
+                parent.invalidateItemDecorations();
+            } else if (!mInvalidatePosted) {
+                mInvalidatePosted = true;
+                parent.post(mInvalidateAfterLayout);
+            }
+        }
+
+        /**
+         * 分割线显示列表缓存, 首次使用时创建.
+         */
+        @NonNull
+        final DividerLayerCache layerCache() {
+            if (mLayerCache == null) {
+                mLayerCache = new DividerLayerCache();
+            }
+            return mLayerCache;
+        }
+
+        /**
+         * Adapter发生替换时重新注册Observer, 并丢弃所有基于旧数据的状态.
+         */
+        final void bindAdapter(@NonNull RecyclerView parent) {
+            if (mParent.get() != parent) {
+                mParent = new WeakReference<>(parent);
+            }
+            final RecyclerView.Adapter<?> adapter = parent.getAdapter();
+            if (adapter == mAdapter) return;
+
+            if (mAdapter != null) {
+                mAdapter.unregisterAdapterDataObserver(this);
+            }
+            mAdapter = adapter;
+            if (adapter != null) {
+                // 晚于RecyclerView自身的Observer注册, Adapter倒序分发通知, 所以回调时RecyclerView还没有记录这次变化.
+                adapter.registerAdapterDataObserver(this);
+            }
+            invalidateLayers();
+            onDataChanged();
+        }
+
+        /**
+         * 通知到达时: 状态已失效则注销Observer; 否则丢弃已录制的显示列表,
+         * 样式表和规则的结果可能改变, 而child不一定移动(例如onItemRangeChanged).
+         *
+         * @return 是否需要继续分发给子类.
+         */
+        private boolean acceptNotification() {
+            if (unregisterIfStale()) return false;
+            invalidateLayers();
+            return true;
+        }
+
+        private void invalidateLayers() {
+            if (mLayerCache != null) {
+                mLayerCache.invalidate();
+            }
+        }
+
+        /**
+         * parent已被回收、decoration已被移除或者parent换了Adapter时注销Observer,
+         * 否则Adapter会一直持有这份状态(以及decoration). 下次obtain()时重新注册.
+         * Adapter倒序分发通知, 在回调中注销是安全的.
+         *
+         * @return 是否已注销.
+         */
+        private boolean unregisterIfStale() {
+            final RecyclerView parent = mParent.get();
+            if (parent != null && parent.getAdapter() == mAdapter
+                    && mDecoration != null && hasDecoration(parent, mDecoration)) {
+                return false;
+            }
+            if (mAdapter != null) {
+                mAdapter.unregisterAdapterDataObserver(this);
+                mAdapter = null;
+            }
+            return true;
+        }
+
+        @Nullable
+        final RecyclerView parent() {
+            return mParent.get();
+        }
+
+        /**
+         * Adapter当前的item数量, 在通知回调中即为变化之后的数量.
+         */
+        final int adapterItemCount() {
+            return mAdapter != null ? mAdapter.getItemCount() : 0;
+        }
+
+        /**
+         * 只标记Adapter position(变化之前)在[fromPosition, toPosition]内的已布局child重新计算offset,
+         * 在这次Adapter通知触发的布局中生效, 代替使所有child失效的invalidateItemDecorations().
+         * 只能在Adapter通知的回调中调用.
+         */
+        final void markOffsetsDirty(int fromPosition, int toPosition) {
+            final RecyclerView parent = mParent.get();
+            if (parent == null || fromPosition > toPosition) return;
+
+            boolean marked = false;
+            for (int i = parent.getChildCount() - 1; i >= 0; i--) {
+                final View child = parent.getChildAt(i);
+                // 已应用之前尚未布局的变化, 连续多次通知时position仍然准确.
+                final int pos = parent.getChildAdapterPosition(child);
+                if (pos >= fromPosition && pos <= toPosition) {
+                    ItemDecorInsetsAccessor.markDirty(child);
+                    marked = true;
+                }
+            }
+            if (marked) {
+                // 缓存中的View滚动回来时不会重新绑定, 否则会带着旧的offset重新出现.
+                ItemDecorInsetsAccessor.markCachedViewsDirty(parent);
+            }
+        }
+
+        @Override
+        public final void onChanged() {
+            if (!acceptNotification()) return;
+            onDataChanged();
+        }
+
+        @Override
+        public final void onItemRangeChanged(int positionStart, int itemCount) {
+            if (!acceptNotification()) return;
+            onRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        public final void onItemRangeChanged(int positionStart, int itemCount, @Nullable Object payload) {
+            if (!acceptNotification()) return;
+            onRangeChanged(positionStart, itemCount);
+        }
+
+        @Override
+        public final void onItemRangeInserted(int positionStart, int itemCount) {
+            if (!acceptNotification()) return;
+            onRangeInserted(positionStart, itemCount);
+        }
+
+        @Override
+        public final void onItemRangeRemoved(int positionStart, int itemCount) {
+            if (!acceptNotification()) return;
+            onRangeRemoved(positionStart, itemCount);
+        }
+
+        @Override
+        public final void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            if (!acceptNotification()) return;
+            onRangeMoved(fromPosition, toPosition, itemCount);
+        }
+
+        /**
+         * 以下回调只在状态仍然有效(parent、decoration、Adapter都没有变化)时分发.
+         */
+        abstract void onDataChanged();
+
+        abstract void onRangeChanged(int positionStart, int itemCount);
+
+        abstract void onRangeInserted(int positionStart, int itemCount);
+
+        abstract void onRangeRemoved(int positionStart, int itemCount);
+
+        abstract void onRangeMoved(int fromPosition, int toPosition, int itemCount);
+    }
+
+    @NonNull
+    private final RecyclerView.ItemDecoration mDecoration;
+
+    @NonNull
+    private final Factory<S> mFactory;
+
+    private final WeakHashMap<RecyclerView, S> mStates = new WeakHashMap<>();
+
+    /**
+     * 上一次返回的状态, 通过它自身弱引用的parent判断是否命中, 在RecyclerView之间交替时也不分配内存.
+     */
+    @Nullable
+    private S mLastState;
+
+    ParentStates(@NonNull RecyclerView.ItemDecoration decoration, @NonNull Factory<S> factory) {
+        mDecoration = decoration;
+        mFactory = factory;
+    }
+
+    /**
+     * 获取parent对应的状态, 并确保其与parent当前的Adapter绑定.
+     */
+    @NonNull
+    S obtain(@NonNull RecyclerView parent) {
+        S state = mLastState;
+        if (state == null || state.parent() != parent) {
+            state = mStates.get(parent);
+            if (state == null) {
+                state = mFactory.create();
+                state.mDecoration = mDecoration;
+                mStates.put(parent, state);
+            }
+            mLastState = state;
+        }
+        // 首次使用时记录parent.
+        state.bindAdapter(parent);
+        return state;
+    }
+
+    /**
+     * 收集仍然添加了decoration的RecyclerView(已经移除decoration的不再需要更新).
+     */
+    void collectAttachedParents(@NonNull List<RecyclerView> out) {
+        for (RecyclerView parent : mStates.keySet()) {
+            if (parent != null && hasDecoration(parent, mDecoration)) {
+                out.add(parent);
+            }
+        }
+    }
+
+    static boolean hasDecoration(@NonNull RecyclerView parent, @NonNull RecyclerView.ItemDecoration decoration) {
+        for (int i = parent.getItemDecorationCount() - 1; i >= 0; i--) {
+            if (parent.getItemDecorationAt(i) == decoration) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,144 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sheldonchen.itemdecorations.CheckUtil;
+import com.sheldonchen.itemdecorations.painter.DrawablePainter;
+import com.sheldonchen.itemdecorations.painter.PainterCache;
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+
+/**
+ * {@link SectionedDivider}中一段的分割线规则.
+ * <p>
+ * spanCount为1时即线性布局; 大于1时段内的item按spanCount列(横向列表为行)依次排列,
+ * 与GridLayoutDivider的offset规则相同. 没有设置painter的段不画分割线, 也不留出offset.
+ */
+
+public final class SectionSpec {
+
+    public static final class Builder {
+
+        int mSpanCount = 1;
+
+        int mDividerThickness = 0;
+
+        int mSideDividerThickness = 0;
+
+        /**
+         * 是否画段内第一行(列)之前的分割线.
+         */
+        boolean mDrawLeadingDivider = false;
+
+        /**
+         * 是否画段内最后一行(列)之后的分割线.
+         */
+        boolean mDrawTrailingDivider = true;
+
+        /**
+         * 是否画两侧边缘的分割线.
+         */
+        boolean mDrawSideEdges = false;
+
+        IDividerPainter mPainter = null;
+
+        IDividerPainter mSidePainter = null;
+
+        public Builder setSpanCount(int spanCount) {
+            this.mSpanCount = Math.max(1, spanCount);
+            return this;
+        }
+
+        public Builder setDividerThickness(int dividerThickness) {
+            this.mDividerThickness = CheckUtil.ensureNatural(dividerThickness);
+            return this;
+        }
+
+        public Builder setSideDividerThickness(int sideDividerThickness) {
+            this.mSideDividerThickness = CheckUtil.ensureNatural(sideDividerThickness);
+            return this;
+        }
+
+        public Builder drawLeadingDivider(boolean draw) {
+            this.mDrawLeadingDivider = draw;
+            return this;
+        }
+
+        public Builder drawTrailingDivider(boolean draw) {
+            this.mDrawTrailingDivider = draw;
+            return this;
+        }
+
+        public Builder drawSideEdges(boolean draw) {
+            this.mDrawSideEdges = draw;
+            return this;
+        }
+
+        public Builder setDividerColor(@ColorInt int color) {
+            return setPainter(PainterCache.colorPainter(color));
+        }
+
+        public Builder setSideDividerColor(@ColorInt int color) {
+            return setSidePainter(PainterCache.colorPainter(color));
+        }
+
+        public Builder setDividerDrawable(@NonNull Drawable drawable) {
+            return setPainter(new DrawablePainter(drawable));
+        }
+
+        public Builder setPainter(@NonNull IDividerPainter painter) {
+            this.mPainter = this.mSidePainter = painter;
+            return this;
+        }
+
+        public Builder setSidePainter(@NonNull IDividerPainter painter) {
+            this.mSidePainter = painter;
+            return this;
+        }
+
+        public SectionSpec build() {
+            return new SectionSpec(this);
+        }
+    }
+
+    /**
+     * 不画分割线的段.
+     */
+    public static final SectionSpec NONE = new Builder().build();
+
+    final int mSpanCount;
+
+    final int mDividerThickness;
+
+    final int mSideDividerThickness;
+
+    final boolean mDrawLeadingDivider;
+
+    final boolean mDrawTrailingDivider;
+
+    final boolean mDrawSideEdges;
+
+    @Nullable
+    final IDividerPainter mPainter;
+
+    @Nullable
+    final IDividerPainter mSidePainter;
+
+    private SectionSpec(@NonNull Builder builder) {
+        mSpanCount = builder.mSpanCount;
+        mDividerThickness = builder.mDividerThickness;
+        mSideDividerThickness = builder.mSideDividerThickness;
+        mDrawLeadingDivider = builder.mDrawLeadingDivider;
+        mDrawTrailingDivider = builder.mDrawTrailingDivider;
+        mDrawSideEdges = builder.mDrawSideEdges;
+        mPainter = builder.mPainter;
+        mSidePainter = builder.mSidePainter;
+    }
+
+    boolean isEmpty() {
+        return mPainter == null;
+    }
+}
@@ -0,0 +1,436 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.Preconditions;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.tracing.Trace;
+
+import com.sheldonchen.itemdecorations.annotation.DecorationOrientType;
+import com.sheldonchen.itemdecorations.geometry.GridOffsetEngine;
+import com.sheldonchen.itemdecorations.painter.base.DividerBatch;
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+import com.sheldonchen.itemdecorations.rules.SectionTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 适用于由多段内容(头部, 横向推荐位, 网格, 列表, 尾部...)拼接成一个Adapter的RecyclerView,
+ * 每一段按各自的{@link SectionSpec}画分割线.
+ * <p>
+ * 一帧只遍历一次child: 每个child按position二分查找所在的段, 用段内position计算offset以及分割线.
+ * 段的边界随Adapter的数据变化平移.
+ */
+
+public class SectionedDivider extends RecyclerView.ItemDecoration {
+
+    public static final class Builder {
+
+        /**
+         * RecyclerView布局方向.
+         */
+        @DecorationOrientType
+        int mOrientation = LinearLayoutManager.VERTICAL;
+
+        final List<SectionSpec> mSpecs = new ArrayList<>();
+
+        /**
+         * 每一段的起点以及在mSpecs中的下标.
+         */
+        final SectionTable mSections = new SectionTable();
+
+        /**
+         * 统计回调, 为null时不统计耗时.
+         */
+        @Nullable
+        IDividerMetricsListener mMetricsListener = null;
+
+        public Builder() {
+        }
+
+        Builder(@NonNull Builder other) {
+            mOrientation = other.mOrientation;
+            mSpecs.addAll(other.mSpecs);
+            mSections.copyFrom(other.mSections);
+            mMetricsListener = other.mMetricsListener;
+        }
+
+        public Builder setOrientation(@DecorationOrientType int orientation) {
+            this.mOrientation = orientation;
+            return this;
+        }
+
+        /**
+         * 添加一段, 从startPosition开始直到下一段的起点. 起点需要按顺序添加.
+         */
+        public Builder addSection(int startPosition, @NonNull SectionSpec spec) {
+            int index = mSpecs.indexOf(spec);
+            if (index < 0) {
+                index = mSpecs.size();
+                mSpecs.add(spec);
+            }
+            mSections.add(startPosition, index);
+            return this;
+        }
+
+        public Builder setMetricsListener(@Nullable IDividerMetricsListener listener) {
+            this.mMetricsListener = listener;
+            return this;
+        }
+
+        public SectionedDivider build() {
+            return new SectionedDivider(this);
+        }
+
+        public void apply(RecyclerView recyclerView) {
+            if (recyclerView == null) return;
+
+            recyclerView.addItemDecoration(build());
+        }
+
+        public void apply(RecyclerView... recyclerViews) {
+            if (recyclerViews == null || recyclerViews.length == 0) return;
+
+            SectionedDivider divider = build();
+            for (RecyclerView recyclerView : recyclerViews) {
+                recyclerView.addItemDecoration(divider);
+            }
+        }
+    }
+
+    private static final String TRACE_ON_DRAW = "SectionedDivider#onDraw";
+    private static final String TRACE_ITEM_OFFSETS = "SectionedDivider#getItemOffsets";
+
+    private final Builder mBuilder;
+
+    private final SectionSpec[] mSpecs;
+
+    private final GridOffsetEngine[] mOffsetEngines;
+
+    /**
+     * 每个spec经painter解析之后的列表方向以及侧边分割线的厚度.
+     */
+    private final int[] mThicknesses;
+
+    private final int[] mSideThicknesses;
+
+    /**
+     * 每个spec各自的分割线, painter与side painter相同时共用一个batch.
+     */
+    private final DividerBatch[] mBatches;
+
+    private final DividerBatch[] mSideBatches;
+
+    /**
+     * 每个RecyclerView各自的分段边界, 随Adapter的数据变化平移.
+     */
+    private final ParentStates<SectionState> mStates;
+
+    /**
+     * getItemOffsets的输出缓冲: left, top, right, bottom.
+     */
+    private final int[] mOffsets = new int[4];
+
+    private final DividerFrameMetrics mMetrics = new DividerFrameMetrics();
+
+    // locate()的输出: 段内的列(横向列表为行), 行(列), 以及最后一行(列).
+
+    private int mLocalColumn;
+
+    private int mLocalRow;
+
+    private int mLocalLastRow;
+
+    private SectionedDivider(@NonNull Builder builder) {
+        Preconditions.checkNotNull(builder, "SectionedDivider: mBuilder can't be null.");
+        // 拷贝一份, 之后继续调用Builder.addSection()不会影响已经创建的Divider.
+        this.mBuilder = new Builder(builder);
+
+        final int specCount = mBuilder.mSpecs.size();
+        final boolean vertical = mBuilder.mOrientation == LinearLayoutManager.VERTICAL;
+        mSpecs = mBuilder.mSpecs.toArray(new SectionSpec[specCount]);
+        this.mStates = new ParentStates<>(this, () -> new SectionState(mBuilder.mSections, mSpecs));
+        mOffsetEngines = new GridOffsetEngine[specCount];
+        mThicknesses = new int[specCount];
+        mSideThicknesses = new int[specCount];
+        mBatches = new DividerBatch[specCount];
+        mSideBatches = new DividerBatch[specCount];
+        for (int i = 0; i < specCount; i++) {
+            final SectionSpec spec = mSpecs[i];
+            resolveThickness(i, spec, vertical);
+            mOffsetEngines[i] = new GridOffsetEngine(
+                    vertical,
+                    mThicknesses[i],
+                    mSideThicknesses[i],
+                    spec.mDrawLeadingDivider,
+                    spec.mDrawTrailingDivider,
+                    spec.mDrawSideEdges);
+            mBatches[i] = new DividerBatch();
+            mSideBatches[i] = spec.mSidePainter == spec.mPainter ? mBatches[i] : new DividerBatch();
+        }
+    }
+
+    /**
+     * 与GridLayoutDivider相同: 列表方向的分割线在纵向列表中是横线, 按calcVerticalThickness()计算厚度, 侧边分割线反之.
+     */
+    private void resolveThickness(int index, SectionSpec spec, boolean vertical) {
+        int thickness = spec.mDividerThickness;
+        int sideThickness = spec.mSideDividerThickness;
+        if (spec.mPainter != null && spec.mSidePainter != null) {
+            thickness = vertical
+                    ? spec.mPainter.calcVerticalThickness(thickness)
+                    : spec.mPainter.calcHorizontalThickness(thickness);
+            sideThickness = vertical
+                    ? spec.mSidePainter.calcHorizontalThickness(sideThickness)
+                    : spec.mSidePainter.calcVerticalThickness(sideThickness);
+        }
+        mThicknesses[index] = thickness;
+        mSideThicknesses[index] = sideThickness;
+    }
+
+    @Override
+    public void onDraw(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        super.onDraw(canvas, parent, state);
+        Trace.beginSection(TRACE_ON_DRAW);
+        try {
+            final IDividerMetricsListener listener = mBuilder.mMetricsListener;
+            final long start = listener != null ? System.nanoTime() : 0L;
+            drawSections(canvas, parent, state.getItemCount());
+            if (listener != null) {
+                mMetrics.report(listener, parent, start);
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void drawSections(Canvas canvas, RecyclerView parent, int itemCount) {
+        final SectionTable sections = mStates.obtain(parent).mSections;
+        final boolean vertical = mBuilder.mOrientation == LinearLayoutManager.VERTICAL;
+
+        for (int i = 0, childCount = parent.getChildCount(); i < childCount; i++) {
+            final View child = parent.getChildAt(i);
+            final int pos = parent.getChildLayoutPosition(child);
+            if (pos < 0 || pos >= itemCount) continue;
+
+            final int specIndex = locate(sections, pos, itemCount);
+            if (specIndex < 0) continue;
+
+            final SectionSpec spec = mSpecs[specIndex];
+            final RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) child.getLayoutParams();
+            final DividerBatch batch = mBatches[specIndex];
+            final DividerBatch sideBatch = mSideBatches[specIndex];
+            final int thickness = mThicknesses[specIndex];
+            final int sideThickness = mSideThicknesses[specIndex];
+            final boolean firstRow = mLocalRow == 0;
+            final boolean lastRow = mLocalRow == mLocalLastRow;
+            final boolean firstColumn = mLocalColumn == 0;
+            final boolean lastColumn = mLocalColumn == spec.mSpanCount - 1;
+
+            if (vertical) {
+                // 画水平分隔线.
+                int left = child.getLeft();
+                int right = child.getRight();
+                if (!lastRow || spec.mDrawTrailingDivider) {
+                    final int top = child.getBottom() + layoutParams.bottomMargin;
+                    batch.add(left, top, right, top + thickness);
+                }
+                if (firstRow && spec.mDrawLeadingDivider) {
+                    final int bottom = child.getTop() - layoutParams.topMargin;
+                    batch.add(left, bottom - thickness, right, bottom);
+                }
+
+                // 画竖直分隔线.
+                final int top = child.getTop();
+                final int bottom = child.getBottom();
+                if (!lastColumn || spec.mDrawSideEdges) {
+                    left = child.getRight() + layoutParams.rightMargin;
+                    sideBatch.add(left, top, left + sideThickness, bottom);
+                }
+                if (firstColumn && spec.mDrawSideEdges) {
+                    right = child.getLeft() - layoutParams.leftMargin;
+                    sideBatch.add(right - sideThickness, top, right, bottom);
+                }
+            } else {
+                // 画竖直分隔线.
+                int top = child.getTop();
+                int bottom = child.getBottom();
+                if (!lastRow || spec.mDrawTrailingDivider) {
+                    final int left = child.getRight() + layoutParams.rightMargin;
+                    batch.add(left, top, left + thickness, bottom);
+                }
+                if (firstRow && spec.mDrawLeadingDivider) {
+                    final int right = child.getLeft() - layoutParams.leftMargin;
+                    batch.add(right - thickness, top, right, bottom);
+                }
+
+                // 画水平分隔线.
+                final int left = child.getLeft();
+                final int right = child.getRight();
+                if (!lastColumn || spec.mDrawSideEdges) {
+                    top = child.getBottom() + layoutParams.bottomMargin;
+                    sideBatch.add(left, top, right, top + sideThickness);
+                }
+                if (firstColumn && spec.mDrawSideEdges) {
+                    bottom = child.getTop() - layoutParams.topMargin;
+                    sideBatch.add(left, bottom - sideThickness, right, bottom);
+                }
+            }
+        }
+
+        for (int i = 0; i < mSpecs.length; i++) {
+            final IDividerPainter painter = mSpecs[i].mPainter;
+            final IDividerPainter sidePainter = mSpecs[i].mSidePainter;
+            if (painter == null || sidePainter == null) continue;
+
+            painter.beginFrame(canvas);
+            mMetrics.onFlush(mBatches[i].flush(canvas, painter));
+            painter.endFrame(canvas);
+            if (mSideBatches[i] != mBatches[i]) {
+                sidePainter.beginFrame(canvas);
+                mMetrics.onFlush(mSideBatches[i].flush(canvas, sidePainter));
+                sidePainter.endFrame(canvas);
+            }
+        }
+    }
+
+    @Override
+    public void getItemOffsets(@NonNull Rect outRect, @NonNull View view,
+                               @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        Trace.beginSection(TRACE_ITEM_OFFSETS);
+        try {
+            mMetrics.mItemOffsetsCount++;
+            computeItemOffsets(outRect, view, parent, state);
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void computeItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+        final int pos = ItemPositions.position(parent, view, state);
+        final int itemCount = ItemPositions.itemCount(parent, state);
+        if (pos < 0 || pos >= itemCount) {
+            outRect.set(0, 0, 0, 0);
+            return;
+        }
+
+        final int specIndex = locate(mStates.obtain(parent).mSections, pos, itemCount);
+        if (specIndex < 0) {
+            outRect.set(0, 0, 0, 0);
+            return;
+        }
+
+        int groupFlags = 0;
+        if (mLocalRow == 0) groupFlags |= GridOffsetEngine.FLAG_FIRST_GROUP;
+        if (mLocalRow == mLocalLastRow) groupFlags |= GridOffsetEngine.FLAG_LAST_GROUP;
+
+        final int[] offsets = mOffsets;
+        mOffsetEngines[specIndex].getItemOffsets(
+                mLocalColumn, 1, mSpecs[specIndex].mSpanCount, groupFlags, offsets, 0);
+        outRect.set(offsets[0], offsets[1], offsets[2], offsets[3]);
+    }
+
+    /**
+     * 查找pos所在的段, 把段内的列/行写入mLocalColumn, mLocalRow, mLocalLastRow.
+     *
+     * @return spec的下标, 不在任何段内或者该段不画分割线时返回-1.
+     */
+    private int locate(SectionTable sections, int pos, int itemCount) {
+        final int section = sections.findSection(pos);
+        if (section < 0) return -1;
+
+        final int specIndex = sections.getSpec(section);
+        final SectionSpec spec = mSpecs[specIndex];
+        if (spec.isEmpty()) return -1;
+
+        final int start = sections.getStart(section);
+        final int size = sections.getEnd(section, itemCount) - start;
+        final int local = pos - start;
+        final int spanCount = spec.mSpanCount;
+        mLocalColumn = local % spanCount;
+        mLocalRow = local / spanCount;
+        mLocalLastRow = (size - 1) / spanCount;
+        return specIndex;
+    }
+
+    /**
+     * 单个RecyclerView的状态: Builder中配置的分段边界的一份拷贝,
+     * 数据插入/删除/移动时跟随item平移, notifyDataSetChanged()时恢复为Builder中的配置.
+     * <p>
+     * 其它段的段内position不受影响, 数据变化时只需重新计算所在段中变化点之后以及最后一行(列)的offset.
+     */
+    private static final class SectionState extends ParentStates.State {
+
+        @NonNull
+        private final SectionTable mConfigured;
+
+        @NonNull
+        private final SectionSpec[] mSpecs;
+
+        final SectionTable mSections = new SectionTable();
+
+        SectionState(@NonNull SectionTable configured, @NonNull SectionSpec[] specs) {
+            mConfigured = configured;
+            mSpecs = specs;
+        }
+
+        private int spanCountOf(int section) {
+            return mSpecs[mSections.getSpec(section)].mSpanCount;
+        }
+
+        @Override
+        void onDataChanged() {
+            mSections.copyFrom(mConfigured);
+        }
+
+        @Override
+        void onRangeChanged(int positionStart, int itemCount) {
+        }
+
+        @Override
+        void onRangeInserted(int positionStart, int itemCount) {
+            final SectionTable sections = mSections;
+            // 与SectionTable相同的归属规则: 交界处插入的item归属前一段.
+            int section = sections.findSection(positionStart);
+            if (positionStart > 0) {
+                while (section > 0 && sections.getStart(section) == positionStart) section--;
+            }
+            if (section >= 0) {
+                final int start = sections.getStart(section);
+                final int end = sections.getEnd(section, adapterItemCount() - itemCount);
+                markOffsetsDirty(Math.max(start, Math.min(positionStart, end - spanCountOf(section))), end - 1);
+            }
+            sections.onItemRangeInserted(positionStart, itemCount);
+        }
+
+        @Override
+        void onRangeRemoved(int positionStart, int itemCount) {
+            final SectionTable sections = mSections;
+            final int last = sections.findSection(positionStart + itemCount - 1);
+            if (last >= 0) {
+                final int first = Math.max(0, sections.findSection(positionStart));
+                final int spanCount = Math.max(spanCountOf(first), spanCountOf(last));
+                final int end = sections.getEnd(last, adapterItemCount() + itemCount);
+                markOffsetsDirty(Math.max(sections.getStart(first), positionStart - spanCount), end - 1);
+            }
+            sections.onItemRangeRemoved(positionStart, itemCount);
+        }
+
+        @Override
+        void onRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            final SectionTable sections = mSections;
+            final int last = sections.findSection(Math.max(fromPosition, toPosition));
+            if (last >= 0) {
+                final int first = Math.max(0, sections.findSection(Math.min(fromPosition, toPosition)));
+                markOffsetsDirty(sections.getStart(first), sections.getEnd(last, adapterItemCount()) - 1);
+            }
+            sections.onItemRangeMoved(fromPosition, toPosition, itemCount);
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package com.sheldonchen.itemdecorations.decorations;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.core.util.Preconditions;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.tracing.Trace;
+
+import com.sheldonchen.itemdecorations.rules.SectionTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 纵向列表的分段悬停header.
+ * <p>
+ * 每一段的第一个item上方留出header的高度并画出header, 顶部的段的header悬停在列表顶部, 被下一段的header向上推出.
+ * 每个段的header只绑定、measure、layout并渲染一次, 按段的id缓存在{@link HeaderRenderCache}中,
+ * 之后每帧只是绘制缓存; 段的查找是对分段边界的二分查找.
+ * <p>
+ * header在onDrawOver中(布局之外)绑定, 并预先绑定可见范围前后的段, 滚动时getItemOffsets只读取已知的高度;
+ * 只有首次布局以及跳转到较远的位置时才会在布局中measure header.
+ * Adapter数据变化时重新读取分段边界, 只让边界真正移动的child重新计算offset.
+ */
+
+public class StickyHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    public static final class Builder {
+
+        IStickyHeaderProvider mProvider = null;
+
+        /**
+         * 渲染缓存的容量, 应不小于同屏可见的header数量加上预先绑定的数量.
+         */
+        int mCacheSize = 8;
+
+        /**
+         * 在可见范围之前、之后各预先绑定的段数.
+         */
+        int mPrefetchSections = 1;
+
+        public Builder setHeaderProvider(@NonNull IStickyHeaderProvider provider) {
+            this.mProvider = provider;
+            return this;
+        }
+
+        public Builder setCacheSize(int cacheSize) {
+            this.mCacheSize = Math.max(1, cacheSize);
+            return this;
+        }
+
+        public Builder setPrefetchSections(int prefetchSections) {
+            this.mPrefetchSections = Math.max(0, prefetchSections);
+            return this;
+        }
+
+        public StickyHeaderDecoration build() {
+            return new StickyHeaderDecoration(this);
+        }
+
+        public void apply(RecyclerView recyclerView) {
+            if (recyclerView == null) return;
+
+            recyclerView.addItemDecoration(build());
+        }
+
+        public void apply(RecyclerView... recyclerViews) {
+            if (recyclerViews == null || recyclerViews.length == 0) return;
+
+            StickyHeaderDecoration decoration = build();
+            for (RecyclerView recyclerView : recyclerViews) {
+                recyclerView.addItemDecoration(decoration);
+            }
+        }
+    }
+
+    private static final String TRACE_ON_DRAW_OVER = "StickyHeaderDecoration#onDrawOver";
+    private static final String TRACE_ITEM_OFFSETS = "StickyHeaderDecoration#getItemOffsets";
+
+    private final Builder mBuilder;
+
+    private final ParentStates<HeaderState> mStates;
+
+    /**
+     * header的绑定次数(所有RecyclerView合计).
+     */
+    private long mHeaderBindCount = 0;
+
+    /**
+     * 在布局过程中(getItemOffsets)绑定header的次数, 滚动时不应增加.
+     */
+    private long mLayoutBindCount = 0;
+
+    private StickyHeaderDecoration(@NonNull Builder builder) {
+        Preconditions.checkNotNull(builder, "StickyHeaderDecoration: mBuilder can't be null.");
+        Preconditions.checkNotNull(builder.mProvider, "StickyHeaderDecoration: mProvider can't be null.");
+        this.mBuilder = builder;
+        this.mStates = new ParentStates<>(this, () -> new HeaderState(builder.mProvider, builder.mCacheSize));
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        super.onDrawOver(canvas, parent, state);
+        Trace.beginSection(TRACE_ON_DRAW_OVER);
+        try {
+            drawHeaders(canvas, parent, state.getItemCount());
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    private void drawHeaders(Canvas canvas, RecyclerView parent, int itemCount) {
+        final HeaderState headerState = obtainState(parent);
+        final SectionTable sections = headerState.mSections;
+        if (sections.size() == 0 || parent.getChildCount() == 0) return;
+
+        final boolean renderNode = HeaderRenderCache.useRenderNode(canvas);
+        final boolean clipToPadding = parent.getClipToPadding();
+        final int left = parent.getPaddingLeft();
+        final int top = clipToPadding ? parent.getPaddingTop() : 0;
+        final int width = headerWidth(parent);
+
+        final int saveCount = canvas.save();
+        if (clipToPadding) {
+            canvas.clipRect(left, top, parent.getWidth() - parent.getPaddingRight(),
+                    parent.getHeight() - parent.getPaddingBottom());
+        }
+
+        // 顶部的段, 它自己的header在列表中的位置(不可见时为MIN_VALUE), 以及下一段header的顶部.
+        int pinnedSection = -1;
+        int pinnedHeaderTop = Integer.MIN_VALUE;
+        int nextHeaderTop = Integer.MAX_VALUE;
+        int firstSection = Integer.MAX_VALUE;
+        int lastSection = -1;
+        for (int i = 0, childCount = parent.getChildCount(); i < childCount; i++) {
+            final View child = parent.getChildAt(i);
+            final int pos = parent.getChildLayoutPosition(child);
+            if (pos < 0 || pos >= itemCount) continue;
+
+            final int section = sections.findSection(pos);
+            if (section < 0) continue;
+
+            firstSection = Math.min(firstSection, section);
+            lastSection = Math.max(lastSection, section);
+            final RecyclerView.LayoutParams layoutParams = (RecyclerView.LayoutParams) child.getLayoutParams();
+            final int translationY = (int) child.getTranslationY();
+            if (pinnedSection < 0 && child.getBottom() + layoutParams.bottomMargin + translationY > top) {
+                pinnedSection = section;
+            }
+            if (sections.getStart(section) != pos) continue;
+
+            final int slot = obtainHeader(parent, headerState, section, width, renderNode);
+            final int headerTop = child.getTop() - layoutParams.topMargin + translationY
+                    - headerState.mCache.heightAt(slot);
+            if (section == pinnedSection) {
+                pinnedHeaderTop = headerTop;
+                continue;
+            }
+            if (pinnedSection >= 0 && section > pinnedSection && headerTop < nextHeaderTop) {
+                nextHeaderTop = headerTop;
+            }
+            headerState.mCache.draw(canvas, slot, left, headerTop);
+        }
+
+        if (pinnedSection >= 0) {
+            // 前面绘制的header可能淘汰了顶部段的缓存项, 重新查找.
+            final int slot = obtainHeader(parent, headerState, pinnedSection, width, renderNode);
+            final int height = headerState.mCache.heightAt(slot);
+            final int pinnedTop = Math.min(Math.max(top, pinnedHeaderTop), nextHeaderTop - height);
+            headerState.mCache.draw(canvas, slot, left, pinnedTop);
+        }
+        canvas.restoreToCount(saveCount);
+
+        if (lastSection >= 0) {
+            prefetchHeaders(parent, headerState, firstSection, lastSection, width, renderNode);
+        }
+    }
+
+    /**
+     * 预先绑定可见范围前后的段, 这些段滚动进来时getItemOffsets可以直接读取header的高度.
+     */
+    private void prefetchHeaders(RecyclerView parent, HeaderState headerState, int firstSection, int lastSection,
+                                 int width, boolean renderNode) {
+        final int prefetch = mBuilder.mPrefetchSections;
+        final int count = headerState.mSections.size();
+        for (int section = Math.max(0, firstSection - prefetch); section < firstSection; section++) {
+            obtainHeader(parent, headerState, section, width, renderNode);
+        }
+        for (int section = lastSection + 1, end = Math.min(count, lastSection + 1 + prefetch); section < end; section++) {
+            obtainHeader(parent, headerState, section, width, renderNode);
+        }
+    }
+
+    @Override
+    public void getItemOffsets(@NonNull Rect outRect, @NonNull View view,
+                               @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        Trace.beginSection(TRACE_ITEM_OFFSETS);
+        try {
+            outRect.set(0, 0, 0, 0);
+            final int pos = ItemPositions.position(parent, view, state);
+            if (pos < 0) return;
+
+            final HeaderState headerState = obtainState(parent);
+            final SectionTable sections = headerState.mSections;
+            final int section = sections.findSection(pos);
+            if (section < 0 || sections.getStart(section) != pos) return;
+
+            final int width = headerWidth(parent);
+            final int height = headerState.knownHeight(headerState.mSectionIds[section], width);
+            if (height != HeaderState.UNKNOWN_HEIGHT) {
+                outRect.top = height;
+            } else {
+                // 首次布局或跳转到较远的位置: 只measure, 渲染留到onDrawOver.
+                mLayoutBindCount++;
+                outRect.top = bindHeader(parent, headerState, section, width).getHeight();
+            }
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * 丢弃所有已渲染的header并重新计算offset, 用于id不变而header内容变化的情况.
+     */
+    @MainThread
+    public void invalidateHeaders() {
+        final List<RecyclerView> parents = new ArrayList<>();
+        mStates.collectAttachedParents(parents);
+        for (RecyclerView parent : parents) {
+            mStates.obtain(parent).invalidateHeaders();
+            parent.invalidateItemDecorations();
+        }
+    }
+
+    /**
+     * header的绑定次数(所有RecyclerView合计), 滚动时只随新进入预取范围的段增加.
+     */
+    public long getHeaderBindCount() {
+        return mHeaderBindCount;
+    }
+
+    /**
+     * 在布局过程中绑定header的次数(所有RecyclerView合计).
+     */
+    public long getLayoutBindCount() {
+        return mLayoutBindCount;
+    }
+
+    /**
+     * 获取parent对应的状态, 首次使用时读取分段边界, Configuration变化时丢弃已渲染的header.
+     */
+    private HeaderState obtainState(RecyclerView parent) {
+        final HeaderState headerState = mStates.obtain(parent);
+        if (headerState.updateConfiguration(parent)) {
+            headerState.invalidateHeaders();
+        }
+        if (!headerState.mSectionsRead) {
+            headerState.readSections();
+        }
+        return headerState;
+    }
+
+    private int obtainHeader(RecyclerView parent, HeaderState headerState, int section, int width,
+                             boolean renderNode) {
+        final long id = headerState.mSectionIds[section];
+        final int slot = headerState.mCache.find(id, width, renderNode);
+        if (slot >= 0) return slot;
+
+        return headerState.mCache.put(id, bindHeader(parent, headerState, section, width), renderNode);
+    }
+
+    /**
+     * 绑定、measure并layout第section段的header, header View已经绑定到这一段时直接返回.
+     */
+    private View bindHeader(RecyclerView parent, HeaderState headerState, int section, int width) {
+        final long id = headerState.mSectionIds[section];
+        View header = headerState.mHeaderView;
+        if (header == null) {
+            header = headerState.mHeaderView = mBuilder.mProvider.createHeaderView(parent);
+        } else if (headerState.mHeaderBound && headerState.mBoundId == id && headerState.mBoundWidth == width) {
+            return header;
+        }
+        mBuilder.mProvider.bindHeaderView(header, section);
+
+        final ViewGroup.LayoutParams layoutParams = header.getLayoutParams();
+        final int heightSpec = layoutParams != null && layoutParams.height >= 0
+                ? View.MeasureSpec.makeMeasureSpec(layoutParams.height, View.MeasureSpec.EXACTLY)
+                : View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        header.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY), heightSpec);
+        header.layout(0, 0, header.getMeasuredWidth(), header.getMeasuredHeight());
+        mHeaderBindCount++;
+        headerState.onHeaderBound(id, width, header.getHeight());
+        return header;
+    }
+
+    private static int headerWidth(RecyclerView parent) {
+        return Math.max(0, parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight());
+    }
+
+    /**
+     * 单个RecyclerView的状态: 分段边界、段id、header View、header高度以及渲染缓存.
+     * 已渲染的header以及高度按段id保留, 数据变化不会使其失效.
+     */
+    private static final class HeaderState extends ParentStates.State {
+
+        static final int UNKNOWN_HEIGHT = -1;
+
+        private static final int OP_CHANGE = 0;
+        private static final int OP_INSERT = 1;
+        private static final int OP_REMOVE = 2;
+        private static final int OP_MOVE = 3;
+
+        @NonNull
+        private final IStickyHeaderProvider mProvider;
+
+        SectionTable mSections = new SectionTable();
+
+        long[] mSectionIds = new long[0];
+
+        /**
+         * 数据变化时读入新的边界, 与当前的比较之后交换.
+         */
+        private SectionTable mPendingSections = new SectionTable();
+
+        private long[] mPendingIds = new long[0];
+
+        boolean mSectionsRead = false;
+
+        final HeaderRenderCache mCache;
+
+        /**
+         * 按段id记录的header高度, 对应mHeightsWidth宽度下的measure结果, 不随渲染缓存淘汰.
+         * mHeightIds有序, 与mHeights一一对应, 不装箱.
+         */
+        private long[] mHeightIds = new long[8];
+
+        private int[] mHeights = new int[8];
+
+        private int mHeightCount = 0;
+
+        private int mHeightsWidth = -1;
+
+        View mHeaderView = null;
+
+        /**
+         * header View当前绑定的段id以及measure时的宽度.
+         */
+        boolean mHeaderBound = false;
+
+        long mBoundId;
+
+        int mBoundWidth;
+
+        HeaderState(@NonNull IStickyHeaderProvider provider, int cacheSize) {
+            mProvider = provider;
+            mCache = new HeaderRenderCache(cacheSize);
+        }
+
+        /**
+         * @return width宽度下id对应的header高度, 未记录时为{@link #UNKNOWN_HEIGHT}.
+         */
+        int knownHeight(long id, int width) {
+            if (width != mHeightsWidth) return UNKNOWN_HEIGHT;
+
+            final int index = Arrays.binarySearch(mHeightIds, 0, mHeightCount, id);
+            return index >= 0 ? mHeights[index] : UNKNOWN_HEIGHT;
+        }
+
+        void onHeaderBound(long id, int width, int height) {
+            if (width != mHeightsWidth) {
+                mHeightCount = 0;
+                mHeightsWidth = width;
+            }
+            putHeight(id, height);
+            mHeaderBound = true;
+            mBoundId = id;
+            mBoundWidth = width;
+        }
+
+        void invalidateHeaders() {
+            mCache.clear();
+            mHeightCount = 0;
+            mHeaderBound = false;
+        }
+
+        private void putHeight(long id, int height) {
+            int index = Arrays.binarySearch(mHeightIds, 0, mHeightCount, id);
+            if (index < 0) {
+                index = ~index;
+                if (mHeightCount == mHeightIds.length) {
+                    final int capacity = mHeightCount + (mHeightCount >> 1);
+                    mHeightIds = Arrays.copyOf(mHeightIds, capacity);
+                    mHeights = Arrays.copyOf(mHeights, capacity);
+                }
+                System.arraycopy(mHeightIds, index, mHeightIds, index + 1, mHeightCount - index);
+                System.arraycopy(mHeights, index, mHeights, index + 1, mHeightCount - index);
+                mHeightIds[index] = id;
+                mHeightCount++;
+            }
+            mHeights[index] = height;
+        }
+
+        void readSections() {
+            mSectionIds = read(mSections, mSectionIds);
+            mSectionsRead = true;
+        }
+
+        private long[] read(@NonNull SectionTable out, @NonNull long[] ids) {
+            final int count = mProvider.getSectionCount();
+            if (ids.length < count) {
+                ids = new long[count];
+            }
+            out.clear();
+            for (int i = 0; i < count; i++) {
+                out.add(mProvider.getSectionStart(i), i);
+                ids[i] = mProvider.getSectionId(i);
+            }
+            return ids;
+        }
+
+        /**
+         * 读取变化之后的边界, 只标记不再是段起点、新成为段起点或者段id变化的child.
+         * 回调时RecyclerView还没有记录这次变化, 标记按变化之前的position进行.
+         */
+        private void refreshSections(int op, int positionStart, int target, int itemCount) {
+            if (!mSectionsRead) return;
+
+            mPendingIds = read(mPendingSections, mPendingIds);
+            final SectionTable oldSections = mSections;
+            final SectionTable newSections = mPendingSections;
+            if (op == OP_CHANGE && sameSections(oldSections, mSectionIds, newSections, mPendingIds)) return;
+
+            for (int i = 0; i < oldSections.size(); i++) {
+                final int oldStart = oldSections.getStart(i);
+                final int newPos = mapForward(op, positionStart, target, itemCount, oldStart);
+                if (newPos < 0) continue;
+
+                final int section = newSections.findSection(newPos);
+                if (section < 0 || newSections.getStart(section) != newPos || mPendingIds[section] != mSectionIds[i]) {
+                    markOffsetsDirty(oldStart, oldStart);
+                }
+            }
+            for (int i = 0; i < newSections.size(); i++) {
+                final int oldPos = mapBackward(op, positionStart, target, itemCount, newSections.getStart(i));
+                if (oldPos < 0) continue;
+
+                final int section = oldSections.findSection(oldPos);
+                if (section < 0 || oldSections.getStart(section) != oldPos) {
+                    markOffsetsDirty(oldPos, oldPos);
+                }
+            }
+
+            mSections = newSections;
+            mPendingSections = oldSections;
+            final long[] ids = mSectionIds;
+            mSectionIds = mPendingIds;
+            mPendingIds = ids;
+        }
+
+        private static boolean sameSections(SectionTable a, long[] aIds, SectionTable b, long[] bIds) {
+            if (a.size() != b.size()) return false;
+            for (int i = 0; i < a.size(); i++) {
+                if (a.getStart(i) != b.getStart(i) || aIds[i] != bIds[i]) return false;
+            }
+            return true;
+        }
+
+        /**
+         * 变化之前的position在变化之后的位置, 被删除时返回-1.
+         */
+        private static int mapForward(int op, int positionStart, int target, int itemCount, int position) {
+            switch (op) {
+                case OP_INSERT:
+                    return position >= positionStart ? position + itemCount : position;
+                case OP_REMOVE:
+                    if (position < positionStart) return position;
+                    return position >= positionStart + itemCount ? position - itemCount : -1;
+                case OP_MOVE:
+                    return move(positionStart, target, itemCount, position);
+                default:
+                    return position;
+            }
+        }
+
+        /**
+         * 变化之后的position在变化之前的位置, 新插入的item返回-1.
+         */
+        private static int mapBackward(int op, int positionStart, int target, int itemCount, int position) {
+            switch (op) {
+                case OP_INSERT:
+                    if (position < positionStart) return position;
+                    return position >= positionStart + itemCount ? position - itemCount : -1;
+                case OP_REMOVE:
+                    return position >= positionStart ? position + itemCount : position;
+                case OP_MOVE:
+                    return move(target, positionStart, itemCount, position);
+                default:
+                    return position;
+            }
+        }
+
+        /**
+         * 把[from, from + itemCount)移动到to之后, position的新位置.
+         */
+        private static int move(int from, int to, int itemCount, int position) {
+            if (position >= from && position < from + itemCount) {
+                return to + position - from;
+            }
+            final int removed = position >= from + itemCount ? position - itemCount : position;
+            return removed >= to ? removed + itemCount : removed;
+        }
+
+        @Override
+        void onDataChanged() {
+            // RecyclerView会重新计算所有child的offset.
+            if (mSectionsRead) readSections();
+        }
+
+        @Override
+        void onRangeChanged(int positionStart, int itemCount) {
+            refreshSections(OP_CHANGE, positionStart, 0, itemCount);
+        }
+
+        @Override
+        void onRangeInserted(int positionStart, int itemCount) {
+            refreshSections(OP_INSERT, positionStart, 0, itemCount);
+        }
+
+        @Override
+        void onRangeRemoved(int positionStart, int itemCount) {
+            refreshSections(OP_REMOVE, positionStart, 0, itemCount);
+        }
+
+        @Override
+        void onRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            refreshSections(OP_MOVE, fromPosition, toPosition, itemCount);
+        }
+    }
+}
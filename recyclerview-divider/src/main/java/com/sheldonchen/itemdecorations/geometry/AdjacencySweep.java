@@ -0,0 +1,227 @@
+package com.sheldonchen.itemdecorations.geometry;
+
+import androidx.annotation.NonNull;
+
+import com.sheldonchen.itemdecorations.painter.base.DividerBatch;
+
+import java.util.Arrays;
+
+/**
+ * 由一组矩形(已布局的child)推断相邻关系, 在相邻的两个矩形之间生成一条分割线, 不依赖Android运行时.
+ * <p>
+ * 左右相邻: A的右边与B的左边之间的间隙不超过maxGap, 且两者在竖直方向上有重叠, 分割线即重叠的那一段;
+ * 上下相邻同理. 每个方向上把矩形分别按起点、(终点, 交叉轴起点)排序, 按起点的顺序扫描, 用一个单调前移的指针
+ * 维护"终点落在[起点 - maxGap, 起点]内"的候选窗口. 窗口内终点相同的候选为一组, 组内按交叉轴起点二分查找,
+ * 再借助交叉轴终点的前缀最大值向前回溯, 只检查交叉轴上可能重叠的候选: 表格中整列的item终点相同,
+ * 每个item也只会检查到与它相邻的几个. 排序O(n log n), 扫描接近O(n + 相邻对数).
+ * <p>
+ * 数组在帧之间复用, 稳定之后不再分配内存.
+ */
+
+public final class AdjacencySweep {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 每个矩形: left, top, right, bottom.
+     */
+    private int[] mRects = new int[INITIAL_CAPACITY * 4];
+
+    /**
+     * 按主轴起点排序的下标.
+     */
+    private int[] mByStart = new int[INITIAL_CAPACITY];
+
+    /**
+     * 按主轴终点、交叉轴起点排序的下标.
+     */
+    private int[] mByEnd = new int[INITIAL_CAPACITY];
+
+    /**
+     * 与mByEnd对应: 终点相同的下一组在mByEnd中的起始位置.
+     */
+    private int[] mGroupNext = new int[INITIAL_CAPACITY];
+
+    /**
+     * 与mByEnd对应: 组内截止到当前位置的交叉轴终点的最大值.
+     */
+    private int[] mCrossEndMax = new int[INITIAL_CAPACITY];
+
+    private int mCount = 0;
+
+    /**
+     * 上一次collect()检查过的候选数量.
+     */
+    private int mVisitCount = 0;
+
+    public int size() {
+        return mCount;
+    }
+
+    public void clear() {
+        mCount = 0;
+    }
+
+    public void add(int left, int top, int right, int bottom) {
+        if (right <= left || bottom <= top) return;
+
+        if (mCount == mByStart.length) {
+            final int capacity = mCount + (mCount >> 1);
+            mRects = Arrays.copyOf(mRects, capacity * 4);
+            mByStart = new int[capacity];
+            mByEnd = new int[capacity];
+            mGroupNext = new int[capacity];
+            mCrossEndMax = new int[capacity];
+        }
+        final int offset = mCount << 2;
+        mRects[offset] = left;
+        mRects[offset + 1] = top;
+        mRects[offset + 2] = right;
+        mRects[offset + 3] = bottom;
+        mCount++;
+    }
+
+    /**
+     * 生成所有相邻矩形之间的分割线, 分割线居中于间隙(间隙小于厚度时居中于两者的中线).
+     *
+     * @param thickness 分割线厚度.
+     * @param maxGap    间隙不超过这个值的两个矩形才视为相邻.
+     * @param vertical  写入左右相邻之间的竖线.
+     * @param horizontal 写入上下相邻之间的横线.
+     * @return 找到的相邻关系数量.
+     */
+    public int collect(int thickness, int maxGap, @NonNull DividerBatch vertical,
+                       @NonNull DividerBatch horizontal) {
+        mVisitCount = 0;
+        if (mCount < 2 || thickness <= 0) return 0;
+
+        // 左右相邻: 主轴为x(left/right), 交叉轴为y(top/bottom).
+        int pairs = sweep(0, 1, thickness, maxGap, vertical);
+        pairs += sweep(1, 0, thickness, maxGap, horizontal);
+        return pairs;
+    }
+
+    int getVisitCount() {
+        return mVisitCount;
+    }
+
+    /**
+     * @param axis  主轴: 0为x, 1为y. 起点为mRects[offset + axis], 终点为mRects[offset + axis + 2].
+     * @param cross 交叉轴.
+     */
+    private int sweep(int axis, int cross, int thickness, int maxGap, DividerBatch out) {
+        final int count = mCount;
+        final int[] rects = mRects;
+        final int[] byStart = mByStart;
+        final int[] byEnd = mByEnd;
+        final int[] groupNext = mGroupNext;
+        final int[] crossEndMax = mCrossEndMax;
+        for (int i = 0; i < count; i++) {
+            byStart[i] = i;
+            byEnd[i] = i;
+        }
+        heapSort(byStart, count, axis, cross);
+        heapSort(byEnd, count, axis + 2, cross);
+
+        // 终点相同的候选分组, 并记录组内交叉轴终点的前缀最大值.
+        for (int e = count - 1; e >= 0; e--) {
+            groupNext[e] = e == count - 1 || endAt(byEnd[e + 1], axis) != endAt(byEnd[e], axis)
+                    ? e + 1 : groupNext[e + 1];
+        }
+        for (int e = 0; e < count; e++) {
+            final int crossEnd = rects[(byEnd[e] << 2) + cross + 2];
+            crossEndMax[e] = e > 0 && groupNext[e - 1] == groupNext[e]
+                    ? Math.max(crossEndMax[e - 1], crossEnd) : crossEnd;
+        }
+
+        int pairs = 0;
+        int visits = 0;
+        int lo = 0;
+        for (int s = 0; s < count; s++) {
+            final int bOffset = byStart[s] << 2;
+            final int bStart = rects[bOffset + axis];
+            final int bCrossStart = rects[bOffset + cross];
+            final int bCrossEnd = rects[bOffset + cross + 2];
+            // 起点单调递增, 窗口下界只会前移.
+            while (lo < count && endAt(byEnd[lo], axis) < bStart - maxGap) {
+                lo++;
+            }
+            for (int e = lo; e < count; e = groupNext[e]) {
+                final int aEnd = endAt(byEnd[e], axis);
+                if (aEnd > bStart) break;
+
+                // 组内最后一个交叉轴起点小于bCrossEnd的候选, 之后的候选不可能与b重叠.
+                int low = e;
+                int high = groupNext[e] - 1;
+                while (low <= high) {
+                    final int mid = (low + high) >>> 1;
+                    if (rects[(byEnd[mid] << 2) + cross] < bCrossEnd) {
+                        low = mid + 1;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                // 向前回溯, 前缀最大值不超过bCrossStart时更前面的候选都不会重叠.
+                for (int k = high; k >= e && crossEndMax[k] > bCrossStart; k--) {
+                    visits++;
+                    final int aOffset = byEnd[k] << 2;
+                    final int to = Math.min(rects[aOffset + cross + 2], bCrossEnd);
+                    final int from = Math.max(rects[aOffset + cross], bCrossStart);
+                    if (from >= to) continue;
+
+                    final int start = aEnd + ((bStart - aEnd - thickness) >> 1);
+                    if (axis == 0) {
+                        out.add(start, from, start + thickness, to);
+                    } else {
+                        out.add(from, start, to, start + thickness);
+                    }
+                    pairs++;
+                }
+            }
+        }
+        mVisitCount += visits;
+        return pairs;
+    }
+
+    private int endAt(int index, int axis) {
+        return mRects[(index << 2) + axis + 2];
+    }
+
+    /**
+     * 按mRects[offset + key], mRects[offset + tie]以及下标对order原地堆排序, 不分配内存.
+     */
+    private void heapSort(int[] order, int count, int key, int tie) {
+        for (int i = (count >> 1) - 1; i >= 0; i--) {
+            siftDown(order, i, count, key, tie);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            final int tmp = order[0];
+            order[0] = order[end];
+            order[end] = tmp;
+            siftDown(order, 0, end, key, tie);
+        }
+    }
+
+    private void siftDown(int[] order, int root, int size, int key, int tie) {
+        while (true) {
+            int child = (root << 1) + 1;
+            if (child >= size) return;
+            if (child + 1 < size && compare(order[child + 1], order[child], key, tie) > 0) child++;
+            if (compare(order[root], order[child], key, tie) >= 0) return;
+
+            final int tmp = order[root];
+            order[root] = order[child];
+            order[child] = tmp;
+            root = child;
+        }
+    }
+
+    private int compare(int a, int b, int key, int tie) {
+        final int[] rects = mRects;
+        int c = Integer.compare(rects[(a << 2) + key], rects[(b << 2) + key]);
+        if (c != 0) return c;
+        c = Integer.compare(rects[(a << 2) + tie], rects[(b << 2) + tie]);
+        if (c != 0) return c;
+        return Integer.compare(a, b);
+    }
+}
@@ -0,0 +1,153 @@
+package com.sheldonchen.itemdecorations.geometry;
+
+import androidx.annotation.NonNull;
+
+import com.sheldonchen.itemdecorations.span.ISpanGroups;
+
+/**
+ * 网格(以及线性, 即spanCount为1)布局下item offset的计算, 不依赖Android运行时.
+ * <p>
+ * 列表方向上: 第一组(行/列)之前按需留出分割线, 其余每个item之后留出分割线.
+ * 侧边方向上: 把(spanCount - 1)条(画两侧边缘时再+2条)侧边分割线平均分配给每个span,
+ * 确保每个item分配到的offset总量相等.
+ * <p>
+ * 结果按 left, top, right, bottom 的顺序写入调用方提供的int数组.
+ */
+
+public final class GridOffsetEngine {
+
+    /**
+     * 位于第一组(纵向: 第一行, 横向: 第一列).
+     */
+    public static final int FLAG_FIRST_GROUP = 1;
+
+    /**
+     * 位于最后一组(纵向: 最后一行, 横向: 最后一列).
+     */
+    public static final int FLAG_LAST_GROUP = 1 << 1;
+
+    /**
+     * 不在item之后留出分割线(例如被指定不画的位置).
+     */
+    public static final int FLAG_SKIP_TRAILING = 1 << 2;
+
+    /**
+     * 分割线留在item之前(瀑布流): 除第一组外每个item之前留出分割线, 只有最后一组之后按需留出.
+     * 这样offset不依赖"是否是最后一组"的判断, 瀑布流的span分配变化时不会引起反复布局.
+     */
+    public static final int FLAG_DIVIDER_BEFORE = 1 << 3;
+
+    private final boolean mVertical;
+
+    private final int mDividerThickness;
+
+    private final int mSideDividerThickness;
+
+    private final boolean mDrawLeadingEdge;
+
+    private final boolean mDrawTrailingEdge;
+
+    private final boolean mDrawSideEdges;
+
+    /**
+     * @param vertical             列表方向是否为纵向.
+     * @param dividerThickness     列表方向上分割线的厚度.
+     * @param sideDividerThickness 侧边分割线的厚度.
+     * @param drawLeadingEdge      是否在第一组之前留出分割线(纵向: 顶部, 横向: 最左).
+     * @param drawTrailingEdge     是否在最后一组之后留出分割线(纵向: 底部, 横向: 最右).
+     * @param drawSideEdges        是否在两侧边缘留出侧边分割线.
+     */
+    public GridOffsetEngine(boolean vertical,
+                            int dividerThickness,
+                            int sideDividerThickness,
+                            boolean drawLeadingEdge,
+                            boolean drawTrailingEdge,
+                            boolean drawSideEdges) {
+        mVertical = vertical;
+        mDividerThickness = dividerThickness;
+        mSideDividerThickness = sideDividerThickness;
+        mDrawLeadingEdge = drawLeadingEdge;
+        mDrawTrailingEdge = drawTrailingEdge;
+        mDrawSideEdges = drawSideEdges;
+    }
+
+    /**
+     * 计算单个item的offset.
+     *
+     * @param groupFlags {@link #FLAG_FIRST_GROUP}, {@link #FLAG_LAST_GROUP}, {@link #FLAG_SKIP_TRAILING},
+     *                   {@link #FLAG_DIVIDER_BEFORE}的组合.
+     * @param out        写入 left, top, right, bottom.
+     * @param offset     在out中的起始下标.
+     */
+    public void getItemOffsets(int spanIndex, int spanSize, int spanCount, int groupFlags,
+                               @NonNull int[] out, int offset) {
+        // 每个item分配到的offset总量.
+        int dividerCount = spanCount - 1;
+        if (mDrawSideEdges) dividerCount = dividerCount + 2;
+
+        // 确保每个item分配到的offset总量相等
+        final int eachItemOffsetWidth = dividerCount * mSideDividerThickness / spanCount;
+        final int dc = eachItemOffsetWidth - mSideDividerThickness;
+        final int a1 = mDrawSideEdges ? mSideDividerThickness : 0;
+
+        write(spanIndex, spanSize, groupFlags, eachItemOffsetWidth, dc, a1, out, offset);
+    }
+
+    /**
+     * 批量计算[from, from + count)区间内所有position的offset, 依次写入out(每个position 4个int).
+     * index需要已经覆盖该区间.
+     */
+    public void getItemOffsets(@NonNull ISpanGroups index, int from, int count, @NonNull int[] out) {
+        final int spanCount = index.getSpanCount();
+        int dividerCount = spanCount - 1;
+        if (mDrawSideEdges) dividerCount = dividerCount + 2;
+
+        final int eachItemOffsetWidth = dividerCount * mSideDividerThickness / spanCount;
+        final int dc = eachItemOffsetWidth - mSideDividerThickness;
+        final int a1 = mDrawSideEdges ? mSideDividerThickness : 0;
+
+        for (int pos = from, end = from + count, offset = 0; pos < end; pos++, offset += 4) {
+            int groupFlags = 0;
+            if (index.isInFirstGroup(pos)) groupFlags |= FLAG_FIRST_GROUP;
+            if (index.isInLastGroup(pos)) groupFlags |= FLAG_LAST_GROUP;
+
+            write(index.getSpanIndex(pos), index.getSpanSize(pos), groupFlags,
+                    eachItemOffsetWidth, dc, a1, out, offset);
+        }
+    }
+
+    private void write(int spanIndex, int spanSize, int groupFlags,
+                       int eachItemOffsetWidth, int dc, int a1,
+                       int[] out, int offset) {
+        final boolean first = (groupFlags & FLAG_FIRST_GROUP) != 0;
+        final boolean last = (groupFlags & FLAG_LAST_GROUP) != 0;
+        int leading;
+        int trailing;
+        if ((groupFlags & FLAG_DIVIDER_BEFORE) != 0) {
+            leading = !first || mDrawLeadingEdge ? mDividerThickness : 0;
+            trailing = last && mDrawTrailingEdge ? mDividerThickness : 0;
+        } else {
+            leading = first && mDrawLeadingEdge ? mDividerThickness : 0;
+            trailing = mDividerThickness;
+            if ((last && !mDrawTrailingEdge) || (groupFlags & FLAG_SKIP_TRAILING) != 0) {
+                trailing = 0;
+            }
+        }
+
+        final int spanLastIndex = spanIndex + spanSize - 1;
+        final int sideStart = a1 - dc * spanIndex;
+        final int sideEnd = eachItemOffsetWidth - a1 + dc * spanLastIndex;
+
+        if (mVertical) {
+            out[offset] = sideStart;
+            out[offset + 1] = leading;
+            out[offset + 2] = sideEnd;
+            out[offset + 3] = trailing;
+        } else {
+            out[offset] = leading;
+            out[offset + 1] = sideStart;
+            out[offset + 2] = trailing;
+            out[offset + 3] = sideEnd;
+        }
+    }
+}
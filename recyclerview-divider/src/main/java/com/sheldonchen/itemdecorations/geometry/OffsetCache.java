@@ -0,0 +1,83 @@
+package com.sheldonchen.itemdecorations.geometry;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * 按position缓存item offset(left, top, right, bottom)的定长表, 不依赖Android运行时.
+ * <p>
+ * 直接映射: position存放在 position % capacity 的槽位中, 槽位记录所属的position.
+ * item数量不超过容量时相当于一张完整的表; 超过时新position覆盖旧的, 内存始终有上限.
+ */
+
+public final class OffsetCache {
+
+    private static final int EMPTY_SLOT = -1;
+
+    private final int mCapacity;
+
+    /**
+     * 每个槽位缓存的position, 空槽位为EMPTY_SLOT.
+     */
+    private int[] mPositions;
+
+    /**
+     * 每个槽位4个int: left, top, right, bottom.
+     */
+    private int[] mOffsets;
+
+    public OffsetCache(int maxEntries) {
+        mCapacity = Math.max(1, maxEntries);
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * 命中时把offset写入out并返回true.
+     */
+    public boolean get(int position, @NonNull int[] out, int offset) {
+        if (mPositions == null) return false;
+
+        final int slot = position % mCapacity;
+        if (mPositions[slot] != position) return false;
+
+        System.arraycopy(mOffsets, slot << 2, out, offset, 4);
+        return true;
+    }
+
+    public void put(int position, @NonNull int[] src, int offset) {
+        if (position < 0) return;
+        if (mPositions == null) {
+            mPositions = new int[mCapacity];
+            mOffsets = new int[mCapacity << 2];
+            Arrays.fill(mPositions, EMPTY_SLOT);
+        }
+
+        final int slot = position % mCapacity;
+        mPositions[slot] = position;
+        System.arraycopy(src, offset, mOffsets, slot << 2, 4);
+    }
+
+    /**
+     * 丢弃position及其之后的缓存.
+     */
+    public void invalidateFrom(int position) {
+        if (mPositions == null) return;
+
+        final int[] positions = mPositions;
+        for (int slot = 0; slot < mCapacity; slot++) {
+            if (positions[slot] >= position) {
+                positions[slot] = EMPTY_SLOT;
+            }
+        }
+    }
+
+    public void clear() {
+        if (mPositions != null) {
+            Arrays.fill(mPositions, EMPTY_SLOT);
+        }
+    }
+}
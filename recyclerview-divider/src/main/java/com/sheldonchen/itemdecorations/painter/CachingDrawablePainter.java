@@ -0,0 +1,166 @@
+package com.sheldonchen.itemdecorations.painter;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+
+import com.sheldonchen.itemdecorations.CheckUtil;
+
+/**
+ * 把Drawable按分割线的尺寸预先绘制到Bitmap上, 之后同样尺寸的分割线直接drawBitmap.
+ * <p>
+ * 适用于VectorDrawable, GradientDrawable(shape)等每次draw都需要重新光栅化的Drawable.
+ * Bitmap按尺寸缓存, 总字节数超过上限时淘汰最久未使用的尺寸; 单个尺寸超过上限时直接绘制Drawable.
+ * Drawable的状态(level, alpha等)改变后需要调用{@link #invalidate()}.
+ * <p>
+ * 被淘汰的Bitmap不会recycle(), 已录制的显示列表可能仍在引用它们, 交给GC回收.
+ */
+
+public class CachingDrawablePainter extends DrawablePainter {
+
+    /**
+     * 默认的缓存上限: 1MB.
+     */
+    public static final int DEFAULT_MAX_BYTES = 1024 * 1024;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    @NonNull
+    private final Drawable mDrawable;
+
+    private final int mMaxBytes;
+
+    private final Paint mBitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    /**
+     * 绘制到Bitmap时复用的Canvas.
+     */
+    private Canvas mRasterCanvas;
+
+    // 缓存条目: 尺寸(width << 32 | height), Bitmap, 最近使用的序号.
+
+    private long[] mSizes = new long[INITIAL_CAPACITY];
+
+    private Bitmap[] mBitmaps = new Bitmap[INITIAL_CAPACITY];
+
+    private long[] mLastUses = new long[INITIAL_CAPACITY];
+
+    private int mCount = 0;
+
+    private int mBytes = 0;
+
+    private long mUseCounter = 0;
+
+    public CachingDrawablePainter(@NonNull Drawable drawable) {
+        this(drawable, DEFAULT_MAX_BYTES);
+    }
+
+    public CachingDrawablePainter(@NonNull Drawable drawable, int maxBytes) {
+        super(drawable);
+        mDrawable = drawable;
+        mMaxBytes = CheckUtil.ensureNatural(maxBytes);
+    }
+
+    @Override
+    public void drawDivider(@NonNull Canvas canvas, int left, int top, int right, int bottom) {
+        final int width = right - left;
+        final int height = bottom - top;
+        if (width <= 0 || height <= 0) return;
+
+        final Bitmap bitmap = obtainBitmap(width, height);
+        if (bitmap == null) {
+            super.drawDivider(canvas, left, top, right, bottom);
+            return;
+        }
+        canvas.drawBitmap(bitmap, left, top, mBitmapPaint);
+    }
+
+    /**
+     * 丢弃所有缓存的Bitmap, Drawable的状态改变后调用.
+     */
+    public void invalidate() {
+        for (int i = 0; i < mCount; i++) {
+            mBitmaps[i] = null;
+        }
+        mCount = 0;
+        mBytes = 0;
+    }
+
+    /**
+     * 当前缓存的Bitmap总字节数.
+     */
+    public int getCachedBytes() {
+        return mBytes;
+    }
+
+    private Bitmap obtainBitmap(int width, int height) {
+        final long size = (long) width << 32 | height;
+        for (int i = 0; i < mCount; i++) {
+            if (mSizes[i] == size) {
+                mLastUses[i] = ++mUseCounter;
+                return mBitmaps[i];
+            }
+        }
+
+        final long bytes = (long) width * height * 4;
+        if (bytes > mMaxBytes) return null;
+
+        while (mCount > 0 && mBytes + bytes > mMaxBytes) {
+            evictEldest();
+        }
+        final Bitmap bitmap = rasterize(width, height);
+        add(size, bitmap);
+        return bitmap;
+    }
+
+    private Bitmap rasterize(int width, int height) {
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        if (mRasterCanvas == null) {
+            mRasterCanvas = new Canvas();
+        }
+        mRasterCanvas.setBitmap(bitmap);
+        mDrawable.setBounds(0, 0, width, height);
+        mDrawable.draw(mRasterCanvas);
+        mRasterCanvas.setBitmap(null);
+        return bitmap;
+    }
+
+    private void add(long size, Bitmap bitmap) {
+        if (mCount == mSizes.length) {
+            final int capacity = mCount << 1;
+            final long[] sizes = new long[capacity];
+            final Bitmap[] bitmaps = new Bitmap[capacity];
+            final long[] lastUses = new long[capacity];
+            System.arraycopy(mSizes, 0, sizes, 0, mCount);
+            System.arraycopy(mBitmaps, 0, bitmaps, 0, mCount);
+            System.arraycopy(mLastUses, 0, lastUses, 0, mCount);
+            mSizes = sizes;
+            mBitmaps = bitmaps;
+            mLastUses = lastUses;
+        }
+        mSizes[mCount] = size;
+        mBitmaps[mCount] = bitmap;
+        mLastUses[mCount] = ++mUseCounter;
+        mBytes += bitmap.getByteCount();
+        mCount++;
+    }
+
+    private void evictEldest() {
+        int eldest = 0;
+        for (int i = 1; i < mCount; i++) {
+            if (mLastUses[i] < mLastUses[eldest]) eldest = i;
+        }
+
+        mBytes -= mBitmaps[eldest].getByteCount();
+
+        // 用最后一个条目填补空位.
+        mCount--;
+        mSizes[eldest] = mSizes[mCount];
+        mBitmaps[eldest] = mBitmaps[mCount];
+        mLastUses[eldest] = mLastUses[mCount];
+        mBitmaps[mCount] = null;
+    }
+}
@@ -10,16 +10,38 @@ import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
 
 /**
  * Created by cxd on 2018/4/17
+ * <p>
+ * 批量绘制时按厚度分组, 每组合并为一次drawLines: 线宽等于厚度, BUTT端点,
+ * 沿矩形较长的方向画在其中线上, 覆盖的像素与drawRect相同.
  */
 
 public class ColorIntPainter implements IDividerPainter {
     private final Paint mPaint;
 
-    public ColorIntPainter(@ColorInt Integer colorInt) {
+    private final Paint mStrokePaint;
+
+    /**
+     * 批量绘制时复用的端点: 每条线x0, y0, x1, y1.
+     */
+    private float[] mPoints = new float[64];
+
+    /**
+     * 批量绘制时标记已经画过的矩形.
+     */
+    private boolean[] mDrawn = new boolean[16];
+
+    public ColorIntPainter(@ColorInt int colorInt) {
         mPaint = new Paint();
-        mPaint.setAntiAlias(true);
+        // 分割线的矩形都对齐到整数像素, 关闭抗锯齿不改变输出, 并让drawRect走最快的路径.
+        mPaint.setAntiAlias(false);
         mPaint.setStyle(Paint.Style.FILL);
         mPaint.setColor(colorInt);
+
+        mStrokePaint = new Paint();
+        mStrokePaint.setAntiAlias(false);
+        mStrokePaint.setStyle(Paint.Style.STROKE);
+        mStrokePaint.setStrokeCap(Paint.Cap.BUTT);
+        mStrokePaint.setColor(colorInt);
     }
 
     @Override
@@ -27,4 +49,66 @@ public class ColorIntPainter implements IDividerPainter {
         canvas.drawRect(left, top, right, bottom, mPaint);
     }
 
+    @Override
+    public void drawDividers(@NonNull Canvas canvas, @NonNull int[] rects, int count) {
+        if (count == 1) {
+            drawDivider(canvas, rects[0], rects[1], rects[2], rects[3]);
+            return;
+        }
+        if (mPoints.length < count * 4) {
+            mPoints = new float[count * 4 + (count << 1)];
+        }
+        if (mDrawn.length < count) {
+            mDrawn = new boolean[count + (count >> 1)];
+        }
+        final float[] points = mPoints;
+        final boolean[] drawn = mDrawn;
+        for (int i = 0; i < count; i++) {
+            drawn[i] = false;
+        }
+
+        // 分割线的厚度通常只有一两种, 每种厚度扫描一遍.
+        for (int first = 0; first < count; first++) {
+            if (drawn[first]) continue;
+
+            final int thickness = thickness(rects, first << 2);
+            int n = 0;
+            for (int i = first, offset = first << 2; i < count; i++, offset += 4) {
+                if (drawn[i] || thickness(rects, offset) != thickness) continue;
+
+                drawn[i] = true;
+                final int left = rects[offset];
+                final int top = rects[offset + 1];
+                final int right = rects[offset + 2];
+                final int bottom = rects[offset + 3];
+                if (right - left >= bottom - top) {
+                    points[n] = left;
+                    points[n + 1] = points[n + 3] = top + thickness * 0.5f;
+                    points[n + 2] = right;
+                } else {
+                    points[n] = points[n + 2] = left + thickness * 0.5f;
+                    points[n + 1] = top;
+                    points[n + 3] = bottom;
+                }
+                n += 4;
+            }
+
+            if (n == 4) {
+                drawDivider(canvas, rects[first << 2], rects[(first << 2) + 1],
+                        rects[(first << 2) + 2], rects[(first << 2) + 3]);
+            } else {
+                mStrokePaint.setStrokeWidth(thickness);
+                canvas.drawLines(points, 0, n, mStrokePaint);
+            }
+        }
+    }
+
+    private static int thickness(int[] rects, int offset) {
+        return Math.min(rects[offset + 2] - rects[offset], rects[offset + 3] - rects[offset + 1]);
+    }
+
+    @Override
+    public boolean isSolid() {
+        return true;
+    }
 }
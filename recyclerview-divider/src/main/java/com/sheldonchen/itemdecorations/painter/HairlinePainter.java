@@ -0,0 +1,83 @@
+package com.sheldonchen.itemdecorations.painter;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+
+/**
+ * 1个物理像素的细线, 不开启抗锯齿.
+ * <p>
+ * 使用strokeWidth为0的hairline模式, 无论Canvas如何缩放都只占1个设备像素; 厚度固定为1px,
+ * 通过calcHorizontalThickness()/calcVerticalThickness()参与offset的计算.
+ * 每个矩形沿较长的方向画在第一行(列)像素的中心, 一帧内的细线合并为一次drawLines.
+ */
+
+public class HairlinePainter implements IDividerPainter {
+
+    private final Paint mPaint;
+
+    /**
+     * 批量绘制时复用的端点: 每条线x0, y0, x1, y1.
+     */
+    private float[] mPoints = new float[64];
+
+    public HairlinePainter(@ColorInt int color) {
+        mPaint = new Paint();
+        mPaint.setAntiAlias(false);
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeWidth(0f);
+        mPaint.setColor(color);
+    }
+
+    @Override
+    public void drawDivider(@NonNull Canvas canvas, int left, int top, int right, int bottom) {
+        if (right - left >= bottom - top) {
+            canvas.drawLine(left, top + 0.5f, right, top + 0.5f, mPaint);
+        } else {
+            canvas.drawLine(left + 0.5f, top, left + 0.5f, bottom, mPaint);
+        }
+    }
+
+    @Override
+    public void drawDividers(@NonNull Canvas canvas, @NonNull int[] rects, int count) {
+        if (mPoints.length < count * 4) {
+            mPoints = new float[count * 4 + (count << 1)];
+        }
+        final float[] points = mPoints;
+        for (int i = 0, offset = 0; i < count; i++, offset += 4) {
+            final int left = rects[offset];
+            final int top = rects[offset + 1];
+            final int right = rects[offset + 2];
+            final int bottom = rects[offset + 3];
+            if (right - left >= bottom - top) {
+                points[offset] = left;
+                points[offset + 1] = points[offset + 3] = top + 0.5f;
+                points[offset + 2] = right;
+            } else {
+                points[offset] = points[offset + 2] = left + 0.5f;
+                points[offset + 1] = top;
+                points[offset + 3] = bottom;
+            }
+        }
+        canvas.drawLines(points, 0, count * 4, mPaint);
+    }
+
+    @Override
+    public boolean isSolid() {
+        return true;
+    }
+
+    @Override
+    public int calcHorizontalThickness(int assumed) {
+        return 1;
+    }
+
+    @Override
+    public int calcVerticalThickness(int assumed) {
+        return 1;
+    }
+}
@@ -0,0 +1,146 @@
+package com.sheldonchen.itemdecorations.painter;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.ColorRes;
+import androidx.annotation.DrawableRes;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.collection.LongSparseArray;
+import androidx.core.content.ContextCompat;
+
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * 进程内共享的painter缓存, 多个RecyclerView(例如ViewPager中的多个列表)使用同一份Paint和Drawable.
+ * <p>
+ * 颜色相同的{@link ColorIntPainter}共用一个Paint; 资源painter按Context的主题分开缓存, 以资源id和
+ * Configuration(uiMode, density)为key, 资源可以通过?attr引用主题中的属性.
+ * Drawable通过ConstantState创建并由{@link CachingDrawablePainter}按尺寸光栅化,
+ * 切换深色模式等Configuration变化后会得到新的painter.
+ * 所有条目都是弱引用, 没有ItemDecoration使用时即可被回收. 只能在主线程调用.
+ */
+
+@MainThread
+public final class PainterCache {
+
+    private static final int MIN_PURGE_THRESHOLD = 16;
+
+    private static final LongSparseArray<WeakReference<ColorIntPainter>> sColorPainters =
+            new LongSparseArray<>();
+
+    /**
+     * 每个主题各自的资源painter. API 23+相同样式的主题equals, 多个Activity之间可以共享;
+     * painter不持有主题, 不会阻止主题被回收.
+     */
+    private static final WeakHashMap<Resources.Theme, ResourcePainters> sResourcePainters =
+            new WeakHashMap<>();
+
+    private static int sColorPurgeThreshold = MIN_PURGE_THRESHOLD;
+
+    private PainterCache() {/* no instance.*/}
+
+    /**
+     * 影响资源解析结果的Configuration: uiMode(深色模式)与densityDpi.
+     */
+    public static int configKey(@NonNull Configuration configuration) {
+        return (configuration.uiMode & 0xFF) << 16 | (configuration.densityDpi & 0xFFFF);
+    }
+
+    @NonNull
+    public static ColorIntPainter colorPainter(@ColorInt int color) {
+        final ColorIntPainter cached = get(sColorPainters, color);
+        if (cached != null) return cached;
+
+        final ColorIntPainter painter = new ColorIntPainter(color);
+        sColorPurgeThreshold = put(sColorPainters, color, painter, sColorPurgeThreshold);
+        return painter;
+    }
+
+    @NonNull
+    public static IDividerPainter colorResPainter(@NonNull Context context, @ColorRes int colorRes) {
+        final ResourcePainters painters = resourcePainters(context);
+        final long key = resourceKey(context, colorRes);
+        final IDividerPainter cached = get(painters.mPainters, key);
+        if (cached != null) return cached;
+
+        final IDividerPainter painter = colorPainter(ContextCompat.getColor(context, colorRes));
+        painters.mPurgeThreshold = put(painters.mPainters, key, painter, painters.mPurgeThreshold);
+        return painter;
+    }
+
+    @NonNull
+    public static IDividerPainter drawableResPainter(@NonNull Context context, @DrawableRes int drawableRes) {
+        final ResourcePainters painters = resourcePainters(context);
+        final long key = resourceKey(context, drawableRes);
+        final IDividerPainter cached = get(painters.mPainters, key);
+        if (cached != null) return cached;
+
+        Drawable drawable = ContextCompat.getDrawable(context, drawableRes);
+        if (drawable == null) {
+            throw new IllegalArgumentException("PainterCache: can't resolve drawable " + drawableRes);
+        }
+        // 与Resources内部的缓存共享ConstantState, 不持有inflate出来的那个实例.
+        final Drawable.ConstantState constantState = drawable.getConstantState();
+        if (constantState != null) {
+            drawable = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                    ? constantState.newDrawable(context.getResources(), context.getTheme())
+                    : constantState.newDrawable(context.getResources());
+        }
+        final IDividerPainter painter = new CachingDrawablePainter(drawable);
+        painters.mPurgeThreshold = put(painters.mPainters, key, painter, painters.mPurgeThreshold);
+        return painter;
+    }
+
+    @NonNull
+    private static ResourcePainters resourcePainters(@NonNull Context context) {
+        final Resources.Theme theme = context.getTheme();
+        ResourcePainters painters = sResourcePainters.get(theme);
+        if (painters == null) {
+            painters = new ResourcePainters();
+            sResourcePainters.put(theme, painters);
+        }
+        return painters;
+    }
+
+    private static long resourceKey(@NonNull Context context, int resId) {
+        final int configKey = configKey(context.getResources().getConfiguration());
+        return (long) resId << 32 | (configKey & 0xFFFFFFFFL);
+    }
+
+    private static final class ResourcePainters {
+
+        final LongSparseArray<WeakReference<IDividerPainter>> mPainters = new LongSparseArray<>();
+
+        int mPurgeThreshold = MIN_PURGE_THRESHOLD;
+    }
+
+    private static <T> T get(@NonNull LongSparseArray<WeakReference<T>> cache, long key) {
+        final WeakReference<T> reference = cache.get(key);
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * @return 新的清理阈值: 条目数量达到阈值时清理已被回收的条目, 阈值随存活条目数量增长.
+     */
+    private static <T> int put(@NonNull LongSparseArray<WeakReference<T>> cache,
+                               long key, @NonNull T value, int purgeThreshold) {
+        cache.put(key, new WeakReference<>(value));
+        if (cache.size() < purgeThreshold) return purgeThreshold;
+
+        for (int i = cache.size() - 1; i >= 0; i--) {
+            if (cache.valueAt(i).get() == null) {
+                cache.removeAt(i);
+            }
+        }
+        return Math.max(MIN_PURGE_THRESHOLD, cache.size() << 1);
+    }
+}
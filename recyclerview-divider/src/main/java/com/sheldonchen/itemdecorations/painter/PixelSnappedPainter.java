@@ -0,0 +1,108 @@
+package com.sheldonchen.itemdecorations.painter;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.DisplayMetrics;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.arch.core.util.Function;
+
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+
+/**
+ * 按整数设备像素绘制纯色分割线, 不开启抗锯齿.
+ * <p>
+ * 分割线都是与坐标轴对齐的矩形, 坐标本身就是整数像素, 抗锯齿只会让非整数缩放下的边缘变虚.
+ * 厚度由painter自身决定(以dp指定时按density换算并四舍五入, 至少1px),
+ * 通过calcHorizontalThickness()/calcVerticalThickness()参与offset的计算.
+ */
+
+public class PixelSnappedPainter implements IDividerPainter {
+
+    private final Paint mPaint;
+
+    private final int mThickness;
+
+    /**
+     * @param thicknessPx 厚度(px), <=0时使用Divider中配置的厚度.
+     */
+    public PixelSnappedPainter(@ColorInt int color, int thicknessPx) {
+        mPaint = new Paint();
+        mPaint.setAntiAlias(false);
+        mPaint.setStyle(Paint.Style.FILL);
+        mPaint.setColor(color);
+        mThickness = thicknessPx;
+    }
+
+    /**
+     * 厚度以dp指定, 每个density只换算一次, 用于Builder.setLazyPainter():
+     * <pre>
+     * builder.setLazyPainter(PixelSnappedPainter.dp(color, 0.5f));
+     * </pre>
+     */
+    @NonNull
+    public static Function<Context, IDividerPainter> dp(@ColorInt int color, float thicknessDp) {
+        return new DensityResolver(color, thicknessDp);
+    }
+
+    /**
+     * dp换算为整数像素: 四舍五入, 大于0的dp至少为1px.
+     */
+    public static int toPixels(float dp, float density) {
+        if (dp <= 0f) return 0;
+
+        return Math.max(1, Math.round(dp * density));
+    }
+
+    @Override
+    public void drawDivider(@NonNull Canvas canvas, int left, int top, int right, int bottom) {
+        canvas.drawRect(left, top, right, bottom, mPaint);
+    }
+
+    @Override
+    public boolean isSolid() {
+        return true;
+    }
+
+    @Override
+    public int calcHorizontalThickness(int assumed) {
+        return mThickness > 0 ? mThickness : assumed;
+    }
+
+    @Override
+    public int calcVerticalThickness(int assumed) {
+        return mThickness > 0 ? mThickness : assumed;
+    }
+
+    /**
+     * 按Context的density解析painter, density不变时复用上一次的结果.
+     */
+    private static final class DensityResolver implements Function<Context, IDividerPainter> {
+
+        @ColorInt
+        private final int mColor;
+
+        private final float mThicknessDp;
+
+        private int mDensityDpi = -1;
+
+        private PixelSnappedPainter mPainter = null;
+
+        DensityResolver(@ColorInt int color, float thicknessDp) {
+            mColor = color;
+            mThicknessDp = thicknessDp;
+        }
+
+        @Override
+        public IDividerPainter apply(Context context) {
+            final DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+            if (mPainter == null || metrics.densityDpi != mDensityDpi) {
+                mDensityDpi = metrics.densityDpi;
+                mPainter = new PixelSnappedPainter(mColor, toPixels(mThicknessDp, metrics.density));
+            }
+            return mPainter;
+        }
+    }
+}
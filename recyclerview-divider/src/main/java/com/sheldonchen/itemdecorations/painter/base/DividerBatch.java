@@ -0,0 +1,255 @@
+package com.sheldonchen.itemdecorations.painter.base;
+
+import android.graphics.Canvas;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 收集一帧内同一个Painter需要绘制的分割线, 最后一次性交给
+ * {@link IDividerPainter#drawDividers(Canvas, int[], int)}. 缓冲区在帧之间复用.
+ * <p>
+ * 绘制之前可以裁剪掉不可见的分割线({@link #cull}), 合并同一行/列上相邻的分割线({@link #merge}),
+ * 以及去掉互相重叠的部分({@link #subtract}), 保证每个像素只被画一次.
+ */
+
+public final class DividerBatch {
+
+    private static final int SORT_BY_ROW = 0;
+    private static final int SORT_BY_COLUMN = 1;
+
+    private int[] mRects = new int[4 * 32];
+
+    private int mCount = 0;
+
+    public void add(int left, int top, int right, int bottom) {
+        if (left >= right || top >= bottom) return;
+
+        int offset = mCount << 2;
+        if (offset + 4 > mRects.length) {
+            int[] rects = new int[mRects.length << 1];
+            System.arraycopy(mRects, 0, rects, 0, offset);
+            mRects = rects;
+        }
+        mRects[offset] = left;
+        mRects[offset + 1] = top;
+        mRects[offset + 2] = right;
+        mRects[offset + 3] = bottom;
+        mCount++;
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    public void clear() {
+        mCount = 0;
+    }
+
+    /**
+     * 去掉与裁剪区域不相交的分割线.
+     */
+    public void cull(int clipLeft, int clipTop, int clipRight, int clipBottom) {
+        final int[] rects = mRects;
+        int count = 0;
+        for (int i = 0, offset = 0; i < mCount; i++, offset += 4) {
+            if (rects[offset] >= clipRight || rects[offset + 2] <= clipLeft
+                    || rects[offset + 1] >= clipBottom || rects[offset + 3] <= clipTop) {
+                continue;
+            }
+            copy(offset, count << 2);
+            count++;
+        }
+        mCount = count;
+    }
+
+    /**
+     * 合并共线且相邻的分割线: 上下边相同、水平间隙不超过rowGap的合并为一条横线;
+     * 左右边相同、竖直间隙不超过columnGap的合并为一条竖线.
+     * <p>
+     * 间隙即另一方向分割线穿过的位置, 只应在一个方向上跨越间隙, 否则交叉处会被画两次.
+     */
+    public void merge(int rowGap, int columnGap) {
+        if (mCount < 2) return;
+
+        mergeRows(rowGap);
+        mergeColumns(columnGap);
+    }
+
+    private void mergeRows(int gap) {
+        sort(SORT_BY_ROW);
+        final int[] rects = mRects;
+        int count = 1;
+        for (int i = 1, offset = 4; i < mCount; i++, offset += 4) {
+            final int last = (count - 1) << 2;
+            if (rects[offset + 1] == rects[last + 1] && rects[offset + 3] == rects[last + 3]
+                    && rects[offset] <= rects[last + 2] + gap) {
+                rects[last + 2] = Math.max(rects[last + 2], rects[offset + 2]);
+            } else {
+                copy(offset, count << 2);
+                count++;
+            }
+        }
+        mCount = count;
+    }
+
+    private void mergeColumns(int gap) {
+        sort(SORT_BY_COLUMN);
+        final int[] rects = mRects;
+        int count = 1;
+        for (int i = 1, offset = 4; i < mCount; i++, offset += 4) {
+            final int last = (count - 1) << 2;
+            if (rects[offset] == rects[last] && rects[offset + 2] == rects[last + 2]
+                    && rects[offset + 1] <= rects[last + 3] + gap) {
+                rects[last + 3] = Math.max(rects[last + 3], rects[offset + 3]);
+            } else {
+                copy(offset, count << 2);
+                count++;
+            }
+        }
+        mCount = count;
+    }
+
+    /**
+     * 从当前的分割线中去掉被occluders覆盖的部分. occluders为自身时, 每条分割线只与排在它前面的比较.
+     * <p>
+     * 剩余部分沿分割线较长的方向拆分: 横线先保留重叠区域左右两段, 再保留其上下的部分; 竖线反之.
+     */
+    public void subtract(@NonNull DividerBatch occluders) {
+        final boolean self = occluders == this;
+        for (int i = 0; i < mCount; i++) {
+            final int occluderCount = self ? i : occluders.mCount;
+            for (int j = 0; j < occluderCount; j++) {
+                if (!subtract(i, occluders.mRects, j << 2)) {
+                    // 被完全覆盖, 用最后一条替换, 重新检查当前位置.
+                    mCount--;
+                    copy(mCount << 2, i << 2);
+                    i--;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 从第index条分割线中去掉occluder覆盖的部分, 第一段剩余部分留在原位, 其余追加到末尾.
+     * 被完全覆盖时返回false.
+     */
+    private boolean subtract(int index, int[] occluders, int o) {
+        final int t = index << 2;
+        final int left = mRects[t];
+        final int top = mRects[t + 1];
+        final int right = mRects[t + 2];
+        final int bottom = mRects[t + 3];
+        // 重叠区域.
+        final int iLeft = Math.max(left, occluders[o]);
+        final int iTop = Math.max(top, occluders[o + 1]);
+        final int iRight = Math.min(right, occluders[o + 2]);
+        final int iBottom = Math.min(bottom, occluders[o + 3]);
+
+        if (iLeft >= iRight || iTop >= iBottom) return true;
+        if (iLeft == left && iTop == top && iRight == right && iBottom == bottom) return false;
+
+        // 先把原位置标记为空, 第一段非空的剩余部分写回原位.
+        mRects[t] = mRects[t + 2] = left;
+        if (right - left >= bottom - top) {
+            put(t, left, top, iLeft, bottom);
+            put(t, iRight, top, right, bottom);
+            put(t, iLeft, top, iRight, iTop);
+            put(t, iLeft, iBottom, iRight, bottom);
+        } else {
+            put(t, left, top, right, iTop);
+            put(t, left, iBottom, right, bottom);
+            put(t, left, iTop, iLeft, iBottom);
+            put(t, iRight, iTop, right, iBottom);
+        }
+        return true;
+    }
+
+    /**
+     * t处为空时写入t, 否则追加.
+     */
+    private void put(int t, int left, int top, int right, int bottom) {
+        if (left >= right || top >= bottom) return;
+
+        if (mRects[t] < mRects[t + 2]) {
+            add(left, top, right, bottom);
+            return;
+        }
+        mRects[t] = left;
+        mRects[t + 1] = top;
+        mRects[t + 2] = right;
+        mRects[t + 3] = bottom;
+    }
+
+    /**
+     * 用painter绘制收集到的所有分割线并清空.
+     *
+     * @return 绘制的分割线数量.
+     */
+    public int flush(@NonNull Canvas canvas, @NonNull IDividerPainter painter) {
+        final int count = mCount;
+        if (count > 0) {
+            painter.drawDividers(canvas, mRects, count);
+        }
+        mCount = 0;
+        return count;
+    }
+
+    private void copy(int from, int to) {
+        if (from == to) return;
+        final int[] rects = mRects;
+        rects[to] = rects[from];
+        rects[to + 1] = rects[from + 1];
+        rects[to + 2] = rects[from + 2];
+        rects[to + 3] = rects[from + 3];
+    }
+
+    // 原地堆排序, 不分配内存.
+
+    private void sort(int mode) {
+        for (int i = (mCount >> 1) - 1; i >= 0; i--) {
+            siftDown(i, mCount, mode);
+        }
+        for (int end = mCount - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end, mode);
+        }
+    }
+
+    private void siftDown(int root, int size, int mode) {
+        while (true) {
+            int child = (root << 1) + 1;
+            if (child >= size) return;
+            if (child + 1 < size && compare(child, child + 1, mode) < 0) child++;
+            if (compare(root, child, mode) >= 0) return;
+            swap(root, child);
+            root = child;
+        }
+    }
+
+    private int compare(int a, int b, int mode) {
+        final int[] rects = mRects;
+        final int oa = a << 2;
+        final int ob = b << 2;
+        // SORT_BY_ROW: top, bottom, left;  SORT_BY_COLUMN: left, right, top.
+        final int k1 = mode == SORT_BY_ROW ? 1 : 0;
+        final int k2 = mode == SORT_BY_ROW ? 3 : 2;
+        final int k3 = mode == SORT_BY_ROW ? 0 : 1;
+        int c = Integer.compare(rects[oa + k1], rects[ob + k1]);
+        if (c != 0) return c;
+        c = Integer.compare(rects[oa + k2], rects[ob + k2]);
+        if (c != 0) return c;
+        return Integer.compare(rects[oa + k3], rects[ob + k3]);
+    }
+
+    private void swap(int a, int b) {
+        final int[] rects = mRects;
+        final int oa = a << 2;
+        final int ob = b << 2;
+        for (int k = 0; k < 4; k++) {
+            final int tmp = rects[oa + k];
+            rects[oa + k] = rects[ob + k];
+            rects[ob + k] = tmp;
+        }
+    }
+}
@@ -12,6 +12,38 @@ public interface IDividerPainter {
 
     void drawDivider(@NonNull Canvas canvas, int left, int top, int right, int bottom);
 
+    /**
+     * 一帧开始绘制之前调用, 与{@link #endFrame(Canvas)}成对出现.
+     */
+    default void beginFrame(@NonNull Canvas canvas) {
+    }
+
+    /**
+     * 批量绘制分割线.
+     *
+     * @param rects 按 left, top, right, bottom 依次排列的矩形.
+     * @param count 矩形的数量.
+     */
+    default void drawDividers(@NonNull Canvas canvas, @NonNull int[] rects, int count) {
+        for (int i = 0, offset = 0; i < count; i++, offset += 4) {
+            drawDivider(canvas, rects[offset], rects[offset + 1], rects[offset + 2], rects[offset + 3]);
+        }
+    }
+
+    /**
+     * 一帧绘制结束之后调用.
+     */
+    default void endFrame(@NonNull Canvas canvas) {
+    }
+
+    /**
+     * 是否用同一种颜色填满矩形. 为true时矩形可以被任意拆分而不改变绘制效果,
+     * Divider会去掉分割线之间的重叠部分, 交叉处只画一次.
+     */
+    default boolean isSolid() {
+        return false;
+    }
+
     default int calcHorizontalThickness(int assumed) {
         return assumed;
     }
@@ -0,0 +1,21 @@
+package com.sheldonchen.itemdecorations.rules;
+
+/**
+ * 提供每个position的分割线样式id.
+ * <p>
+ * 每个position只在第一次用到以及数据变化之后查询一次, 结果保存在{@link StyleTable}中,
+ * 所以这里可以读取Adapter的数据, 但不应该依赖滚动状态等随时间变化的信息.
+ */
+
+public interface IDividerStyleProvider {
+
+    /**
+     * 使用Builder本身配置的样式.
+     */
+    int STYLE_DEFAULT = 0;
+
+    /**
+     * @return [0, {@link StyleTable#MAX_STYLE_ID}]之间的样式id, 未注册或超出范围的id按STYLE_DEFAULT处理.
+     */
+    int getDividerStyle(int position);
+}
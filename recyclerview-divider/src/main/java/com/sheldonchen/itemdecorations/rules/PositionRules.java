@@ -0,0 +1,244 @@
+package com.sheldonchen.itemdecorations.rules;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * 基于基本类型数组的position规则集合, 查询不产生装箱和内存分配.
+ * <p>
+ * 包含两类规则:
+ * <ul>
+ * <li>区间: 按起点排序且互不相交的[start, end]区间, 单个position即start == end的区间,
+ * 查询为二分查找O(log n). 数据插入/删除/移动时区间会随之平移.</li>
+ * <li>步长: 从offset开始每隔stride个position命中一次, 不随数据变化平移.</li>
+ * </ul>
+ */
+
+public final class PositionRules {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] mStarts = EMPTY;
+    private int[] mEnds = EMPTY;
+    private int mRangeCount = 0;
+
+    private int[] mStrides = EMPTY;
+    private int[] mStrideOffsets = EMPTY;
+    private int mStrideCount = 0;
+
+    public boolean isEmpty() {
+        return mRangeCount == 0 && mStrideCount == 0;
+    }
+
+    /**
+     * 是否包含步长规则: 步长不随数据平移, 插入/删除之后的item命中结果都可能变化.
+     */
+    public boolean hasStrides() {
+        return mStrideCount > 0;
+    }
+
+    public void clear() {
+        mRangeCount = 0;
+        mStrideCount = 0;
+    }
+
+    public void copyFrom(@NonNull PositionRules other) {
+        mStarts = Arrays.copyOf(other.mStarts, other.mRangeCount);
+        mEnds = Arrays.copyOf(other.mEnds, other.mRangeCount);
+        mRangeCount = other.mRangeCount;
+        mStrides = Arrays.copyOf(other.mStrides, other.mStrideCount);
+        mStrideOffsets = Arrays.copyOf(other.mStrideOffsets, other.mStrideCount);
+        mStrideCount = other.mStrideCount;
+    }
+
+    public void add(int position) {
+        addRange(position, position);
+    }
+
+    /**
+     * 添加区间[from, to](包含两端), 与已有区间重叠或相邻时合并.
+     */
+    public void addRange(int from, int to) {
+        if (from > to) {
+            int tmp = from;
+            from = to;
+            to = tmp;
+        }
+        if (to < 0) return;
+        from = Math.max(0, from);
+
+        // 第一个可能与[from, to]合并的区间.
+        int first = 0;
+        while (first < mRangeCount && mEnds[first] < from - 1) first++;
+        // 最后一个可能与[from, to]合并的区间.
+        int last = first - 1;
+        while (last + 1 < mRangeCount && mStarts[last + 1] <= to + 1) last++;
+
+        if (last < first) {
+            insertRangeAt(first, from, to);
+            return;
+        }
+
+        mStarts[first] = Math.min(from, mStarts[first]);
+        mEnds[first] = Math.max(to, mEnds[last]);
+        final int merged = last - first;
+        if (merged > 0) {
+            System.arraycopy(mStarts, last + 1, mStarts, first + 1, mRangeCount - last - 1);
+            System.arraycopy(mEnds, last + 1, mEnds, first + 1, mRangeCount - last - 1);
+            mRangeCount -= merged;
+        }
+    }
+
+    /**
+     * 从offset开始, 每隔stride个position命中一次(offset, offset + stride, ...).
+     */
+    public void addStride(int stride, int offset) {
+        if (stride <= 0) return;
+
+        if (mStrideCount == mStrides.length) {
+            mStrides = Arrays.copyOf(mStrides, mStrideCount + 1);
+            mStrideOffsets = Arrays.copyOf(mStrideOffsets, mStrideCount + 1);
+        }
+        mStrides[mStrideCount] = stride;
+        mStrideOffsets[mStrideCount] = Math.max(0, offset);
+        mStrideCount++;
+    }
+
+    public boolean contains(int position) {
+        if (position < 0) return false;
+        if (rangeContains(position)) return true;
+
+        for (int i = 0; i < mStrideCount; i++) {
+            final int delta = position - mStrideOffsets[i];
+            if (delta >= 0 && delta % mStrides[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean rangeContains(int position) {
+        final int index = floorRange(position);
+        return index >= 0 && mEnds[index] >= position;
+    }
+
+    /**
+     * 起点<=position的最后一个区间的下标, 不存在时返回-1.
+     */
+    private int floorRange(int position) {
+        int low = 0;
+        int high = mRangeCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (mStarts[mid] <= position) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    // 数据变化时平移区间.
+
+    /**
+     * 在positionStart处插入count个item: 之后的区间整体后移, 插入点位于区间内部时区间随之扩展.
+     */
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        if (itemCount <= 0) return;
+
+        for (int i = 0; i < mRangeCount; i++) {
+            if (mStarts[i] >= positionStart) {
+                mStarts[i] += itemCount;
+                mEnds[i] += itemCount;
+            } else if (mEnds[i] >= positionStart) {
+                mEnds[i] += itemCount;
+            }
+        }
+    }
+
+    /**
+     * 删除[positionStart, positionStart + count)内的item: 被删除的部分从区间中去掉, 之后的区间整体前移.
+     */
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        if (itemCount <= 0) return;
+
+        final int removedEnd = positionStart + itemCount - 1;
+        int count = 0;
+        for (int i = 0; i < mRangeCount; i++) {
+            int start = mStarts[i];
+            int end = mEnds[i];
+            if (start > removedEnd) {
+                start -= itemCount;
+                end -= itemCount;
+            } else if (end >= positionStart) {
+                start = Math.min(start, positionStart);
+                end = end > removedEnd ? end - itemCount : positionStart - 1;
+                if (end < start) continue;
+            }
+
+            // 删除后可能与前一个区间相邻, 合并.
+            if (count > 0 && start <= mEnds[count - 1] + 1) {
+                mEnds[count - 1] = Math.max(end, mEnds[count - 1]);
+            } else {
+                mStarts[count] = start;
+                mEnds[count] = end;
+                count++;
+            }
+        }
+        mRangeCount = count;
+    }
+
+    /**
+     * RecyclerView的move通知每次只移动一个item.
+     */
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        if (fromPosition == toPosition) return;
+
+        final boolean contained = rangeContains(fromPosition);
+        onItemRangeRemoved(fromPosition, 1);
+        onItemRangeInserted(toPosition, 1);
+        if (contained) {
+            add(toPosition);
+        } else {
+            removePosition(toPosition);
+        }
+    }
+
+    /**
+     * 从区间中去掉单个position(不平移其它区间).
+     */
+    private void removePosition(int position) {
+        final int index = floorRange(position);
+        if (index < 0 || mEnds[index] < position) return;
+
+        final int start = mStarts[index];
+        final int end = mEnds[index];
+        if (start == end) {
+            System.arraycopy(mStarts, index + 1, mStarts, index, mRangeCount - index - 1);
+            System.arraycopy(mEnds, index + 1, mEnds, index, mRangeCount - index - 1);
+            mRangeCount--;
+        } else if (position == start) {
+            mStarts[index] = start + 1;
+        } else if (position == end) {
+            mEnds[index] = end - 1;
+        } else {
+            mEnds[index] = position - 1;
+            insertRangeAt(index + 1, position + 1, end);
+        }
+    }
+
+    private void insertRangeAt(int index, int start, int end) {
+        if (mRangeCount == mStarts.length) {
+            final int capacity = Math.max(4, mRangeCount << 1);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mEnds = Arrays.copyOf(mEnds, capacity);
+        }
+        System.arraycopy(mStarts, index, mStarts, index + 1, mRangeCount - index);
+        System.arraycopy(mEnds, index, mEnds, index + 1, mRangeCount - index);
+        mStarts[index] = start;
+        mEnds[index] = end;
+        mRangeCount++;
+    }
+}
@@ -0,0 +1,134 @@
+package com.sheldonchen.itemdecorations.rules;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * 分段边界表: 按position排序的每一段的起点, 以及每一段对应的配置下标.
+ * <p>
+ * position所在的段为起点不大于它的最后一段, 二分查找O(log n); 连续相同的position查询走上一次结果的快速路径.
+ * 数据插入/删除/移动时起点随之平移, 段可以变为空段(与下一段起点相同)但不会被移除.
+ * 在两段交界处插入的数据归属前一段(即追加到前一段末尾).
+ */
+
+public final class SectionTable {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] mStarts = EMPTY;
+
+    private int[] mSpecs = EMPTY;
+
+    private int mCount = 0;
+
+    /**
+     * 上一次查询的结果.
+     */
+    private int mLastSection = -1;
+
+    public int size() {
+        return mCount;
+    }
+
+    public void clear() {
+        mCount = 0;
+        mLastSection = -1;
+    }
+
+    public void copyFrom(@NonNull SectionTable other) {
+        mStarts = Arrays.copyOf(other.mStarts, other.mCount);
+        mSpecs = Arrays.copyOf(other.mSpecs, other.mCount);
+        mCount = other.mCount;
+        mLastSection = -1;
+    }
+
+    /**
+     * 追加一段, 起点不能小于上一段的起点.
+     */
+    public void add(int start, int spec) {
+        if (mCount > 0 && start < mStarts[mCount - 1]) {
+            throw new IllegalArgumentException("SectionTable: section starts must be sorted, "
+                    + start + " < " + mStarts[mCount - 1]);
+        }
+        if (mCount == mStarts.length) {
+            final int capacity = Math.max(4, mCount << 1);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mSpecs = Arrays.copyOf(mSpecs, capacity);
+        }
+        mStarts[mCount] = Math.max(0, start);
+        mSpecs[mCount] = spec;
+        mCount++;
+    }
+
+    /**
+     * position所在的段, 在第一段之前时返回-1.
+     */
+    public int findSection(int position) {
+        final int last = mLastSection;
+        if (last >= 0 && last < mCount && mStarts[last] <= position
+                && (last + 1 == mCount || position < mStarts[last + 1])) {
+            return last;
+        }
+
+        int low = 0;
+        int high = mCount - 1;
+        int found = -1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (mStarts[mid] <= position) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        mLastSection = found;
+        return found;
+    }
+
+    public int getStart(int section) {
+        return mStarts[section];
+    }
+
+    /**
+     * 段的结束位置(不包含), 最后一段以itemCount为结束.
+     */
+    public int getEnd(int section, int itemCount) {
+        return section + 1 < mCount ? mStarts[section + 1] : Math.max(itemCount, mStarts[section]);
+    }
+
+    public int getSpec(int section) {
+        return mSpecs[section];
+    }
+
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        for (int i = 0; i < mCount; i++) {
+            final int start = mStarts[i];
+            // 交界处的插入归属前一段, 第一段的起点不动.
+            if (start > positionStart || (start == positionStart && i > 0 && start > 0)) {
+                mStarts[i] = start + itemCount;
+            }
+        }
+        mLastSection = -1;
+    }
+
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        final int removeEnd = positionStart + itemCount;
+        for (int i = 0; i < mCount; i++) {
+            final int start = mStarts[i];
+            if (start >= removeEnd) {
+                mStarts[i] = start - itemCount;
+            } else if (start > positionStart) {
+                mStarts[i] = positionStart;
+            }
+        }
+        mLastSection = -1;
+    }
+
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        // 先在原位置删除, 再插入到目标位置(目标位置按删除之后计算).
+        onItemRangeRemoved(fromPosition, itemCount);
+        onItemRangeInserted(toPosition, itemCount);
+    }
+}
@@ -0,0 +1,120 @@
+package com.sheldonchen.itemdecorations.rules;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * 每个position一个字节的分割线样式表, 百万级的列表约占1MB.
+ * <p>
+ * 样式id在第一次查询时向{@link IDividerStyleProvider}获取并保存, 之后的查询只是一次数组读取.
+ * 数据插入/删除/移动时表项随item平移, 新插入以及内容变化的position在下次查询时重新获取.
+ */
+
+public final class StyleTable {
+
+    /**
+     * 可用的最大样式id, 0xFF保留为"尚未查询".
+     */
+    public static final int MAX_STYLE_ID = 0xFE;
+
+    private static final byte UNKNOWN = (byte) 0xFF;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] mStyles = EMPTY;
+
+    /**
+     * [0, mSize)内的表项有效(可能为UNKNOWN), 之后的position都视为尚未查询.
+     */
+    private int mSize = 0;
+
+    /**
+     * 累计向provider查询的次数.
+     */
+    private long mLookupCount = 0;
+
+    public int get(int position, @NonNull IDividerStyleProvider provider) {
+        if (position < 0) return IDividerStyleProvider.STYLE_DEFAULT;
+        if (position >= mSize) {
+            resize(position + 1);
+        }
+
+        int style = mStyles[position] & 0xFF;
+        if (style == (UNKNOWN & 0xFF)) {
+            style = provider.getDividerStyle(position);
+            if (style < 0 || style > MAX_STYLE_ID) {
+                style = IDividerStyleProvider.STYLE_DEFAULT;
+            }
+            mStyles[position] = (byte) style;
+            mLookupCount++;
+        }
+        return style;
+    }
+
+    /**
+     * 累计向provider查询的次数, 用于统计增量更新的效果.
+     */
+    public long getLookupCount() {
+        return mLookupCount;
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        final int end = Math.min(mSize, positionStart + itemCount);
+        if (positionStart < end) {
+            Arrays.fill(mStyles, Math.max(0, positionStart), end, UNKNOWN);
+        }
+    }
+
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        if (positionStart < 0 || positionStart > mSize || itemCount <= 0) return;
+
+        final int oldSize = mSize;
+        resize(oldSize + itemCount);
+        System.arraycopy(mStyles, positionStart, mStyles, positionStart + itemCount, oldSize - positionStart);
+        Arrays.fill(mStyles, positionStart, positionStart + itemCount, UNKNOWN);
+    }
+
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        if (positionStart < 0 || positionStart >= mSize || itemCount <= 0) return;
+
+        final int removedEnd = Math.min(mSize, positionStart + itemCount);
+        System.arraycopy(mStyles, removedEnd, mStyles, positionStart, mSize - removedEnd);
+        mSize -= removedEnd - positionStart;
+    }
+
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        if (fromPosition == toPosition || itemCount <= 0) return;
+        if (Math.max(fromPosition, toPosition) + itemCount > mSize) {
+            // 移动到表外: 从较小的位置开始重新查询.
+            mSize = Math.max(0, Math.min(mSize, Math.min(fromPosition, toPosition)));
+            return;
+        }
+
+        final byte[] styles = mStyles;
+        final byte[] moved = Arrays.copyOfRange(styles, fromPosition, fromPosition + itemCount);
+        if (fromPosition < toPosition) {
+            System.arraycopy(styles, fromPosition + itemCount, styles, fromPosition, toPosition - fromPosition);
+        } else {
+            System.arraycopy(styles, toPosition, styles, toPosition + itemCount, fromPosition - toPosition);
+        }
+        System.arraycopy(moved, 0, styles, toPosition, itemCount);
+    }
+
+    /**
+     * 调整有效长度, 新增的表项为UNKNOWN.
+     */
+    private void resize(int size) {
+        if (size > mStyles.length) {
+            mStyles = Arrays.copyOf(mStyles, Math.max(size, mStyles.length + (mStyles.length >> 1)));
+        }
+        if (size > mSize) {
+            Arrays.fill(mStyles, mSize, size, UNKNOWN);
+        }
+        mSize = size;
+    }
+}
@@ -0,0 +1,218 @@
+package com.sheldonchen.itemdecorations.span;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 网格布局的span/行边界索引.
+ * <p>
+ * 按position顺序计算每个item的spanIndex和spanSize(算法与GridLayoutManager默认的
+ * SpanSizeLookup.getSpanIndex()一致), 只保存一段有效前缀[0, mValidCount).
+ * 数据变化时只把有效前缀截断到变化的位置, 下次查询时从该位置向后补算,
+ * 之后首行/末行/行首/行尾的判断均为O(1).
+ * <p>
+ * 只查询{@link ISpanSizeSource#getSpanSize(int)}, 不调用SpanSizeLookup.getSpanIndex()/getSpanGroupIndex():
+ * 重写了这两个方法(例如为了更快地计算)的SpanSizeLookup, 其结果需要与按spanSize依次排列一致,
+ * 这也是GridLayoutManager向下布局时分配span的方式; 返回其他排列(例如在行中留出空位)时分割线按依次排列计算.
+ */
+
+public final class GridSpanIndex implements ISpanGroups {
+
+    private static final int[] EMPTY = new int[0];
+
+    private static final int SPAN_INDEX_SHIFT = 16;
+    private static final int SPAN_SIZE_MASK = 0xFFFF;
+
+    /**
+     * 每个position: spanIndex << 16 | spanSize.
+     */
+    private int[] mPacked = EMPTY;
+
+    private int mItemCount = 0;
+
+    private int mSpanCount = 0;
+
+    /**
+     * [0, mValidCount)区间内的数据是有效的.
+     */
+    private int mValidCount = 0;
+
+    /**
+     * 第二行第一个item的position(没有第二行时为itemCount).
+     */
+    private int mFirstGroupEnd = 0;
+
+    /**
+     * 最后一行第一个item的position.
+     */
+    private int mLastGroupStart = 0;
+
+    /**
+     * 累计重新计算的position数量.
+     */
+    private long mRebuildCount = 0;
+
+    /**
+     * 使整个索引失效(notifyDataSetChanged, 更换SpanSizeLookup等).
+     */
+    public void invalidate() {
+        mValidCount = 0;
+    }
+
+    /**
+     * 使position及其之后的数据失效, 之前的数据不受影响.
+     */
+    public void invalidateFrom(int position) {
+        if (position < mValidCount) {
+            mValidCount = Math.max(0, position);
+        }
+    }
+
+    /**
+     * position - 1所在组的第一个position(position为0时返回0), 只依赖仍然有效的前缀,
+     * 前缀不足时返回一个更小的值.
+     * <p>
+     * 在position处发生插入/删除/移动/变化时, 在此之前的position的span以及首行/末行归属都不会改变.
+     */
+    public int findGroupStartBefore(int position) {
+        int pos = Math.min(position, mValidCount) - 1;
+        while (pos > 0 && getSpanIndex(pos) != 0) {
+            pos--;
+        }
+        return Math.max(0, pos);
+    }
+
+    public void onItemRangeInserted(int positionStart, int itemCount) {
+        invalidateFrom(positionStart);
+    }
+
+    public void onItemRangeRemoved(int positionStart, int itemCount) {
+        invalidateFrom(positionStart);
+    }
+
+    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+        invalidateFrom(Math.min(fromPosition, toPosition));
+    }
+
+    public void onItemRangeChanged(int positionStart, int itemCount) {
+        invalidateFrom(positionStart);
+    }
+
+    /**
+     * 确保索引覆盖[0, itemCount), 只补算失效的部分.
+     */
+    public void ensure(int itemCount, int spanCount, @NonNull ISpanSizeSource source) {
+        itemCount = Math.max(0, itemCount);
+        spanCount = Math.max(1, spanCount);
+        if (spanCount != mSpanCount) {
+            mSpanCount = spanCount;
+            mValidCount = 0;
+        }
+        if (itemCount != mItemCount) {
+            mItemCount = itemCount;
+            mValidCount = Math.min(mValidCount, itemCount);
+            if (mPacked.length < itemCount) {
+                int[] packed = new int[Math.max(itemCount, mPacked.length + (mPacked.length >> 1))];
+                System.arraycopy(mPacked, 0, packed, 0, mValidCount);
+                mPacked = packed;
+            }
+        } else if (mValidCount == itemCount) {
+            return;
+        }
+
+        build(source);
+    }
+
+    private void build(@NonNull ISpanSizeSource source) {
+        final int spanCount = mSpanCount;
+        final int itemCount = mItemCount;
+        final int[] packed = mPacked;
+
+        int start = mValidCount;
+        int nextSpanIndex = 0;
+        if (start > 0) {
+            final int prev = packed[start - 1];
+            nextSpanIndex = (prev >>> SPAN_INDEX_SHIFT) + (prev & SPAN_SIZE_MASK);
+        }
+        if (start == 0 || start <= mFirstGroupEnd) {
+            mFirstGroupEnd = itemCount;
+        }
+
+        for (int pos = start; pos < itemCount; pos++) {
+            int spanSize = source.getSpanSize(pos);
+            if (spanSize < 1) {
+                spanSize = 1;
+            } else if (spanSize > spanCount) {
+                spanSize = spanCount;
+            }
+
+            int spanIndex = nextSpanIndex;
+            if (spanIndex + spanSize > spanCount) {
+                spanIndex = 0;
+            }
+            if (spanIndex == 0 && pos > 0 && mFirstGroupEnd == itemCount) {
+                mFirstGroupEnd = pos;
+            }
+
+            packed[pos] = spanIndex << SPAN_INDEX_SHIFT | spanSize;
+            nextSpanIndex = spanIndex + spanSize;
+        }
+
+        int lastGroupStart = itemCount - 1;
+        while (lastGroupStart > 0 && getSpanIndex(lastGroupStart) != 0) {
+            lastGroupStart--;
+        }
+        mLastGroupStart = Math.max(0, lastGroupStart);
+        mRebuildCount += itemCount - start;
+        mValidCount = itemCount;
+    }
+
+    /**
+     * 累计重新计算的position数量, 用于统计增量更新的效果.
+     */
+    public long getRebuildCount() {
+        return mRebuildCount;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    @Override
+    public int getSpanCount() {
+        return mSpanCount;
+    }
+
+    @Override
+    public int getSpanIndex(int position) {
+        return mPacked[position] >>> SPAN_INDEX_SHIFT;
+    }
+
+    @Override
+    public int getSpanSize(int position) {
+        return mPacked[position] & SPAN_SIZE_MASK;
+    }
+
+    @Override
+    public boolean isInFirstGroup(int position) {
+        return position < mFirstGroupEnd;
+    }
+
+    @Override
+    public boolean isInLastGroup(int position) {
+        return position >= mLastGroupStart;
+    }
+
+    @Override
+    public boolean isGroupStart(int position) {
+        return getSpanIndex(position) == 0;
+    }
+
+    @Override
+    public boolean isGroupEnd(int position) {
+        if (position == mItemCount - 1) {
+            return getSpanIndex(position) + getSpanSize(position) == mSpanCount;
+        }
+        return getSpanIndex(position + 1) == 0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sheldonchen.itemdecorations.span;
+
+/**
+ * 网格中每个position的span, 以及所在组(纵向网格的行, 横向网格的列)的归属.
+ */
+
+public interface ISpanGroups {
+
+    int getItemCount();
+
+    int getSpanCount();
+
+    int getSpanIndex(int position);
+
+    int getSpanSize(int position);
+
+    /**
+     * 是否在第一组(纵向网格的第一行, 横向网格的第一列).
+     */
+    boolean isInFirstGroup(int position);
+
+    /**
+     * 是否在最后一组(纵向网格的最后一行, 横向网格的最后一列).
+     */
+    boolean isInLastGroup(int position);
+
+    /**
+     * 是否是所在组的第一个item.
+     */
+    boolean isGroupStart(int position);
+
+    /**
+     * 是否是所在组的最后一个item.
+     */
+    boolean isGroupEnd(int position);
+}
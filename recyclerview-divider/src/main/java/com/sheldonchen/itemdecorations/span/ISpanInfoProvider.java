@@ -0,0 +1,24 @@
+package com.sheldonchen.itemdecorations.span;
+
+import androidx.annotation.Nullable;
+
+/**
+ * 向GridLayoutDivider提供LayoutManager的span信息.
+ * <p>
+ * 每个LayoutManager只在第一次遇到时解析出provider, 之后绘制和计算offset都直接调用provider,
+ * 不再判断LayoutManager的类型. 自定义的按span排列的LayoutManager实现这个接口即可接入,
+ * 查询应为O(1), 例如等宽span可以直接使用{@link UniformSpanGroups}.
+ */
+
+public interface ISpanInfoProvider {
+
+    int getSpanCount();
+
+    /**
+     * 同步到当前数据集, 每次绘制以及计算offset之前调用一次.
+     *
+     * @return 按position查询的span分组, 返回null时按单列处理.
+     */
+    @Nullable
+    ISpanGroups syncSpanGroups(int itemCount);
+}
@@ -0,0 +1,10 @@
+package com.sheldonchen.itemdecorations.span;
+
+/**
+ * 提供每个position所占的span数量, 与GridLayoutManager.SpanSizeLookup解耦.
+ */
+
+public interface ISpanSizeSource {
+
+    int getSpanSize(int position);
+}
@@ -0,0 +1,143 @@
+package com.sheldonchen.itemdecorations.span;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+/**
+ * 某一版数据下所有position的span以及行(列)归属的不可变快照.
+ * <p>
+ * 可以在后台线程(例如AsyncListDiffer计算差异的线程)构建, 构建完成后只读, 可以在任意线程无锁读取.
+ * 每个position打包为一个int: spanSize(低14位), spanIndex(14~27位), 以及首组/末组/组首/组尾4个标记位.
+ */
+
+public final class SpanSnapshot implements ISpanGroups {
+
+    /**
+     * spanCount的上限, 受打包的位数限制.
+     */
+    public static final int MAX_SPAN_COUNT = (1 << 14) - 1;
+
+    private static final int SPAN_SIZE_MASK = MAX_SPAN_COUNT;
+    private static final int SPAN_INDEX_SHIFT = 14;
+
+    private static final int FLAG_FIRST_GROUP = 1 << 28;
+    private static final int FLAG_LAST_GROUP = 1 << 29;
+    private static final int FLAG_GROUP_START = 1 << 30;
+    private static final int FLAG_GROUP_END = 1 << 31;
+
+    private final int[] mPacked;
+
+    private final int mSpanCount;
+
+    private SpanSnapshot(@NonNull int[] packed, int spanCount) {
+        mPacked = packed;
+        mSpanCount = spanCount;
+    }
+
+    /**
+     * 按GridLayoutManager默认的span分配规则计算[0, itemCount)的快照, 可以在任意线程调用.
+     *
+     * @param source 每个position的spanSize, 只在本方法内(即调用线程上)被调用.
+     */
+    @NonNull
+    @WorkerThread
+    public static SpanSnapshot build(int itemCount, int spanCount, @NonNull ISpanSizeSource source) {
+        if (spanCount < 1 || spanCount > MAX_SPAN_COUNT) {
+            throw new IllegalArgumentException("SpanSnapshot: spanCount must be in [1, "
+                    + MAX_SPAN_COUNT + "], was " + spanCount);
+        }
+        itemCount = Math.max(0, itemCount);
+        final int[] packed = new int[itemCount];
+
+        int nextSpanIndex = 0;
+        int firstGroupEnd = itemCount;
+        for (int pos = 0; pos < itemCount; pos++) {
+            int spanSize = source.getSpanSize(pos);
+            if (spanSize < 1) {
+                spanSize = 1;
+            } else if (spanSize > spanCount) {
+                spanSize = spanCount;
+            }
+
+            int spanIndex = nextSpanIndex;
+            if (spanIndex + spanSize > spanCount) {
+                spanIndex = 0;
+            }
+            if (spanIndex == 0 && pos > 0 && firstGroupEnd == itemCount) {
+                firstGroupEnd = pos;
+            }
+
+            packed[pos] = spanIndex << SPAN_INDEX_SHIFT | spanSize;
+            nextSpanIndex = spanIndex + spanSize;
+        }
+
+        int lastGroupStart = itemCount - 1;
+        while (lastGroupStart > 0 && (packed[lastGroupStart] >>> SPAN_INDEX_SHIFT & SPAN_SIZE_MASK) != 0) {
+            lastGroupStart--;
+        }
+
+        // 第二遍: 组的归属只能在span全部确定之后得出.
+        for (int pos = 0; pos < itemCount; pos++) {
+            int value = packed[pos];
+            final int spanIndex = value >>> SPAN_INDEX_SHIFT & SPAN_SIZE_MASK;
+            if (pos < firstGroupEnd) value |= FLAG_FIRST_GROUP;
+            if (pos >= lastGroupStart) value |= FLAG_LAST_GROUP;
+            if (spanIndex == 0) value |= FLAG_GROUP_START;
+            final boolean groupEnd = pos == itemCount - 1
+                    ? spanIndex + (value & SPAN_SIZE_MASK) == spanCount
+                    : (packed[pos + 1] >>> SPAN_INDEX_SHIFT & SPAN_SIZE_MASK) == 0;
+            if (groupEnd) value |= FLAG_GROUP_END;
+            packed[pos] = value;
+        }
+        return new SpanSnapshot(packed, spanCount);
+    }
+
+    @AnyThread
+    @Override
+    public int getItemCount() {
+        return mPacked.length;
+    }
+
+    @AnyThread
+    @Override
+    public int getSpanCount() {
+        return mSpanCount;
+    }
+
+    @AnyThread
+    @Override
+    public int getSpanIndex(int position) {
+        return mPacked[position] >>> SPAN_INDEX_SHIFT & SPAN_SIZE_MASK;
+    }
+
+    @AnyThread
+    @Override
+    public int getSpanSize(int position) {
+        return mPacked[position] & SPAN_SIZE_MASK;
+    }
+
+    @AnyThread
+    @Override
+    public boolean isInFirstGroup(int position) {
+        return (mPacked[position] & FLAG_FIRST_GROUP) != 0;
+    }
+
+    @AnyThread
+    @Override
+    public boolean isInLastGroup(int position) {
+        return (mPacked[position] & FLAG_LAST_GROUP) != 0;
+    }
+
+    @AnyThread
+    @Override
+    public boolean isGroupStart(int position) {
+        return (mPacked[position] & FLAG_GROUP_START) != 0;
+    }
+
+    @AnyThread
+    @Override
+    public boolean isGroupEnd(int position) {
+        return (mPacked[position] & FLAG_GROUP_END) != 0;
+    }
+}
@@ -0,0 +1,156 @@
+package com.sheldonchen.itemdecorations.span;
+
+import java.util.Arrays;
+
+/**
+ * 瀑布流布局的span边界跟踪器, 随child的布局增量更新.
+ * <p>
+ * 瀑布流中item所在的span只有在布局时才确定(StaggeredGridLayoutManager.LayoutParams.getSpanIndex()),
+ * 无法像网格一样由position推算. 这里记录每个span中已布局的最大position(即该span的末端),
+ * 当最后一个item完成布局后, 每个span末端的item就是该span的最后一个item.
+ * <p>
+ * 第一行: 没有full span的item时, 前spanCount个item依次进入各个span;
+ * 位于它们之前的full span item会把所有span重新对齐, 所以只需记录最小的full span position.
+ * <p>
+ * StaggeredGridLayoutManager可能在没有Adapter通知的情况下重新分配span(invalidateSpanAssignments(),
+ * 填补间隙, 滚动回顶部等), 所以同时记录每个position上一次所在的span; 发现某个position换了span时
+ * 丢弃所有span末端, 从之后布局的child重新累积.
+ */
+
+public final class StaggeredSpanTracker {
+
+    private static final int[] EMPTY = new int[0];
+
+    private static final int SPAN_UNKNOWN = 0;
+    private static final int SPAN_FULL = -1;
+
+    private int mSpanCount = 0;
+
+    /**
+     * 每个span中已布局的最大position, 没有时为-1.
+     */
+    private int[] mSpanEnds = EMPTY;
+
+    /**
+     * 每个已记录的position所在的span: spanIndex + 1, full span为SPAN_FULL, 未记录为SPAN_UNKNOWN.
+     */
+    private int[] mSpans = EMPTY;
+
+    /**
+     * mSpans中[0, mRecordedEnd)可能包含记录.
+     */
+    private int mRecordedEnd = 0;
+
+    /**
+     * 因为span被重新分配而丢弃span末端的次数.
+     */
+    private long mReassignCount = 0;
+
+    /**
+     * 已布局的最小的full span position.
+     */
+    private int mFirstFullSpan = Integer.MAX_VALUE;
+
+    /**
+     * 最后一个item是否已经布局, 此后mSpanEnds才是各span真正的末端.
+     */
+    private boolean mEndReached = false;
+
+    public void reset() {
+        Arrays.fill(mSpanEnds, -1);
+        Arrays.fill(mSpans, 0, mRecordedEnd, SPAN_UNKNOWN);
+        mRecordedEnd = 0;
+        mFirstFullSpan = Integer.MAX_VALUE;
+        mEndReached = false;
+    }
+
+    public void ensureSpanCount(int spanCount) {
+        if (spanCount == mSpanCount) return;
+
+        mSpanCount = spanCount;
+        mSpanEnds = new int[Math.max(0, spanCount)];
+        reset();
+    }
+
+    /**
+     * 记录一个已布局的child.
+     *
+     * @return 是否改变了已布局item的"最后一个"归属, 改变时需要重新计算offset.
+     */
+    public boolean record(int position, int spanIndex, boolean fullSpan, int itemCount) {
+        if (position < 0 || spanIndex < 0 || spanIndex >= mSpanCount) return false;
+
+        final int span = fullSpan ? SPAN_FULL : spanIndex + 1;
+        final int recorded = position < mRecordedEnd ? mSpans[position] : SPAN_UNKNOWN;
+        boolean changed = false;
+        if (recorded != span) {
+            if (recorded != SPAN_UNKNOWN) {
+                // 换了span: 之前记录的末端可能已不属于原来的span.
+                reset();
+                mReassignCount++;
+                changed = true;
+            }
+            remember(position, span);
+        }
+        if (fullSpan) {
+            if (position < mFirstFullSpan) {
+                mFirstFullSpan = position;
+            }
+            for (int i = 0; i < mSpanCount; i++) {
+                if (position > mSpanEnds[i]) {
+                    mSpanEnds[i] = position;
+                    changed |= mEndReached;
+                }
+            }
+        } else if (position > mSpanEnds[spanIndex]) {
+            mSpanEnds[spanIndex] = position;
+            changed |= mEndReached;
+        }
+
+        if (!mEndReached && position == itemCount - 1) {
+            mEndReached = true;
+            return true;
+        }
+        return changed;
+    }
+
+    private void remember(int position, int span) {
+        if (position >= mSpans.length) {
+            mSpans = Arrays.copyOf(mSpans, Math.max(position + 1, mSpans.length + (mSpans.length >> 1)));
+        }
+        mSpans[position] = span;
+        if (position >= mRecordedEnd) {
+            mRecordedEnd = position + 1;
+        }
+    }
+
+    /**
+     * 因为span被重新分配而丢弃span末端的次数.
+     */
+    public long getReassignCount() {
+        return mReassignCount;
+    }
+
+    /**
+     * 是否在第一行(纵向)/第一列(横向).
+     */
+    public boolean isFirstRow(int position, boolean fullSpan) {
+        if (fullSpan) return position == 0;
+        return position < mSpanCount && position < mFirstFullSpan;
+    }
+
+    /**
+     * 是否是所在span的最后一个item, 最后一个item布局之前总是返回false.
+     */
+    public boolean isLastInSpan(int position, int spanIndex, boolean fullSpan) {
+        if (!mEndReached || spanIndex < 0 || spanIndex >= mSpanCount) return false;
+
+        if (fullSpan) {
+            for (int span = 0; span < mSpanCount; span++) {
+                if (mSpanEnds[span] > position) return false;
+            }
+            return true;
+        }
+        return mSpanEnds[spanIndex] == position;
+    }
+}
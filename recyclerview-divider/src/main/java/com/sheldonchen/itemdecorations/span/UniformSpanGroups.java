@@ -0,0 +1,69 @@
+package com.sheldonchen.itemdecorations.span;
+
+/**
+ * 每个item都只占一个span的网格(GridLayoutManager.DefaultSpanSizeLookup).
+ * <p>
+ * 此时spanIndex = position % spanCount, 首行/末行/行首/行尾都可以由position和spanCount直接算出,
+ * 不需要逐个查询SpanSizeLookup, 也不需要任何索引.
+ */
+
+public final class UniformSpanGroups implements ISpanGroups {
+
+    private int mItemCount = 0;
+
+    private int mSpanCount = 1;
+
+    /**
+     * 最后一组第一个item的position.
+     */
+    private int mLastGroupStart = 0;
+
+    public void update(int itemCount, int spanCount) {
+        mItemCount = Math.max(0, itemCount);
+        mSpanCount = Math.max(1, spanCount);
+        mLastGroupStart = mItemCount > 0 ? (mItemCount - 1) / mSpanCount * mSpanCount : 0;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    @Override
+    public int getSpanCount() {
+        return mSpanCount;
+    }
+
+    @Override
+    public int getSpanIndex(int position) {
+        return position % mSpanCount;
+    }
+
+    @Override
+    public int getSpanSize(int position) {
+        return 1;
+    }
+
+    @Override
+    public boolean isInFirstGroup(int position) {
+        return position < mSpanCount;
+    }
+
+    @Override
+    public boolean isInLastGroup(int position) {
+        return position >= mLastGroupStart;
+    }
+
+    @Override
+    public boolean isGroupStart(int position) {
+        return position % mSpanCount == 0;
+    }
+
+    /**
+     * 与GridSpanIndex一致: 未排满的最后一组中的最后一个item不是组尾.
+     */
+    @Override
+    public boolean isGroupEnd(int position) {
+        return position % mSpanCount == mSpanCount - 1;
+    }
+}
@@ -0,0 +1,200 @@
+package com.sheldonchen.itemdecorations.geometry;
+
+import android.graphics.Canvas;
+
+import androidx.annotation.NonNull;
+
+import com.sheldonchen.itemdecorations.painter.base.DividerBatch;
+import com.sheldonchen.itemdecorations.painter.base.IDividerPainter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class AdjacencySweepTest {
+
+    private final DividerBatch mVertical = new DividerBatch();
+
+    private final DividerBatch mHorizontal = new DividerBatch();
+
+    @Test
+    public void sideBySideRectsGetCenteredVerticalDivider() {
+        final AdjacencySweep sweep = new AdjacencySweep();
+        sweep.add(0, 0, 10, 20);
+        sweep.add(14, 5, 30, 40);
+
+        Assert.assertEquals(1, sweep.collect(2, 4, mVertical, mHorizontal));
+        Assert.assertEquals(list("[11, 5, 13, 20]"), drain(mVertical));
+        Assert.assertEquals(0, mHorizontal.size());
+    }
+
+    @Test
+    public void stackedRectsGetHorizontalDivider() {
+        final AdjacencySweep sweep = new AdjacencySweep();
+        sweep.add(0, 10, 20, 20);
+        sweep.add(0, 0, 20, 10);
+
+        Assert.assertEquals(1, sweep.collect(2, 0, mVertical, mHorizontal));
+        // 没有间隙时居中于两者的交界.
+        Assert.assertEquals(list("[0, 9, 20, 11]"), drain(mHorizontal));
+        Assert.assertEquals(0, mVertical.size());
+    }
+
+    @Test
+    public void ignoresDistantAndNonOverlappingRects() {
+        final AdjacencySweep sweep = new AdjacencySweep();
+        sweep.add(0, 0, 10, 10);
+        // 间隙超过maxGap.
+        sweep.add(20, 0, 30, 10);
+        // 水平方向相邻, 但竖直方向只是相接.
+        sweep.add(10, 10, 20, 20);
+        // 空矩形被忽略.
+        sweep.add(10, 0, 10, 10);
+
+        Assert.assertEquals(0, sweep.collect(2, 4, mVertical, mHorizontal));
+        Assert.assertEquals(3, sweep.size());
+    }
+
+    @Test
+    public void nothingToCollectWithoutThicknessOrPairs() {
+        final AdjacencySweep sweep = new AdjacencySweep();
+        sweep.add(0, 0, 10, 10);
+        Assert.assertEquals(0, sweep.collect(2, 4, mVertical, mHorizontal));
+
+        sweep.add(10, 0, 20, 10);
+        Assert.assertEquals(0, sweep.collect(0, 4, mVertical, mHorizontal));
+        Assert.assertEquals(1, sweep.collect(1, 4, mVertical, mHorizontal));
+
+        sweep.clear();
+        Assert.assertEquals(0, sweep.size());
+    }
+
+    @Test
+    public void gridMatchesBruteForcePairs() {
+        final Random random = new Random(23);
+        for (int columns = 1; columns <= 6; columns++) {
+            for (int rows = 1; rows <= 8; rows++) {
+                final AdjacencySweep sweep = new AdjacencySweep();
+                final List<int[]> rects = new ArrayList<>();
+                final int cell = 50;
+                final int gap = 4;
+                for (int row = 0; row < rows; row++) {
+                    for (int column = 0; column < columns; column++) {
+                        final int left = column * (cell + gap);
+                        final int top = row * (cell + gap);
+                        rects.add(new int[]{left, top, left + cell, top + cell});
+                    }
+                }
+                // 打乱添加顺序, 结果不应受影响.
+                Collections.shuffle(rects, random);
+                for (int[] r : rects) {
+                    sweep.add(r[0], r[1], r[2], r[3]);
+                }
+
+                final int pairs = sweep.collect(gap, gap, mVertical, mHorizontal);
+                Assert.assertEquals("columns=" + columns + " rows=" + rows,
+                        (columns - 1) * rows + columns * (rows - 1), pairs);
+                Assert.assertEquals(bruteForce(rects, gap, true), sorted(drain(mVertical)));
+                Assert.assertEquals(bruteForce(rects, gap, false), sorted(drain(mHorizontal)));
+            }
+        }
+    }
+
+    @Test
+    public void largeTableChecksOnlyNeighbours() {
+        // 同一列的item终点相同, 每个item仍只检查交叉轴上重叠的候选.
+        final int columns = 60;
+        final int rows = 500;
+        final int cell = 50;
+        final int gap = 4;
+        final AdjacencySweep sweep = new AdjacencySweep();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                final int left = column * (cell + gap);
+                final int top = row * (cell + gap);
+                sweep.add(left, top, left + cell, top + cell);
+            }
+        }
+
+        final int pairs = sweep.collect(gap, gap, mVertical, mHorizontal);
+        Assert.assertEquals((columns - 1) * rows + columns * (rows - 1), pairs);
+        Assert.assertEquals(pairs, sweep.getVisitCount());
+        Assert.assertEquals((columns - 1) * rows, mVertical.size());
+        mVertical.clear();
+        mHorizontal.clear();
+    }
+
+    @Test
+    public void overlappingRectsMatchBruteForcePairs() {
+        final Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            final AdjacencySweep sweep = new AdjacencySweep();
+            final List<int[]> rects = new ArrayList<>();
+            // 坐标对齐到较粗的网格, 使很多矩形的终点相同, 交叉轴上互相重叠.
+            for (int i = 0; i < 40; i++) {
+                final int left = random.nextInt(10) * 10;
+                final int top = random.nextInt(10) * 10;
+                final int[] r = {left, top, left + (1 + random.nextInt(4)) * 10 - random.nextInt(3),
+                        top + (1 + random.nextInt(4)) * 10 - random.nextInt(3)};
+                rects.add(r);
+                sweep.add(r[0], r[1], r[2], r[3]);
+            }
+
+            sweep.collect(2, 2, mVertical, mHorizontal);
+            Assert.assertEquals("round=" + round, bruteForce(rects, 2, true), sorted(drain(mVertical)));
+            Assert.assertEquals("round=" + round, bruteForce(rects, 2, false), sorted(drain(mHorizontal)));
+        }
+    }
+
+    /**
+     * 两两比较的参考实现.
+     */
+    private static List<String> bruteForce(List<int[]> rects, int gap, boolean vertical) {
+        final int axis = vertical ? 0 : 1;
+        final int cross = 1 - axis;
+        final List<String> out = new ArrayList<>();
+        for (int[] a : rects) {
+            for (int[] b : rects) {
+                final int aEnd = a[axis + 2];
+                final int bStart = b[axis];
+                if (a == b || aEnd > bStart || bStart - aEnd > gap) continue;
+
+                final int from = Math.max(a[cross], b[cross]);
+                final int to = Math.min(a[cross + 2], b[cross + 2]);
+                if (from >= to) continue;
+
+                final int start = aEnd + ((bStart - aEnd - gap) >> 1);
+                out.add(vertical
+                        ? "[" + start + ", " + from + ", " + (start + gap) + ", " + to + "]"
+                        : "[" + from + ", " + start + ", " + to + ", " + (start + gap) + "]");
+            }
+        }
+        return sorted(out);
+    }
+
+    private static List<String> drain(DividerBatch batch) {
+        final List<String> out = new ArrayList<>();
+        batch.flush(null, new IDividerPainter() {
+            @Override
+            public void drawDivider(@NonNull Canvas canvas, int left, int top, int right, int bottom) {
+                out.add("[" + left + ", " + top + ", " + right + ", " + bottom + "]");
+            }
+        });
+        return out;
+    }
+
+    private static List<String> list(String... rects) {
+        final List<String> out = new ArrayList<>();
+        Collections.addAll(out, rects);
+        return out;
+    }
+
+    private static List<String> sorted(List<String> rects) {
+        Collections.sort(rects);
+        return rects;
+    }
+}
@@ -0,0 +1,173 @@
+package com.sheldonchen.itemdecorations.geometry;
+
+import com.sheldonchen.itemdecorations.span.GridSpanIndex;
+import com.sheldonchen.itemdecorations.span.ISpanGroups;
+import com.sheldonchen.itemdecorations.span.ISpanSizeSource;
+import com.sheldonchen.itemdecorations.span.UniformSpanGroups;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * GridOffsetEngine与原GridLayoutDivider.getItemOffsets()的计算结果一致.
+ */
+
+public class GridOffsetEngineTest {
+
+    private static final int MAX_SPAN_COUNT = 12;
+
+    private static final int[] THICKNESSES = {0, 1, 3, 8};
+
+    private static final int[] SIDE_THICKNESSES = {0, 1, 5, 7};
+
+    private static final int ALL_FLAGS = GridOffsetEngine.FLAG_FIRST_GROUP | GridOffsetEngine.FLAG_LAST_GROUP
+            | GridOffsetEngine.FLAG_SKIP_TRAILING | GridOffsetEngine.FLAG_DIVIDER_BEFORE;
+
+    @Test
+    public void matchesLegacyOffsetsForEverySpan() {
+        final int[] actual = new int[4];
+        for (int edges = 0; edges < 8; edges++) {
+            final boolean drawTop = (edges & 1) != 0;
+            final boolean drawBottom = (edges & 2) != 0;
+            final boolean drawSides = (edges & 4) != 0;
+            for (int orientation = 0; orientation < 2; orientation++) {
+                final boolean vertical = orientation == 0;
+                for (int thickness : THICKNESSES) {
+                    for (int side : SIDE_THICKNESSES) {
+                        final GridOffsetEngine engine = new GridOffsetEngine(vertical, thickness, side,
+                                drawTop, drawBottom, drawSides);
+                        for (int spanCount = 1; spanCount <= MAX_SPAN_COUNT; spanCount++) {
+                            for (int spanIndex = 0; spanIndex < spanCount; spanIndex++) {
+                                for (int spanSize = 1; spanIndex + spanSize <= spanCount; spanSize++) {
+                                    for (int flags = 0; flags <= ALL_FLAGS; flags++) {
+                                        engine.getItemOffsets(spanIndex, spanSize, spanCount, flags, actual, 0);
+                                        final int[] expected = expectedOffsets(vertical, thickness, side,
+                                                drawTop, drawBottom, drawSides, spanIndex, spanSize, spanCount, flags);
+                                        Assert.assertArrayEquals("vertical=" + vertical + " thickness=" + thickness
+                                                        + " side=" + side + " edges=" + edges + " spanCount=" + spanCount
+                                                        + " spanIndex=" + spanIndex + " spanSize=" + spanSize
+                                                        + " flags=" + flags,
+                                                expected, actual);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void eachRowReceivesTheSameTotalSideOffset() {
+        final int[] out = new int[4];
+        for (int spanCount = 1; spanCount <= MAX_SPAN_COUNT; spanCount++) {
+            for (int side : SIDE_THICKNESSES) {
+                for (int drawSides = 0; drawSides < 2; drawSides++) {
+                    final GridOffsetEngine engine = new GridOffsetEngine(true, 4, side,
+                            false, false, drawSides == 1);
+                    int first = -1;
+                    for (int spanIndex = 0; spanIndex < spanCount; spanIndex++) {
+                        engine.getItemOffsets(spanIndex, 1, spanCount, 0, out, 0);
+                        final int total = out[0] + out[2];
+                        if (first < 0) first = total;
+                        Assert.assertEquals("spanCount=" + spanCount + " side=" + side, first, total);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void bulkOffsetsMatchPerItemOffsetsForUniformSpans() {
+        final UniformSpanGroups groups = new UniformSpanGroups();
+        for (int spanCount = 1; spanCount <= MAX_SPAN_COUNT; spanCount++) {
+            for (int itemCount = 0; itemCount <= 3 * spanCount + 1; itemCount++) {
+                groups.update(itemCount, spanCount);
+                assertBulkMatchesPerItem(groups);
+            }
+        }
+    }
+
+    @Test
+    public void bulkOffsetsMatchPerItemOffsetsForMixedSpans() {
+        final Random random = new Random(42);
+        final GridSpanIndex index = new GridSpanIndex();
+        for (int spanCount = 1; spanCount <= MAX_SPAN_COUNT; spanCount++) {
+            final int itemCount = 200;
+            final int[] sizes = new int[itemCount];
+            for (int i = 0; i < itemCount; i++) {
+                sizes[i] = 1 + random.nextInt(spanCount);
+            }
+            final ISpanSizeSource source = position -> sizes[position];
+            index.invalidate();
+            index.ensure(itemCount, spanCount, source);
+            assertBulkMatchesPerItem(index);
+        }
+    }
+
+    private static void assertBulkMatchesPerItem(ISpanGroups groups) {
+        final int itemCount = groups.getItemCount();
+        final int[] bulk = new int[Math.max(4, itemCount * 4)];
+        final int[] single = new int[4];
+        for (int edges = 0; edges < 8; edges++) {
+            for (int orientation = 0; orientation < 2; orientation++) {
+                final GridOffsetEngine engine = new GridOffsetEngine(orientation == 0, 3, 5,
+                        (edges & 1) != 0, (edges & 2) != 0, (edges & 4) != 0);
+                // 从中间开始的区间与从0开始的区间.
+                for (int from : new int[]{0, itemCount / 3}) {
+                    final int count = itemCount - from;
+                    engine.getItemOffsets(groups, from, count, bulk);
+                    for (int i = 0; i < count; i++) {
+                        final int pos = from + i;
+                        int flags = 0;
+                        if (groups.isInFirstGroup(pos)) flags |= GridOffsetEngine.FLAG_FIRST_GROUP;
+                        if (groups.isInLastGroup(pos)) flags |= GridOffsetEngine.FLAG_LAST_GROUP;
+                        engine.getItemOffsets(groups.getSpanIndex(pos), groups.getSpanSize(pos),
+                                groups.getSpanCount(), flags, single, 0);
+                        for (int k = 0; k < 4; k++) {
+                            Assert.assertEquals("position=" + pos + " edge=" + k, single[k], bulk[i * 4 + k]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 原GridLayoutDivider.getItemOffsets()的计算, FLAG_SKIP_TRAILING与FLAG_DIVIDER_BEFORE只改变列表方向上的offset.
+     */
+    private static int[] expectedOffsets(boolean vertical, int thickness, int side,
+                                         boolean drawTop, boolean drawBottom, boolean drawSides,
+                                         int spanIndex, int spanSize, int spanCount, int flags) {
+        final boolean first = (flags & GridOffsetEngine.FLAG_FIRST_GROUP) != 0;
+        final boolean last = (flags & GridOffsetEngine.FLAG_LAST_GROUP) != 0;
+
+        int dividerCount = spanCount - 1;
+        if (drawSides) dividerCount = dividerCount + 2;
+        final int eachItemOffsetWidth = dividerCount * side / spanCount;
+        final int dc = eachItemOffsetWidth - side;
+        final int a1 = drawSides ? side : 0;
+        final int spanLastIndex = spanIndex + spanSize - 1;
+        final int sideStart = a1 - dc * spanIndex;
+        final int sideEnd = eachItemOffsetWidth - a1 + dc * spanLastIndex;
+
+        int leading = 0;
+        int trailing;
+        if ((flags & GridOffsetEngine.FLAG_DIVIDER_BEFORE) != 0) {
+            leading = !first || drawTop ? thickness : 0;
+            trailing = last && drawBottom ? thickness : 0;
+        } else {
+            if (first && drawTop) leading = thickness;
+            trailing = thickness;
+            if (last && !drawBottom) trailing = 0;
+            if ((flags & GridOffsetEngine.FLAG_SKIP_TRAILING) != 0) trailing = 0;
+        }
+
+        return vertical
+                ? new int[]{sideStart, leading, sideEnd, trailing}
+                : new int[]{leading, sideStart, trailing, sideEnd};
+    }
+}
@@ -0,0 +1,70 @@
+package com.sheldonchen.itemdecorations.geometry;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OffsetCacheTest {
+
+    @Test
+    public void missesBeforeAnyPut() {
+        final OffsetCache cache = new OffsetCache(8);
+
+        Assert.assertFalse(cache.get(0, new int[4], 0));
+    }
+
+    @Test
+    public void returnsStoredOffsetsAtRequestedIndex() {
+        final OffsetCache cache = new OffsetCache(8);
+        cache.put(3, new int[]{9, 9, 1, 2, 3, 4}, 2);
+
+        final int[] out = new int[8];
+        Assert.assertTrue(cache.get(3, out, 4));
+        Assert.assertArrayEquals(new int[]{0, 0, 0, 0, 1, 2, 3, 4}, out);
+    }
+
+    @Test
+    public void collidingPositionReplacesPreviousEntry() {
+        final OffsetCache cache = new OffsetCache(4);
+        cache.put(1, new int[]{1, 1, 1, 1}, 0);
+        cache.put(5, new int[]{5, 5, 5, 5}, 0);
+
+        final int[] out = new int[4];
+        Assert.assertFalse(cache.get(1, out, 0));
+        Assert.assertTrue(cache.get(5, out, 0));
+        Assert.assertArrayEquals(new int[]{5, 5, 5, 5}, out);
+    }
+
+    @Test
+    public void invalidateFromDropsOnlyLaterPositions() {
+        final OffsetCache cache = new OffsetCache(16);
+        for (int pos = 0; pos < 10; pos++) {
+            cache.put(pos, new int[]{pos, pos, pos, pos}, 0);
+        }
+        cache.invalidateFrom(6);
+
+        final int[] out = new int[4];
+        for (int pos = 0; pos < 10; pos++) {
+            Assert.assertEquals("pos=" + pos, pos < 6, cache.get(pos, out, 0));
+        }
+    }
+
+    @Test
+    public void clearDropsEverything() {
+        final OffsetCache cache = new OffsetCache(4);
+        cache.put(0, new int[4], 0);
+        cache.put(2, new int[4], 0);
+        cache.clear();
+
+        Assert.assertFalse(cache.get(0, new int[4], 0));
+        Assert.assertFalse(cache.get(2, new int[4], 0));
+    }
+
+    @Test
+    public void ignoresNegativePositionsAndClampsCapacity() {
+        final OffsetCache cache = new OffsetCache(0);
+        cache.put(-1, new int[]{1, 2, 3, 4}, 0);
+
+        Assert.assertEquals(1, cache.getCapacity());
+        Assert.assertFalse(cache.get(-1, new int[4], 0));
+    }
+}
@@ -0,0 +1,214 @@
+package com.sheldonchen.itemdecorations.painter.base;
+
+import android.graphics.Canvas;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DividerBatchTest {
+
+    /**
+     * 记录flush时收到的矩形, 不访问Canvas.
+     */
+    private static final class RecordingPainter implements IDividerPainter {
+
+        final List<String> mRects = new ArrayList<>();
+
+        int mBatches = 0;
+
+        @Override
+        public void drawDivider(@NonNull Canvas canvas, int left, int top, int right, int bottom) {
+            mRects.add(rect(left, top, right, bottom));
+        }
+
+        @Override
+        public void drawDividers(@NonNull Canvas canvas, @NonNull int[] rects, int count) {
+            mBatches++;
+            IDividerPainter.super.drawDividers(canvas, rects, count);
+        }
+    }
+
+    @Test
+    public void ignoresEmptyRects() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(0, 0, 0, 10);
+        batch.add(0, 5, 10, 5);
+
+        Assert.assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        final DividerBatch batch = new DividerBatch();
+        for (int i = 0; i < 100; i++) {
+            batch.add(i, 0, i + 1, 1);
+        }
+
+        Assert.assertEquals(100, batch.size());
+        Assert.assertEquals(100, drain(batch).size());
+    }
+
+    @Test
+    public void cullDropsRectsOutsideClip() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(0, 0, 10, 2);
+        batch.add(0, 20, 10, 22);
+        // 只与裁剪区域的边相接, 不相交.
+        batch.add(0, 10, 10, 12);
+        batch.add(-5, 5, 1, 6);
+        batch.cull(0, 5, 10, 10);
+
+        assertRects(drain(batch), rect(-5, 5, 1, 6));
+    }
+
+    @Test
+    public void mergeJoinsCollinearRowsAcrossGap() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(22, 10, 30, 12);
+        batch.add(0, 10, 10, 12);
+        batch.add(12, 10, 20, 12);
+        // 间隙过大, 不合并.
+        batch.add(40, 10, 50, 12);
+        // 不在同一行.
+        batch.add(0, 11, 10, 13);
+        batch.merge(2, 0);
+
+        assertRects(drain(batch), rect(0, 10, 30, 12), rect(40, 10, 50, 12), rect(0, 11, 10, 13));
+    }
+
+    @Test
+    public void mergeJoinsCollinearColumnsAcrossGap() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(5, 0, 7, 10);
+        batch.add(5, 13, 7, 20);
+        batch.add(5, 10, 7, 12);
+        batch.merge(0, 1);
+
+        assertRects(drain(batch), rect(5, 0, 7, 20));
+    }
+
+    @Test
+    public void subtractSplitsRectCrossedByOccluder() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(0, 10, 30, 12);
+        final DividerBatch occluders = new DividerBatch();
+        occluders.add(10, 0, 12, 40);
+        batch.subtract(occluders);
+
+        assertRects(drain(batch), rect(0, 10, 10, 12), rect(12, 10, 30, 12));
+    }
+
+    @Test
+    public void subtractTrimsRectAtOccludedEnd() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(0, 0, 2, 20);
+        final DividerBatch occluders = new DividerBatch();
+        occluders.add(0, 15, 10, 17);
+        occluders.add(-1, -1, 5, 3);
+        batch.subtract(occluders);
+
+        assertRects(drain(batch), rect(0, 3, 2, 15), rect(0, 17, 2, 20));
+    }
+
+    @Test
+    public void subtractDropsFullyCoveredRects() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(0, 0, 10, 2);
+        batch.add(20, 0, 30, 2);
+        final DividerBatch occluders = new DividerBatch();
+        occluders.add(-1, -1, 11, 3);
+        batch.subtract(occluders);
+
+        assertRects(drain(batch), rect(20, 0, 30, 2));
+    }
+
+    @Test
+    public void subtractKeepsRestOfPartiallyCoveredCorner() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(0, 10, 30, 14);
+        final DividerBatch occluders = new DividerBatch();
+        // 只盖住横线左上角的一部分.
+        occluders.add(-5, 0, 6, 12);
+        batch.subtract(occluders);
+
+        assertRects(drain(batch), rect(6, 10, 30, 14), rect(0, 12, 6, 14));
+    }
+
+    @Test
+    public void subtractCutsHoleInsideRect() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(0, 0, 4, 30);
+        final DividerBatch occluders = new DividerBatch();
+        occluders.add(1, 10, 3, 12);
+        batch.subtract(occluders);
+
+        // 竖线先保留上下两段, 再保留洞左右两侧.
+        assertRects(drain(batch), rect(0, 0, 4, 10), rect(0, 12, 4, 30),
+                rect(0, 10, 1, 12), rect(3, 10, 4, 12));
+    }
+
+    @Test
+    public void selfSubtractRemovesPartialOverlap() {
+        final DividerBatch batch = new DividerBatch();
+        // 横线从竖线的中间开始, 两者只有一部分重叠.
+        batch.add(11, 10, 30, 14);
+        batch.add(10, 12, 12, 40);
+        batch.subtract(batch);
+
+        assertRects(drain(batch), rect(11, 10, 30, 14), rect(10, 14, 12, 40), rect(10, 12, 11, 14));
+    }
+
+    @Test
+    public void selfSubtractDrawsCrossingOnlyOnce() {
+        final DividerBatch batch = new DividerBatch();
+        batch.add(0, 10, 30, 12);
+        batch.add(10, 0, 12, 30);
+        batch.add(0, 10, 30, 12);
+        batch.subtract(batch);
+
+        // 横线完整保留, 竖线在交叉处断开, 重复的横线被完全去掉.
+        assertRects(drain(batch), rect(0, 10, 30, 12), rect(10, 0, 12, 10), rect(10, 12, 12, 30));
+    }
+
+    @Test
+    public void flushDrawsOnceAndClears() {
+        final DividerBatch batch = new DividerBatch();
+        final RecordingPainter painter = new RecordingPainter();
+        Assert.assertEquals(0, batch.flush(null, painter));
+        Assert.assertEquals(0, painter.mBatches);
+
+        batch.add(0, 0, 1, 1);
+        batch.add(1, 1, 2, 2);
+        Assert.assertEquals(2, batch.flush(null, painter));
+        Assert.assertEquals(1, painter.mBatches);
+        Assert.assertEquals(0, batch.size());
+    }
+
+    private static List<String> drain(DividerBatch batch) {
+        final RecordingPainter painter = new RecordingPainter();
+        batch.flush(null, painter);
+        return painter.mRects;
+    }
+
+    private static String rect(int left, int top, int right, int bottom) {
+        return "[" + left + ", " + top + ", " + right + ", " + bottom + "]";
+    }
+
+    /**
+     * 不关心顺序.
+     */
+    private static void assertRects(List<String> actual, String... expected) {
+        final List<String> sortedActual = new ArrayList<>(actual);
+        final List<String> sortedExpected = new ArrayList<>(Arrays.asList(expected));
+        Collections.sort(sortedActual);
+        Collections.sort(sortedExpected);
+        Assert.assertEquals(sortedExpected, sortedActual);
+    }
+}
@@ -0,0 +1,180 @@
+package com.sheldonchen.itemdecorations.rules;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PositionRulesTest {
+
+    @Test
+    public void emptyRulesContainNothing() {
+        final PositionRules rules = new PositionRules();
+
+        Assert.assertTrue(rules.isEmpty());
+        Assert.assertFalse(rules.contains(0));
+        Assert.assertFalse(rules.contains(-1));
+    }
+
+    @Test
+    public void overlappingAndAdjacentRangesAreMerged() {
+        final PositionRules rules = new PositionRules();
+        rules.addRange(10, 12);
+        rules.addRange(20, 22);
+        rules.add(13);
+        rules.addRange(19, 14);
+
+        assertContainsExactly(rules, 30, range(10, 22));
+    }
+
+    @Test
+    public void negativePositionsAreIgnored() {
+        final PositionRules rules = new PositionRules();
+        rules.addRange(-5, -1);
+        rules.addRange(-3, 2);
+
+        assertContainsExactly(rules, 10, range(0, 2));
+    }
+
+    @Test
+    public void strideMatchesEveryStrideFromOffset() {
+        final PositionRules rules = new PositionRules();
+        rules.addStride(3, 2);
+        rules.addStride(0, 1);
+
+        Assert.assertTrue(rules.hasStrides());
+        for (int pos = 0; pos < 30; pos++) {
+            Assert.assertEquals("pos=" + pos, pos >= 2 && (pos - 2) % 3 == 0, rules.contains(pos));
+        }
+    }
+
+    @Test
+    public void stridesDoNotShiftWithData() {
+        final PositionRules rules = new PositionRules();
+        rules.addStride(4, 0);
+        rules.onItemRangeInserted(0, 1);
+
+        Assert.assertTrue(rules.contains(0));
+        Assert.assertFalse(rules.contains(1));
+    }
+
+    @Test
+    public void insertInsideRangeExtendsIt() {
+        final PositionRules rules = new PositionRules();
+        rules.addRange(5, 8);
+        rules.onItemRangeInserted(6, 3);
+
+        assertContainsExactly(rules, 20, range(5, 11));
+    }
+
+    @Test
+    public void removeAcrossRangesShrinksAndMergesThem() {
+        final PositionRules rules = new PositionRules();
+        rules.addRange(2, 4);
+        rules.addRange(8, 10);
+        rules.onItemRangeRemoved(4, 4);
+
+        assertContainsExactly(rules, 20, range(2, 6));
+    }
+
+    @Test
+    public void moveCarriesMembershipWithItem() {
+        final PositionRules rules = new PositionRules();
+        rules.add(1);
+        rules.addRange(5, 7);
+        rules.onItemRangeMoved(1, 6, 1);
+
+        // 原5..7前移到4..6, 原1移到6(命中), 区间扩展为4..7.
+        assertContainsExactly(rules, 12, new int[]{4, 5, 6, 7});
+
+        rules.onItemRangeMoved(5, 0, 1);
+        assertContainsExactly(rules, 12, new int[]{0, 5, 6, 7});
+    }
+
+    @Test
+    public void copyFromIsIndependent() {
+        final PositionRules source = new PositionRules();
+        source.addRange(3, 4);
+        source.addStride(10, 0);
+        final PositionRules copy = new PositionRules();
+        copy.copyFrom(source);
+        source.clear();
+
+        Assert.assertTrue(source.isEmpty());
+        Assert.assertTrue(copy.contains(3));
+        Assert.assertTrue(copy.contains(20));
+        Assert.assertFalse(copy.contains(5));
+    }
+
+    @Test
+    public void rangesFollowRandomEditsLikeAList() {
+        final Random random = new Random(17);
+        for (int round = 0; round < 50; round++) {
+            final List<Boolean> model = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                model.add(false);
+            }
+            final PositionRules rules = new PositionRules();
+            for (int i = 0; i < 6; i++) {
+                final int from = random.nextInt(model.size());
+                final int to = Math.min(model.size() - 1, from + random.nextInt(6));
+                rules.addRange(from, to);
+                for (int pos = from; pos <= to; pos++) {
+                    model.set(pos, true);
+                }
+            }
+
+            for (int step = 0; step < 100; step++) {
+                final int op = random.nextInt(3);
+                if (op == 0 || model.size() < 2) {
+                    // 插入点位于区间内部(前后都命中)时, 新item同样命中.
+                    final int at = random.nextInt(model.size() + 1);
+                    final int count = 1 + random.nextInt(4);
+                    final boolean inside = at > 0 && at < model.size() && model.get(at - 1) && model.get(at);
+                    for (int i = 0; i < count; i++) {
+                        model.add(at, inside);
+                    }
+                    rules.onItemRangeInserted(at, count);
+                } else if (op == 1) {
+                    final int at = random.nextInt(model.size());
+                    final int count = Math.min(1 + random.nextInt(4), model.size() - at);
+                    for (int i = 0; i < count; i++) {
+                        model.remove(at);
+                    }
+                    rules.onItemRangeRemoved(at, count);
+                } else {
+                    final int from = random.nextInt(model.size());
+                    final int to = random.nextInt(model.size());
+                    model.add(to, model.remove(from));
+                    rules.onItemRangeMoved(from, to, 1);
+                }
+
+                for (int pos = 0; pos < model.size() + 5; pos++) {
+                    final boolean expected = pos < model.size() && model.get(pos);
+                    Assert.assertEquals("round=" + round + " step=" + step + " pos=" + pos,
+                            expected, rules.contains(pos));
+                }
+            }
+        }
+    }
+
+    private static int[] range(int from, int to) {
+        final int[] positions = new int[to - from + 1];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = from + i;
+        }
+        return positions;
+    }
+
+    private static void assertContainsExactly(PositionRules rules, int limit, int[] positions) {
+        final boolean[] expected = new boolean[limit];
+        for (int position : positions) {
+            expected[position] = true;
+        }
+        for (int pos = 0; pos < limit; pos++) {
+            Assert.assertEquals("pos=" + pos, expected[pos], rules.contains(pos));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.sheldonchen.itemdecorations.rules;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SectionTableTest {
+
+    private static SectionTable table(int... starts) {
+        final SectionTable table = new SectionTable();
+        for (int i = 0; i < starts.length; i++) {
+            table.add(starts[i], i * 10);
+        }
+        return table;
+    }
+
+    @Test
+    public void findsSectionContainingPosition() {
+        final SectionTable table = table(2, 5, 5, 9);
+
+        Assert.assertEquals(-1, table.findSection(0));
+        Assert.assertEquals(-1, table.findSection(1));
+        Assert.assertEquals(0, table.findSection(2));
+        Assert.assertEquals(0, table.findSection(4));
+        // 空段(与下一段起点相同)不会被命中.
+        Assert.assertEquals(2, table.findSection(5));
+        Assert.assertEquals(2, table.findSection(8));
+        Assert.assertEquals(3, table.findSection(100));
+        // 上一次结果的快速路径之后仍然正确.
+        Assert.assertEquals(3, table.findSection(9));
+        Assert.assertEquals(0, table.findSection(3));
+    }
+
+    @Test
+    public void endsAtNextStartOrItemCount() {
+        final SectionTable table = table(0, 4);
+
+        Assert.assertEquals(4, table.getEnd(0, 10));
+        Assert.assertEquals(10, table.getEnd(1, 10));
+        Assert.assertEquals(4, table.getEnd(1, 2));
+        Assert.assertEquals(10, table.getSpec(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsortedStarts() {
+        table(3, 1);
+    }
+
+    @Test
+    public void insertAtBoundaryJoinsPreviousSection() {
+        final SectionTable table = table(0, 4, 8);
+        table.onItemRangeInserted(4, 2);
+
+        assertStarts(table, 0, 6, 10);
+        Assert.assertEquals(0, table.findSection(5));
+    }
+
+    @Test
+    public void insertBeforeFirstItemKeepsFirstSectionAtZero() {
+        final SectionTable table = table(0, 3);
+        table.onItemRangeInserted(0, 2);
+
+        assertStarts(table, 0, 5);
+    }
+
+    @Test
+    public void insertInsideSectionShiftsLaterSections() {
+        final SectionTable table = table(0, 4, 8);
+        table.onItemRangeInserted(1, 3);
+
+        assertStarts(table, 0, 7, 11);
+    }
+
+    @Test
+    public void removeCollapsesSectionsToEmpty() {
+        final SectionTable table = table(0, 4, 6, 10);
+        table.onItemRangeRemoved(3, 5);
+
+        assertStarts(table, 0, 3, 3, 5);
+        Assert.assertEquals(4, table.size());
+        Assert.assertEquals(2, table.findSection(3));
+    }
+
+    @Test
+    public void moveIsRemoveThenInsert() {
+        final SectionTable table = table(0, 4, 8);
+        // 第0个item移动到第5个: 第二段起点前移, 插入位置在第二段内部.
+        table.onItemRangeMoved(0, 5, 1);
+
+        assertStarts(table, 0, 3, 8);
+    }
+
+    @Test
+    public void copyFromIsIndependent() {
+        final SectionTable source = table(0, 2);
+        final SectionTable copy = new SectionTable();
+        copy.copyFrom(source);
+        source.onItemRangeInserted(1, 5);
+        source.clear();
+
+        Assert.assertEquals(0, source.size());
+        assertStarts(copy, 0, 2);
+    }
+
+    private static void assertStarts(SectionTable table, int... starts) {
+        Assert.assertEquals(starts.length, table.size());
+        for (int i = 0; i < starts.length; i++) {
+            Assert.assertEquals("section=" + i, starts[i], table.getStart(i));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.sheldonchen.itemdecorations.rules;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StyleTableTest {
+
+    /**
+     * 以List模拟Adapter的数据, 每个item的样式即其值.
+     */
+    private static final class FakeProvider implements IDividerStyleProvider {
+
+        final List<Integer> mStyles = new ArrayList<>();
+
+        int mLookups = 0;
+
+        FakeProvider(int... styles) {
+            for (int style : styles) {
+                mStyles.add(style);
+            }
+        }
+
+        @Override
+        public int getDividerStyle(int position) {
+            mLookups++;
+            return mStyles.get(position);
+        }
+    }
+
+    @Test
+    public void queriesEachPositionOnce() {
+        final FakeProvider provider = new FakeProvider(1, 2, 3);
+        final StyleTable table = new StyleTable();
+        for (int round = 0; round < 3; round++) {
+            for (int pos = 0; pos < 3; pos++) {
+                Assert.assertEquals(pos + 1, table.get(pos, provider));
+            }
+        }
+
+        Assert.assertEquals(3, provider.mLookups);
+        Assert.assertEquals(3, table.getLookupCount());
+    }
+
+    @Test
+    public void outOfRangeStylesFallBackToDefault() {
+        final FakeProvider provider = new FakeProvider(-1, StyleTable.MAX_STYLE_ID, StyleTable.MAX_STYLE_ID + 1);
+        final StyleTable table = new StyleTable();
+
+        Assert.assertEquals(IDividerStyleProvider.STYLE_DEFAULT, table.get(0, provider));
+        Assert.assertEquals(StyleTable.MAX_STYLE_ID, table.get(1, provider));
+        Assert.assertEquals(IDividerStyleProvider.STYLE_DEFAULT, table.get(2, provider));
+        Assert.assertEquals(IDividerStyleProvider.STYLE_DEFAULT, table.get(-1, provider));
+    }
+
+    @Test
+    public void changedPositionsAreQueriedAgain() {
+        final FakeProvider provider = new FakeProvider(1, 1, 1, 1);
+        final StyleTable table = new StyleTable();
+        fill(table, provider);
+
+        provider.mStyles.set(1, 5);
+        provider.mStyles.set(2, 6);
+        table.onItemRangeChanged(1, 2);
+
+        assertTable(table, provider, 1, 5, 6, 1);
+        Assert.assertEquals(6, provider.mLookups);
+    }
+
+    @Test
+    public void insertShiftsExistingEntries() {
+        final FakeProvider provider = new FakeProvider(1, 2, 3);
+        final StyleTable table = new StyleTable();
+        fill(table, provider);
+
+        provider.mStyles.add(1, 7);
+        provider.mStyles.add(1, 8);
+        table.onItemRangeInserted(1, 2);
+
+        assertTable(table, provider, 1, 8, 7, 2, 3);
+        // 只有新插入的两个position被查询.
+        Assert.assertEquals(5, provider.mLookups);
+    }
+
+    @Test
+    public void removeShiftsLaterEntries() {
+        final FakeProvider provider = new FakeProvider(1, 2, 3, 4, 5);
+        final StyleTable table = new StyleTable();
+        fill(table, provider);
+
+        provider.mStyles.remove(1);
+        provider.mStyles.remove(1);
+        table.onItemRangeRemoved(1, 2);
+
+        assertTable(table, provider, 1, 4, 5);
+        Assert.assertEquals(5, provider.mLookups);
+    }
+
+    @Test
+    public void moveCarriesStyleWithItem() {
+        final FakeProvider provider = new FakeProvider(1, 2, 3, 4, 5);
+        final StyleTable table = new StyleTable();
+        fill(table, provider);
+
+        provider.mStyles.add(3, provider.mStyles.remove(0));
+        table.onItemRangeMoved(0, 3, 1);
+        assertTable(table, provider, 2, 3, 4, 1, 5);
+
+        provider.mStyles.add(0, provider.mStyles.remove(4));
+        table.onItemRangeMoved(4, 0, 1);
+        assertTable(table, provider, 5, 2, 3, 4, 1);
+
+        Assert.assertEquals(5, provider.mLookups);
+    }
+
+    @Test
+    public void clearQueriesEverythingAgain() {
+        final FakeProvider provider = new FakeProvider(1, 2);
+        final StyleTable table = new StyleTable();
+        fill(table, provider);
+        table.clear();
+        provider.mStyles.set(0, 9);
+
+        assertTable(table, provider, 9, 2);
+        Assert.assertEquals(4, provider.mLookups);
+    }
+
+    private static void fill(StyleTable table, FakeProvider provider) {
+        for (int pos = 0; pos < provider.mStyles.size(); pos++) {
+            table.get(pos, provider);
+        }
+    }
+
+    private static void assertTable(StyleTable table, FakeProvider provider, int... expected) {
+        for (int pos = 0; pos < expected.length; pos++) {
+            Assert.assertEquals("pos=" + pos, expected[pos], table.get(pos, provider));
+        }
+    }
+}
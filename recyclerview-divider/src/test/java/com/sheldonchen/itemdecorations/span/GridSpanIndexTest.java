@@ -0,0 +1,189 @@
+package com.sheldonchen.itemdecorations.span;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class GridSpanIndexTest {
+
+    @Test
+    public void matchesGridLayoutManagerSpanIndex() {
+        final Random random = new Random(7);
+        final GridSpanIndex index = new GridSpanIndex();
+        for (int spanCount = 1; spanCount <= 12; spanCount++) {
+            for (int itemCount = 0; itemCount <= 40; itemCount++) {
+                final List<Integer> sizes = randomSizes(random, itemCount, spanCount);
+                index.invalidate();
+                index.ensure(itemCount, spanCount, sizes::get);
+                assertMatchesReference(index, sizes, spanCount);
+            }
+        }
+    }
+
+    @Test
+    public void clampsSpanSizeToSpanCount() {
+        final GridSpanIndex index = new GridSpanIndex();
+        index.ensure(3, 4, position -> position == 0 ? 0 : 9);
+
+        Assert.assertEquals(1, index.getSpanSize(0));
+        Assert.assertEquals(4, index.getSpanSize(1));
+        Assert.assertEquals(0, index.getSpanIndex(1));
+        Assert.assertEquals(0, index.getSpanIndex(2));
+    }
+
+    @Test
+    public void uniformSpansMatchUniformSpanGroups() {
+        final GridSpanIndex index = new GridSpanIndex();
+        final UniformSpanGroups uniform = new UniformSpanGroups();
+        for (int spanCount = 1; spanCount <= 6; spanCount++) {
+            for (int itemCount = 1; itemCount <= 20; itemCount++) {
+                index.invalidate();
+                index.ensure(itemCount, spanCount, position -> 1);
+                uniform.update(itemCount, spanCount);
+                for (int pos = 0; pos < itemCount; pos++) {
+                    final String message = "spanCount=" + spanCount + " itemCount=" + itemCount + " pos=" + pos;
+                    Assert.assertEquals(message, uniform.getSpanIndex(pos), index.getSpanIndex(pos));
+                    Assert.assertEquals(message, uniform.isInFirstGroup(pos), index.isInFirstGroup(pos));
+                    Assert.assertEquals(message, uniform.isInLastGroup(pos), index.isInLastGroup(pos));
+                    Assert.assertEquals(message, uniform.isGroupStart(pos), index.isGroupStart(pos));
+                    Assert.assertEquals(message, uniform.isGroupEnd(pos), index.isGroupEnd(pos));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void insertRebuildsOnlyFromInsertedPosition() {
+        final Random random = new Random(11);
+        final int spanCount = 5;
+        final List<Integer> sizes = randomSizes(random, 1000, spanCount);
+        final GridSpanIndex index = new GridSpanIndex();
+        index.ensure(sizes.size(), spanCount, sizes::get);
+        Assert.assertEquals(1000, index.getRebuildCount());
+
+        sizes.add(900, 3);
+        index.onItemRangeInserted(900, 1);
+        index.ensure(sizes.size(), spanCount, sizes::get);
+
+        Assert.assertEquals(1000 + (1001 - 900), index.getRebuildCount());
+        assertMatchesReference(index, sizes, spanCount);
+    }
+
+    @Test
+    public void incrementalUpdatesMatchFullRebuild() {
+        final Random random = new Random(3);
+        final int spanCount = 4;
+        final List<Integer> sizes = randomSizes(random, 300, spanCount);
+        final GridSpanIndex index = new GridSpanIndex();
+        index.ensure(sizes.size(), spanCount, sizes::get);
+
+        for (int step = 0; step < 200; step++) {
+            final int op = random.nextInt(4);
+            if (op == 0 || sizes.isEmpty()) {
+                final int at = random.nextInt(sizes.size() + 1);
+                final int count = 1 + random.nextInt(3);
+                for (int i = 0; i < count; i++) {
+                    sizes.add(at, 1 + random.nextInt(spanCount));
+                }
+                index.onItemRangeInserted(at, count);
+            } else if (op == 1) {
+                final int at = random.nextInt(sizes.size());
+                final int count = Math.min(1 + random.nextInt(3), sizes.size() - at);
+                for (int i = 0; i < count; i++) {
+                    sizes.remove(at);
+                }
+                index.onItemRangeRemoved(at, count);
+            } else if (op == 2) {
+                final int from = random.nextInt(sizes.size());
+                final int to = random.nextInt(sizes.size());
+                sizes.add(to, sizes.remove(from));
+                index.onItemRangeMoved(from, to, 1);
+            } else {
+                final int at = random.nextInt(sizes.size());
+                sizes.set(at, 1 + random.nextInt(spanCount));
+                index.onItemRangeChanged(at, 1);
+            }
+            index.ensure(sizes.size(), spanCount, sizes::get);
+            assertMatchesReference(index, sizes, spanCount);
+        }
+    }
+
+    @Test
+    public void spanCountChangeRebuildsEverything() {
+        final GridSpanIndex index = new GridSpanIndex();
+        final List<Integer> sizes = randomSizes(new Random(5), 50, 3);
+        index.ensure(sizes.size(), 3, sizes::get);
+        index.ensure(sizes.size(), 6, sizes::get);
+
+        Assert.assertEquals(100, index.getRebuildCount());
+        assertMatchesReference(index, sizes, 6);
+    }
+
+    @Test
+    public void findGroupStartBeforeReturnsStartOfPreviousRow() {
+        final GridSpanIndex index = new GridSpanIndex();
+        index.ensure(10, 3, position -> 1);
+
+        Assert.assertEquals(0, index.findGroupStartBefore(0));
+        Assert.assertEquals(0, index.findGroupStartBefore(3));
+        Assert.assertEquals(3, index.findGroupStartBefore(5));
+        Assert.assertEquals(3, index.findGroupStartBefore(6));
+        Assert.assertEquals(6, index.findGroupStartBefore(7));
+
+        index.invalidateFrom(4);
+        Assert.assertEquals(3, index.findGroupStartBefore(9));
+    }
+
+    private static List<Integer> randomSizes(Random random, int itemCount, int spanCount) {
+        final List<Integer> sizes = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            // 大多数item占一个span, 偶尔出现跨多个span以及占满一行的item.
+            final int roll = random.nextInt(10);
+            sizes.add(roll < 6 ? 1 : roll < 9 ? 1 + random.nextInt(spanCount) : spanCount);
+        }
+        return sizes;
+    }
+
+    /**
+     * 按GridLayoutManager.SpanSizeLookup默认的getSpanIndex()逐个计算, 与索引逐项比较.
+     */
+    private static void assertMatchesReference(GridSpanIndex index, List<Integer> sizes, int spanCount) {
+        final int itemCount = sizes.size();
+        final int[] spanIndexes = new int[itemCount];
+        final int[] groups = new int[itemCount];
+        int spanIndex = 0;
+        int group = 0;
+        for (int pos = 0; pos < itemCount; pos++) {
+            final int size = Math.min(spanCount, sizes.get(pos));
+            if (spanIndex + size > spanCount) {
+                spanIndex = 0;
+            }
+            if (spanIndex == 0 && pos > 0) {
+                group++;
+            }
+            spanIndexes[pos] = spanIndex;
+            groups[pos] = group;
+            spanIndex += size;
+            if (spanIndex == spanCount) {
+                spanIndex = 0;
+            }
+        }
+
+        Assert.assertEquals(itemCount, index.getItemCount());
+        for (int pos = 0; pos < itemCount; pos++) {
+            final String message = "spanCount=" + spanCount + " pos=" + pos;
+            Assert.assertEquals(message, spanIndexes[pos], index.getSpanIndex(pos));
+            Assert.assertEquals(message, Math.min(spanCount, sizes.get(pos)), index.getSpanSize(pos));
+            Assert.assertEquals(message, groups[pos] == 0, index.isInFirstGroup(pos));
+            Assert.assertEquals(message, groups[pos] == groups[itemCount - 1], index.isInLastGroup(pos));
+            Assert.assertEquals(message, spanIndexes[pos] == 0, index.isGroupStart(pos));
+            final boolean groupEnd = pos + 1 < itemCount
+                    ? groups[pos + 1] != groups[pos]
+                    : spanIndexes[pos] + index.getSpanSize(pos) == spanCount;
+            Assert.assertEquals(message, groupEnd, index.isGroupEnd(pos));
+        }
+    }
+}
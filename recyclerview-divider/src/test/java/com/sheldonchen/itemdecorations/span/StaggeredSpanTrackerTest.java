@@ -0,0 +1,113 @@
+package com.sheldonchen.itemdecorations.span;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StaggeredSpanTrackerTest {
+
+    private static final int ITEM_COUNT = 6;
+
+    /**
+     * 按position顺序记录一遍布局, spans[i]为第i个item的span, -1表示full span.
+     */
+    private static boolean layout(StaggeredSpanTracker tracker, int... spans) {
+        boolean changed = false;
+        for (int pos = 0; pos < spans.length; pos++) {
+            final boolean fullSpan = spans[pos] < 0;
+            changed |= tracker.record(pos, fullSpan ? 0 : spans[pos], fullSpan, spans.length);
+        }
+        return changed;
+    }
+
+    private static void assertLastInSpan(StaggeredSpanTracker tracker, int[] spans, int... expectedLast) {
+        for (int pos = 0; pos < spans.length; pos++) {
+            final boolean fullSpan = spans[pos] < 0;
+            boolean expected = false;
+            for (int last : expectedLast) {
+                expected |= last == pos;
+            }
+            Assert.assertEquals("pos=" + pos, expected,
+                    tracker.isLastInSpan(pos, fullSpan ? 0 : spans[pos], fullSpan));
+        }
+    }
+
+    @Test
+    public void nothingIsLastBeforeTheEndIsLaidOut() {
+        final StaggeredSpanTracker tracker = new StaggeredSpanTracker();
+        tracker.ensureSpanCount(2);
+        tracker.record(0, 0, false, ITEM_COUNT);
+        tracker.record(1, 1, false, ITEM_COUNT);
+
+        Assert.assertFalse(tracker.isLastInSpan(0, 0, false));
+        Assert.assertFalse(tracker.isLastInSpan(1, 1, false));
+    }
+
+    @Test
+    public void lastItemOfEachSpanIsFound() {
+        final StaggeredSpanTracker tracker = new StaggeredSpanTracker();
+        tracker.ensureSpanCount(2);
+        final int[] spans = {0, 1, 0, 1, 1, 1};
+
+        Assert.assertTrue(layout(tracker, spans));
+        assertLastInSpan(tracker, spans, 2, 5);
+        Assert.assertTrue(tracker.isFirstRow(0, false));
+        Assert.assertTrue(tracker.isFirstRow(1, false));
+        Assert.assertFalse(tracker.isFirstRow(2, false));
+    }
+
+    @Test
+    public void fullSpanItemEndsEverySpan() {
+        final StaggeredSpanTracker tracker = new StaggeredSpanTracker();
+        tracker.ensureSpanCount(3);
+        final int[] spans = {0, 1, 2, 0, 1, -1};
+
+        layout(tracker, spans);
+        assertLastInSpan(tracker, spans, 5);
+    }
+
+    @Test
+    public void reassignedSpansRebuildTheLastRow() {
+        final StaggeredSpanTracker tracker = new StaggeredSpanTracker();
+        tracker.ensureSpanCount(2);
+        final int[] before = {0, 1, 0, 1, 0, 1};
+        layout(tracker, before);
+        assertLastInSpan(tracker, before, 4, 5);
+
+        // 没有Adapter通知, StaggeredGridLayoutManager把3、4换到了另一个span:
+        // span 0的最后一个item变为比原来的末端(4)更早的3.
+        final int[] after = {0, 1, 0, 0, 1, 1};
+        Assert.assertTrue(layout(tracker, after));
+        assertLastInSpan(tracker, after, 3, 5);
+        Assert.assertEquals(1, tracker.getReassignCount());
+
+        // span不再变化时不会重复重建.
+        Assert.assertFalse(layout(tracker, after));
+        Assert.assertEquals(1, tracker.getReassignCount());
+    }
+
+    @Test
+    public void reassignmentSeenOnlyForLaterItemsStillRebuilds() {
+        final StaggeredSpanTracker tracker = new StaggeredSpanTracker();
+        tracker.ensureSpanCount(2);
+        layout(tracker, 0, 1, 0, 1, 0, 1);
+
+        // 滚动到底部后只重新布局了最后两个item, 它们换了span.
+        Assert.assertTrue(tracker.record(4, 1, false, ITEM_COUNT));
+        tracker.record(5, 0, false, ITEM_COUNT);
+
+        Assert.assertTrue(tracker.isLastInSpan(4, 1, false));
+        Assert.assertTrue(tracker.isLastInSpan(5, 0, false));
+    }
+
+    @Test
+    public void resetForgetsRecordedSpans() {
+        final StaggeredSpanTracker tracker = new StaggeredSpanTracker();
+        tracker.ensureSpanCount(2);
+        layout(tracker, 0, 1, 0, 1, 0, 1);
+        tracker.reset();
+
+        // reset()之后的新布局不算作span被重新分配.
+        layout(tracker, 1, 0, 1, 0, 1, 0);
+        Assert.assertEquals(0, tracker.getReassignCount());
+    }
+}